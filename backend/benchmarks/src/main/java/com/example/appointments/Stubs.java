@@ -0,0 +1,29 @@
+package com.example.appointments;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Minimal in-memory stand-ins for Spring Data repository interfaces, so service benchmarks
+ * measure the service code rather than a database or a mocking framework.
+ */
+public final class Stubs {
+
+    private Stubs() {
+    }
+
+    /**
+     * @param answers method name -> answer for its arguments; any other method throws
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T of(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer == null) {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            }
+            return answer.apply(args);
+        });
+    }
+}
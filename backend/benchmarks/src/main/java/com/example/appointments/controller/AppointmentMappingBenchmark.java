@@ -0,0 +1,46 @@
+package com.example.appointments.controller;
+
+import com.example.appointments.dto.AppointmentResponse;
+import com.example.appointments.entity.Appointment;
+import com.example.appointments.entity.Doctor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO mapping done for every appointment the API returns (AppointmentController.toResponse).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AppointmentMappingBenchmark {
+
+    private Appointment appointment;
+
+    @Setup
+    public void setUp() {
+        Doctor doctor = new Doctor("Dr. Bench", "General", "bench@example.com", 30);
+        doctor.setId(1L);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 7, 9, 0);
+        appointment = new Appointment(doctor, "Patient", start, start.plusMinutes(30));
+        appointment.setId(42L);
+    }
+
+    @Benchmark
+    public AppointmentResponse toResponse() {
+        return AppointmentController.toResponse(appointment);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.appointments.service;
+
+import com.example.appointments.Stubs;
+import com.example.appointments.cache.DoctorCache;
+import com.example.appointments.cache.SlotHolds;
+import com.example.appointments.cache.SlotIndex;
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.config.PrimaryReads;
+import com.example.appointments.entity.Doctor;
+import com.example.appointments.journal.JournaledBookingEngine;
+import com.example.appointments.repository.AppointmentRepository;
+import com.example.appointments.repository.BusyInterval;
+import com.example.appointments.repository.DoctorRepository;
+import com.example.appointments.repository.SlotHoldRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DoctorService.getAvailability for one doctor-day over the default 09:00-17:00 window.
+ * <p>
+ * cold: the day is evicted from the SlotIndex first, so each call merges the busy intervals and builds the bitmap.
+ * warm: the day stays indexed, so each call only lists the free slots.
+ * Repositories are in-memory stubs; database time is excluded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvailabilityBenchmark {
+
+    private static final long DOCTOR_ID = 1L;
+    private static final LocalDate DATE = LocalDate.of(2030, 1, 7);
+
+    @Param({"5", "15", "30", "60"})
+    private int slotMinutes;
+
+    @Param({"0", "8", "64"})
+    private int busyCount;
+
+    private DoctorService doctorService;
+    private SlotIndex slotIndex;
+
+    @Setup
+    public void setUp() {
+        AppointmentsProperties props = new AppointmentsProperties();
+        Doctor doctor = new Doctor("Dr. Bench", "General", "bench@example.com", slotMinutes);
+        doctor.setId(DOCTOR_ID);
+        List<BusyInterval> busy = busyIntervals(props);
+
+        DoctorRepository doctors = Stubs.of(DoctorRepository.class, Map.of(
+                "findById", args -> Optional.of(doctor)));
+        AppointmentRepository appointments = Stubs.of(AppointmentRepository.class, Map.of(
+                "findBusyIntervals", args -> busy));
+
+        slotIndex = new SlotIndex(props);
+        DoctorCache doctorCache = new DoctorCache(doctors, PrimaryReads.inline(), props);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // STANDARD booking mode: the engine is never started, so days are loaded from the appointments stub
+        JournaledBookingEngine bookingEngine = new JournaledBookingEngine(null, null, doctorCache, null, props, meterRegistry);
+        doctorService = new DoctorService(doctors, doctorCache, appointments, props, slotIndex, noHolds(slotIndex, props),
+                PrimaryReads.inline(), bookingEngine, event -> { }, meterRegistry);
+    }
+
+    @Benchmark
+    public List<String> cold() {
+        slotIndex.evict(DOCTOR_ID, DATE);
+        return doctorService.getAvailability(DOCTOR_ID, DATE);
+    }
+
+    @Benchmark
+    public List<String> warm() {
+        return doctorService.getAvailability(DOCTOR_ID, DATE);
+    }
+
+    /**
+     * busyCount intervals of 5-60 minutes at random (not slot-aligned) minutes of the working day, sorted by start
+     * like the repository query returns them. Fixed seed so every fork sees the same day.
+     */
+    private List<BusyInterval> busyIntervals(AppointmentsProperties props) {
+        Random random = new Random(42);
+        LocalDateTime dayStart = DATE.atTime(props.getWorkingHoursStart());
+        long dayMinutes = Duration.between(props.getWorkingHoursStart(), props.getWorkingHoursEnd()).toMinutes();
+        List<BusyInterval> busy = new ArrayList<>(busyCount);
+        for (int i = 0; i < busyCount; i++) {
+            LocalDateTime start = dayStart.plusMinutes(random.nextLong(dayMinutes));
+            busy.add(new BusyInterval(DOCTOR_ID, start, start.plusMinutes(5 + random.nextInt(56))));
+        }
+        busy.sort(Comparator.comparing(BusyInterval::startTime));
+        return busy;
+    }
+
+    /**
+     * SlotHolds over a slot_holds table with no rows for the doctor; reads are served from its in-memory copy.
+     */
+    private static SlotHolds noHolds(SlotIndex slotIndex, AppointmentsProperties props) {
+        SlotHoldRepository repository = new SlotHoldRepository(null) {
+            @Override
+            public List<SlotHolds.Hold> findLiveByDoctor(Long doctorId, Instant now) {
+                return List.of();
+            }
+        };
+        return new SlotHolds(repository, slotIndex, PrimaryReads.inline(), TransactionOperations.withoutTransaction(),
+                event -> { }, props);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.appointments.service;
+
+import com.example.appointments.AppointmentServiceApplication;
+import com.example.appointments.dto.CreateAppointmentRequest;
+import com.example.appointments.dto.CreateDoctorRequest;
+import com.example.appointments.entity.Appointment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AppointmentService.book end to end (transaction, JPA, Flyway-built schema) against in-memory H2,
+ * in each booking mode, at 1, 4 and 16 concurrent threads (JOURNAL journals to a fresh temporary directory).
+ * Every call books a fresh slot, spread round-robin over DOCTORS doctors, so threads do not conflict
+ * and the numbers measure the happy path rather than 409s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingBenchmark {
+
+    private static final int DOCTORS = 64;
+
+    @Param({"STANDARD", "SINGLE_STATEMENT", "JOURNAL"})
+    private String bookingMode;
+
+    private ConfigurableApplicationContext context;
+    private Path journalDirectory;
+    private AppointmentService appointmentService;
+    private final long[] doctorIds = new long[DOCTORS];
+    private final AtomicLong sequence = new AtomicLong();
+    private LocalDateTime base;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        journalDirectory = Files.createTempDirectory("bookingbench-journal");
+        context = new SpringApplicationBuilder(AppointmentServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                // Command-line arguments, so they override application.yml (show-sql would otherwise dominate the timings)
+                .run("--spring.datasource.url=jdbc:h2:mem:bookingbench;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--appointments.bookingMode=" + bookingMode,
+                        "--appointments.journal.directory=" + journalDirectory);
+
+        DoctorService doctorService = context.getBean(DoctorService.class);
+        for (int i = 0; i < DOCTORS; i++) {
+            doctorIds[i] = doctorService.createDoctor(
+                    new CreateDoctorRequest("Dr. Bench " + i, "General", "bench" + i + "@example.com", 30)).getId();
+        }
+        appointmentService = context.getBean(AppointmentService.class);
+        base = LocalDate.now().plusDays(1).atStartOfDay();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(journalDirectory);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Appointment book1() {
+        return book();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Appointment book4() {
+        return book();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Appointment book16() {
+        return book();
+    }
+
+    private Appointment book() {
+        long n = sequence.getAndIncrement();
+        LocalDateTime start = base.plusMinutes(30 * (n / DOCTORS));
+        return appointmentService.book(new CreateAppointmentRequest(doctorIds[(int) (n % DOCTORS)], "Patient " + n, start));
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.appointments.cache;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable occupancy bitmap for one doctor on one working day.
+ * Bit i is set when slot i ([dayStart + i*slotMinutes, dayStart + (i+1)*slotMinutes)) overlaps a CONFIRMED appointment.
+ * Updates return a new instance so readers always see a consistent snapshot.
+ * The slot grid itself is a shared SlotTemplate; a day only adds its start and the bitmap.
+ */
+public final class DaySlots {
+
+    private final LocalDateTime dayStart;
+    private final SlotTemplate grid;
+    private final int slotMinutes;
+    private final int slotCount;
+    private final long[] busy;
+
+    private DaySlots(LocalDateTime dayStart, SlotTemplate grid, long[] busy) {
+        this.dayStart = dayStart;
+        this.grid = grid;
+        this.slotMinutes = grid.getSlotMinutes();
+        this.slotCount = grid.getSlotCount();
+        this.busy = busy;
+    }
+
+    public static Builder builder(LocalDateTime dayStart, LocalDateTime dayEnd, int slotMinutes) {
+        long minutes = Math.max(0, Duration.between(dayStart, dayEnd).toMinutes());
+        return builder(dayStart.toLocalDate(), SlotTemplate.of(dayStart.toLocalTime(), minutes, slotMinutes));
+    }
+
+    public static Builder builder(LocalDate date, SlotTemplate grid) {
+        return new Builder(date.atTime(grid.getStart()), grid);
+    }
+
+    public LocalDateTime getDayStart() {
+        return dayStart;
+    }
+
+    public int getSlotMinutes() {
+        return slotMinutes;
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    public boolean isFree(int slot) {
+        return (busy[slot >>> 6] & (1L << slot)) == 0;
+    }
+
+    /**
+     * Index of the first free slot at or after fromSlot, or -1 if the rest of the day is booked.
+     */
+    public int nextFree(int fromSlot) {
+        if (fromSlot < 0) {
+            fromSlot = 0;
+        }
+        if (fromSlot >= slotCount) {
+            return -1;
+        }
+        int wordIndex = fromSlot >>> 6;
+        long word = ~busy[wordIndex] & (-1L << fromSlot);
+        while (true) {
+            if (word != 0) {
+                int slot = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                return slot < slotCount ? slot : -1;
+            }
+            if (++wordIndex == busy.length) {
+                return -1;
+            }
+            word = ~busy[wordIndex];
+        }
+    }
+
+    public int freeCount() {
+        int used = 0;
+        for (long w : busy) {
+            used += Long.bitCount(w);
+        }
+        return slotCount - used;
+    }
+
+    public LocalDateTime slotStart(int slot) {
+        return dayStart.plusMinutes(grid.offsetMinutes(slot));
+    }
+
+    /**
+     * Index of the first slot starting at or after the given time; slotCount when none does.
+     */
+    public int firstSlotAtOrAfter(LocalDateTime time) {
+        long slotSeconds = slotMinutes * 60L;
+        long slot = -Math.floorDiv(-Duration.between(dayStart, time).getSeconds(), slotSeconds); // ceil
+        return (int) Math.max(0, Math.min(slotCount, slot));
+    }
+
+    /**
+     * Start times (ISO-8601 strings, as LocalDateTime.toString()) of all free slots, in order.
+     * Each is the day's date joined to the grid's pre-rendered time; only slots past midnight are formatted here.
+     */
+    public List<String> freeSlotStarts() {
+        List<String> available = new ArrayList<>(freeCount());
+        String date = dayStart.toLocalDate().toString();
+        for (int slot = nextFree(0); slot >= 0; slot = nextFree(slot + 1)) {
+            available.add(grid.startsOnDayDate(slot) ? date.concat(grid.time(slot)) : slotStart(slot).toString());
+        }
+        return available;
+    }
+
+    /**
+     * Returns a copy with every slot overlapping [start, end) marked busy, or this instance if nothing changes.
+     */
+    public DaySlots withBusy(LocalDateTime start, LocalDateTime end) {
+        long[] copy = Arrays.copyOf(busy, busy.length);
+        return mark(copy, start, end) ? new DaySlots(dayStart, grid, copy) : this;
+    }
+
+    private boolean mark(long[] words, LocalDateTime start, LocalDateTime end) {
+        long slotSeconds = slotMinutes * 60L;
+        long from = Math.floorDiv(Duration.between(dayStart, start).getSeconds(), slotSeconds);
+        long to = -Math.floorDiv(-Duration.between(dayStart, end).getSeconds(), slotSeconds); // ceil, exclusive
+        int first = (int) Math.max(0, from);
+        int last = (int) Math.min(slotCount, to);
+        boolean changed = false;
+        for (int slot = first; slot < last; slot++) {
+            long bit = 1L << slot;
+            if ((words[slot >>> 6] & bit) == 0) {
+                words[slot >>> 6] |= bit;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    public static final class Builder {
+        private final DaySlots template;
+        private final long[] words;
+
+        private Builder(LocalDateTime dayStart, SlotTemplate grid) {
+            this.words = new long[Math.max(1, (grid.getSlotCount() + 63) >>> 6)];
+            this.template = new DaySlots(dayStart, grid, words);
+        }
+
+        public Builder busy(LocalDateTime start, LocalDateTime end) {
+            template.mark(words, start, end);
+            return this;
+        }
+
+        public DaySlots build() {
+            return new DaySlots(template.dayStart, template.grid, words.clone());
+        }
+    }
+}
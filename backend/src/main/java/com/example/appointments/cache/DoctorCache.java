@@ -0,0 +1,167 @@
+package com.example.appointments.cache;
+
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.config.PrimaryReads;
+import com.example.appointments.entity.Doctor;
+import com.example.appointments.event.DoctorChangedEvent;
+import com.example.appointments.repository.DoctorRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache in front of DoctorRepository for lookups by id and for doctor lists
+ * (all doctors, or by specialization). Doctors change rarely, but every booking and availability
+ * call resolves one.
+ * <p>
+ * Cached doctors are copies of the loaded entities, never attached to a persistence context (without replicas a load
+ * runs in the caller's transaction, whose context would otherwise keep managing the shared instance); treat them
+ * as read-only. Entries are bounded by size and age,
+ * and dropped after a committed DoctorChangedEvent: the doctor by id, and every list, since a
+ * create or update can move a doctor into or out of any of them.
+ * Hit/miss statistics are published as the cache.* meters (cache=doctors, cache=doctor-lists).
+ * Misses are loaded from the primary (PrimaryReads), so a replica's lag is never cached. Loads run outside the
+ * cache's per-key compute, which would hold a monitor (and pin a virtual thread) for the whole query; a loaded value
+ * is only stored if no eviction happened while it was being read.
+ */
+@Component
+public class DoctorCache implements MeterBinder {
+
+    private final DoctorRepository doctorRepository;
+    private final PrimaryReads primaryReads;
+    private final Cache<Long, Doctor> byId;
+    private final Cache<ListKey, List<Doctor>> lists;
+    private final AtomicLong evictions = new AtomicLong();
+
+    public DoctorCache(DoctorRepository doctorRepository, PrimaryReads primaryReads, AppointmentsProperties properties) {
+        AppointmentsProperties.DoctorCache cfg = properties.getDoctorCache();
+        this.doctorRepository = doctorRepository;
+        this.primaryReads = primaryReads;
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(cfg.getMaximumSize())
+                .expireAfterWrite(cfg.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        this.lists = Caffeine.newBuilder()
+                .maximumSize(cfg.getMaximumLists())
+                .expireAfterWrite(cfg.getExpireAfterWrite())
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Doctor> findById(Long id) {
+        Doctor cached = byId.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long seen = evictions.get();
+        // Unknown ids are not cached
+        Optional<Doctor> loaded = primaryReads.get(() -> doctorRepository.findById(id));
+        return loaded.map(doctor -> store(byId, id, detachedCopy(doctor), seen));
+    }
+
+    /**
+     * @return the doctors that exist among ids, keyed by id; only the ids not already cached are queried, in one call
+     */
+    public Map<Long, Doctor> findAllById(Collection<Long> ids) {
+        Map<Long, Doctor> found = new HashMap<>(byId.getAllPresent(ids));
+        List<Long> missing = ids.stream().filter(id -> !found.containsKey(id)).distinct().toList();
+        if (!missing.isEmpty()) {
+            long seen = evictions.get();
+            for (Doctor doctor : primaryReads.get(() -> doctorRepository.findAllById(missing))) {
+                found.put(doctor.getId(), store(byId, doctor.getId(), detachedCopy(doctor), seen));
+            }
+        }
+        Map<Long, Doctor> inOrder = new LinkedHashMap<>();
+        for (Long id : ids) {
+            Doctor doctor = found.get(id);
+            if (doctor != null) {
+                inOrder.put(id, doctor);
+            }
+        }
+        return inOrder;
+    }
+
+    public List<Doctor> findAll() {
+        return list(ListKey.ALL, doctorRepository::findAll);
+    }
+
+    public List<Doctor> findBySpecialization(String specialization) {
+        return list(ListKey.of(specialization), () -> doctorRepository.findBySpecializationIgnoreCase(specialization));
+    }
+
+    private List<Doctor> list(ListKey key, Supplier<List<Doctor>> query) {
+        List<Doctor> cached = lists.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = evictions.get();
+        List<Doctor> loaded = primaryReads.get(query).stream().map(DoctorCache::detachedCopy).toList();
+        return store(lists, key, loaded, seen);
+    }
+
+    private static Doctor detachedCopy(Doctor doctor) {
+        Doctor copy = new Doctor(doctor.getName(), doctor.getSpecialization(), doctor.getContactEmail(),
+                doctor.getPerSlotDurationMinutes());
+        copy.setId(doctor.getId());
+        return copy;
+    }
+
+    /**
+     * Caches value unless an entry appeared meanwhile (returned instead) or something was evicted since seen.
+     */
+    private <K, V> V store(Cache<K, V> cache, K key, V value, long seen) {
+        V stored = cache.asMap().compute(key, (k, current) ->
+                current != null ? current : evictions.get() == seen ? value : null);
+        return stored != null ? stored : value;
+    }
+
+    public void evict(Long doctorId) {
+        evictions.incrementAndGet();
+        byId.invalidate(doctorId);
+        lists.invalidateAll();
+    }
+
+    public void invalidateAll() {
+        evictions.incrementAndGet();
+        byId.invalidateAll();
+        lists.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDoctorChanged(DoctorChangedEvent event) {
+        evict(event.getDoctorId());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, byId, "doctors");
+        CaffeineCacheMetrics.monitor(registry, lists, "doctor-lists");
+    }
+
+    /**
+     * specialization is upper-cased, or null for the list of all doctors.
+     */
+    private record ListKey(String specialization) {
+        private static final ListKey ALL = new ListKey(null);
+
+        // Same case folding as findBySpecializationIgnoreCase, which compares upper(...) values
+        static ListKey of(String specialization) {
+            return new ListKey(specialization.toUpperCase(Locale.ROOT));
+        }
+    }
+}
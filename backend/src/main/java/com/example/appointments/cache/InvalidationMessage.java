@@ -0,0 +1,71 @@
+package com.example.appointments.cache;
+
+import com.example.appointments.event.AppointmentChangedEvent;
+import com.example.appointments.event.SlotHoldChangedEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * A committed change exchanged between instances as a NOTIFY payload:
+ * {@code origin|BOOKED|doctorId|start|end}, {@code origin|CANCELLED|doctorId|start|end}, {@code origin|HOLD|doctorId|start|end}
+ * or {@code origin|DOCTOR|doctorId}.
+ * origin identifies the sending instance so it can skip its own notifications.
+ */
+record InvalidationMessage(String origin, Type type, Long doctorId, LocalDateTime startTime, LocalDateTime endTime) {
+
+    enum Type {
+        BOOKED,
+        CANCELLED,
+        HOLD,
+        DOCTOR
+    }
+
+    static InvalidationMessage appointment(String origin, AppointmentChangedEvent event) {
+        Type type = event.getType() == AppointmentChangedEvent.Type.BOOKED ? Type.BOOKED : Type.CANCELLED;
+        return new InvalidationMessage(origin, type, event.getDoctorId(), event.getStartTime(), event.getEndTime());
+    }
+
+    static InvalidationMessage hold(String origin, SlotHoldChangedEvent event) {
+        return new InvalidationMessage(origin, Type.HOLD, event.getDoctorId(), event.getStartTime(), event.getEndTime());
+    }
+
+    static InvalidationMessage doctor(String origin, Long doctorId) {
+        return new InvalidationMessage(origin, Type.DOCTOR, doctorId, null, null);
+    }
+
+    String encode() {
+        String head = origin + '|' + type + '|' + doctorId;
+        return type == Type.DOCTOR ? head : head + '|' + startTime + '|' + endTime;
+    }
+
+    /**
+     * @throws IllegalArgumentException if payload is not in the format produced by {@link #encode()}
+     */
+    static InvalidationMessage parse(String payload) {
+        String[] parts = payload.split("\\|");
+        try {
+            Type type = Type.valueOf(parts[1]);
+            Long doctorId = Long.valueOf(parts[2]);
+            if (type == Type.DOCTOR && parts.length == 3) {
+                return doctor(parts[0], doctorId);
+            }
+            if (type != Type.DOCTOR && parts.length == 5) {
+                return new InvalidationMessage(parts[0], type, doctorId, LocalDateTime.parse(parts[3]), LocalDateTime.parse(parts[4]));
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed invalidation payload: " + payload, e);
+        }
+        throw new IllegalArgumentException("Malformed invalidation payload: " + payload);
+    }
+
+    AppointmentChangedEvent toAppointmentEvent() {
+        AppointmentChangedEvent.Type eventType = type == Type.BOOKED
+                ? AppointmentChangedEvent.Type.BOOKED
+                : AppointmentChangedEvent.Type.CANCELLED;
+        return new AppointmentChangedEvent(eventType, null, doctorId, startTime, endTime);
+    }
+
+    SlotHoldChangedEvent toSlotHoldEvent() {
+        return new SlotHoldChangedEvent(doctorId, startTime, endTime);
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.appointments.cache;
+
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.entity.Doctor;
+import com.example.appointments.event.AppointmentChangedEvent;
+import com.example.appointments.event.DoctorChangedEvent;
+import com.example.appointments.event.SlotHoldChangedEvent;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps SlotIndex and DoctorCache consistent across instances sharing one PostgreSQL database.
+ * <p>
+ * Outgoing: every AppointmentChangedEvent and DoctorChangedEvent is sent with pg_notify inside the
+ * transaction that caused it, so PostgreSQL delivers it only if that transaction commits.
+ * Incoming: a daemon thread holds a dedicated LISTEN connection (outside the Hikari pool) and applies other
+ * instances' changes the same way local ones are applied: bookings patch loaded days, cancellations evict them,
+ * doctor changes evict the doctor, slot hold changes drop the doctor's holds from SlotHolds. Each (re)connect clears
+ * all three, since notifications sent while this instance was not listening are lost.
+ * <p>
+ * Doctor changes also evict the doctor and cached queries from Hibernate's second-level cache, which only sees
+ * this instance's own writes; a (re)connect clears all of it.
+ */
+@Component
+@Profile("postgres")
+@ConditionalOnProperty(prefix = "appointments.cluster-invalidation", name = "enabled", matchIfMissing = true)
+public class PostgresCacheInvalidationBus implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresCacheInvalidationBus.class);
+
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final SlotIndex slotIndex;
+    private final SlotHolds slotHolds;
+    private final DoctorCache doctorCache;
+    private final Cache hibernateCache;
+    private final String channel;
+    private final Duration pollTimeout;
+    private final Duration reconnectDelay;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile boolean running;
+    private volatile Connection listenConnection;
+    private Thread listener;
+
+    public PostgresCacheInvalidationBus(DataSource dataSource,
+                                        JdbcTemplate jdbcTemplate,
+                                        SlotIndex slotIndex,
+                                        SlotHolds slotHolds,
+                                        DoctorCache doctorCache,
+                                        EntityManagerFactory entityManagerFactory,
+                                        AppointmentsProperties properties) {
+        AppointmentsProperties.ClusterInvalidation cfg = properties.getClusterInvalidation();
+        if (!CHANNEL.matcher(cfg.getChannel()).matches()) {
+            // LISTEN takes an identifier, not a bind parameter
+            throw new IllegalStateException("Invalid appointments.clusterInvalidation.channel: " + cfg.getChannel());
+        }
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.slotIndex = slotIndex;
+        this.slotHolds = slotHolds;
+        this.doctorCache = doctorCache;
+        this.hibernateCache = entityManagerFactory.getCache().unwrap(Cache.class);
+        this.channel = cfg.getChannel();
+        this.pollTimeout = cfg.getPollTimeout();
+        this.reconnectDelay = cfg.getReconnectDelay();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        notify(InvalidationMessage.appointment(nodeId, event));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onDoctorChanged(DoctorChangedEvent event) {
+        notify(InvalidationMessage.doctor(nodeId, event.getDoctorId()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onSlotHoldChanged(SlotHoldChangedEvent event) {
+        notify(InvalidationMessage.hold(nodeId, event));
+    }
+
+    private void notify(InvalidationMessage message) {
+        // Runs on the transaction's connection; PostgreSQL holds the notification until commit
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, channel, message.encode());
+    }
+
+    void apply(String payload) {
+        InvalidationMessage message;
+        try {
+            message = InvalidationMessage.parse(payload);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring cache invalidation: {}", e.getMessage());
+            return;
+        }
+        if (nodeId.equals(message.origin())) {
+            return; // already applied locally after commit
+        }
+        if (message.type() == InvalidationMessage.Type.DOCTOR) {
+            hibernateCache.evictEntityData(Doctor.class, message.doctorId());
+            hibernateCache.evictQueryRegions();
+            doctorCache.evict(message.doctorId());
+            slotIndex.evictDoctor(message.doctorId());
+        } else if (message.type() == InvalidationMessage.Type.HOLD) {
+            slotHolds.onSlotHoldChanged(message.toSlotHoldEvent());
+        } else {
+            slotIndex.onAppointmentChanged(message.toAppointmentEvent());
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection conn = openListenConnection(); Statement st = conn.createStatement()) {
+                listenConnection = conn;
+                st.execute("LISTEN " + channel);
+                hibernateCache.evictAllRegions();
+                slotIndex.invalidateAll();
+                slotHolds.invalidateAll();
+                doctorCache.invalidateAll();
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications((int) pollTimeout.toMillis());
+                    if (notifications != null) {
+                        for (PGNotification n : notifications) {
+                            apply(n.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cache invalidation listener lost its connection; reconnecting in {}", reconnectDelay, e);
+                try {
+                    Thread.sleep(reconnectDelay.toMillis());
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            } finally {
+                listenConnection = null;
+            }
+        }
+    }
+
+    /**
+     * A connection of its own rather than one borrowed from the pool, so listening never costs the pool a slot.
+     */
+    private Connection openListenConnection() throws SQLException {
+        if (dataSource.isWrapperFor(HikariDataSource.class)) {
+            HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+            return DriverManager.getConnection(hikari.getJdbcUrl(), hikari.getUsername(), hikari.getPassword());
+        }
+        return dataSource.getConnection();
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        listener = new Thread(this::listen, "cache-invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        Connection conn = listenConnection;
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException ignored) {
+                // shutting down anyway
+            }
+        }
+        listener.interrupt();
+        try {
+            listener.join(pollTimeout.plus(Duration.ofSeconds(1)).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
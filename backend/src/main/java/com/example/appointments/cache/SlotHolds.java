@@ -0,0 +1,251 @@
+package com.example.appointments.cache;
+
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.config.PrimaryReads;
+import com.example.appointments.event.SlotHoldChangedEvent;
+import com.example.appointments.repository.SlotHoldRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived reservations of a doctor's time ("holds") that availability treats as busy and that only the
+ * holder may book.
+ * <p>
+ * Holds are rows of slot_holds, so every instance sees, confirms and releases the same ones. Placing a hold locks
+ * the doctor's row, so live holds of one doctor never overlap; a hold is live until its expires_at, and every read
+ * ignores expired rows, so nothing has to delete them in time. Booking checks (isHeldByOther, findOverlapping) always
+ * query the table on the primary.
+ * <p>
+ * Availability reads (overlapping) use each doctor's live holds as last read from the table, kept for
+ * appointments.slotHolds.expireAfterWrite. Placing or releasing a hold publishes a SlotHoldChangedEvent; after commit it
+ * drops that doctor's holds here, and PostgresCacheInvalidationBus does the same on the other instances. As in
+ * SlotIndex, a load is only stored if no hold changed while it was being read.
+ * <p>
+ * Placing, releasing and (on a daemon thread, at the deadline of every hold this instance has seen) expiring a hold
+ * notify the SlotIndex listeners of the affected days without evicting them, since the bookings underneath did not
+ * change.
+ */
+@Component
+public class SlotHolds implements SmartLifecycle {
+
+    public record Hold(String id, Long doctorId, LocalDateTime startTime, LocalDateTime endTime, Instant expiresAt) {
+    }
+
+    private final SlotHoldRepository repository;
+    private final SlotIndex slotIndex;
+    private final PrimaryReads primaryReads;
+    private final TransactionOperations transactionOperations;
+    private final ApplicationEventPublisher eventPublisher;
+    /** Live holds per doctor by start time, as last read from the table. */
+    private final Cache<Long, List<Hold>> byDoctor;
+    private final AtomicLong changes = new AtomicLong();
+    /** Ids of the holds queued in expiries, so a hold read many times is queued once. */
+    private final Set<String> scheduled = ConcurrentHashMap.newKeySet();
+    private final DelayQueue<Expiry> expiries = new DelayQueue<>();
+
+    private volatile boolean running;
+    private Thread reaper;
+
+    public SlotHolds(SlotHoldRepository repository,
+                     SlotIndex slotIndex,
+                     PrimaryReads primaryReads,
+                     TransactionOperations transactionOperations,
+                     ApplicationEventPublisher eventPublisher,
+                     AppointmentsProperties properties) {
+        AppointmentsProperties.SlotHolds cfg = properties.getSlotHolds();
+        this.repository = repository;
+        this.slotIndex = slotIndex;
+        this.primaryReads = primaryReads;
+        this.transactionOperations = transactionOperations;
+        this.eventPublisher = eventPublisher;
+        this.byDoctor = Caffeine.newBuilder()
+                .maximumSize(cfg.getMaximumSize())
+                .expireAfterWrite(cfg.getExpireAfterWrite())
+                .build();
+    }
+
+    /**
+     * Holds [start, end) of the doctor for ttl. The doctor's expired rows are deleted on the way.
+     *
+     * @return the hold, or empty if it overlaps a live hold
+     */
+    public Optional<Hold> place(Long doctorId, LocalDateTime start, LocalDateTime end, Duration ttl) {
+        return transactionOperations.execute(status -> {
+            repository.lockDoctor(doctorId);
+            Instant now = Instant.now();
+            repository.deleteExpired(doctorId, now);
+            if (!repository.findLiveOverlapping(doctorId, start, end, now).isEmpty()) {
+                return Optional.<Hold>empty();
+            }
+            // Truncated to what TIMESTAMP(6) stores, so the returned hold equals the one read back
+            Hold hold = new Hold(UUID.randomUUID().toString(), doctorId, start, end, now.plus(ttl).truncatedTo(ChronoUnit.MICROS));
+            repository.insert(hold);
+            eventPublisher.publishEvent(new SlotHoldChangedEvent(doctorId, start, end));
+            schedule(hold);
+            return Optional.of(hold);
+        });
+    }
+
+    /**
+     * The hold, while it has not expired or been released.
+     */
+    public Optional<Hold> get(String holdId) {
+        return primaryReads.get(() -> repository.findLive(holdId, Instant.now()));
+    }
+
+    /**
+     * @return whether a live hold was released
+     */
+    public boolean release(String holdId) {
+        return Boolean.TRUE.equals(transactionOperations.execute(status -> {
+            Optional<Hold> hold = repository.findLive(holdId, Instant.now());
+            if (hold.isEmpty() || !repository.delete(holdId)) {
+                return false;
+            }
+            eventPublisher.publishEvent(new SlotHoldChangedEvent(hold.get().doctorId(), hold.get().startTime(), hold.get().endTime()));
+            return true;
+        }));
+    }
+
+    /**
+     * Whether a live hold other than exceptHoldId (may be null) overlaps [start, end) of the doctor, read from the table.
+     */
+    public boolean isHeldByOther(Long doctorId, LocalDateTime start, LocalDateTime end, String exceptHoldId) {
+        for (Hold hold : findOverlapping(doctorId, start, end)) {
+            if (!hold.id().equals(exceptHoldId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Live holds of the doctor overlapping [from, to), by start time, read from the table.
+     */
+    public List<Hold> findOverlapping(Long doctorId, LocalDateTime from, LocalDateTime to) {
+        return primaryReads.get(() -> repository.findLiveOverlapping(doctorId, from, to, Instant.now()));
+    }
+
+    /**
+     * Live holds of the doctor overlapping [from, to), by start time, from this instance's copy of the doctor's holds.
+     * For availability; holds placed on another instance show up once the change reaches this one.
+     */
+    public List<Hold> overlapping(Long doctorId, LocalDateTime from, LocalDateTime to) {
+        List<Hold> holds = byDoctor.getIfPresent(doctorId);
+        if (holds == null) {
+            holds = load(doctorId);
+        }
+        Instant now = Instant.now();
+        List<Hold> result = new ArrayList<>();
+        for (Hold hold : holds) {
+            if (hold.expiresAt().isAfter(now) && hold.startTime().isBefore(to) && hold.endTime().isAfter(from)) {
+                result.add(hold);
+            }
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSlotHoldChanged(SlotHoldChangedEvent event) {
+        changes.incrementAndGet();
+        byDoctor.invalidate(event.getDoctorId());
+        changed(event.getDoctorId(), event.getStartTime(), event.getEndTime());
+    }
+
+    public void invalidateAll() {
+        changes.incrementAndGet();
+        byDoctor.invalidateAll();
+    }
+
+    private List<Hold> load(Long doctorId) {
+        long seen = changes.get();
+        List<Hold> loaded = primaryReads.get(() -> repository.findLiveByDoctor(doctorId, Instant.now()));
+        loaded.forEach(this::schedule);
+        List<Hold> stored = byDoctor.asMap().compute(doctorId, (k, current) ->
+                current != null ? current : changes.get() == seen ? loaded : null);
+        return stored != null ? stored : loaded;
+    }
+
+    private void schedule(Hold hold) {
+        if (scheduled.add(hold.id())) {
+            expiries.add(new Expiry(hold));
+        }
+    }
+
+    private void changed(Long doctorId, LocalDateTime start, LocalDateTime end) {
+        for (LocalDate date = start.toLocalDate(); !date.isAfter(end.minusNanos(1).toLocalDate()); date = date.plusDays(1)) {
+            slotIndex.markChanged(doctorId, date);
+        }
+    }
+
+    private void reap() {
+        while (running) {
+            try {
+                Hold hold = expiries.take().hold;
+                scheduled.remove(hold.id());
+                // Also fires for holds released earlier; listeners then just recompute an unchanged day
+                changed(hold.doctorId(), hold.startTime(), hold.endTime());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        reaper = new Thread(this::reap, "slot-hold-reaper");
+        reaper.setDaemon(true);
+        reaper.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        reaper.interrupt();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private static final class Expiry implements Delayed {
+        private final Hold hold;
+
+        private Expiry(Hold hold) {
+            this.hold = hold;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(Instant.now(), hold.expiresAt()));
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
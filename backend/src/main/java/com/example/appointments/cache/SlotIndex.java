@@ -0,0 +1,158 @@
+package com.example.appointments.cache;
+
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.event.AppointmentChangedEvent;
+import com.example.appointments.event.DoctorChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Per-(doctor, date) slot occupancy bitmaps backing availability queries.
+ * Days are loaded from the database on first access and then kept current from
+ * committed AppointmentChangedEvents, so repeated availability reads skip the appointment query.
+ * <p>
+ * Bookings set bits on a loaded day; cancellations evict it, because a freed interval may still
+ * overlap another appointment and only the database knows that.
+ * Loads run outside the cache map's per-key compute, which holds a monitor and would pin a virtual thread for the
+ * whole query. Instead, every change bumps a counter for its key's stripe first, and a loaded day is only stored if
+ * its stripe did not move during the load; otherwise it is returned once and the next read loads again. Concurrent
+ * first reads of the same day may each query the database.
+ * <p>
+ * Every change, local or applied from another instance, is also reported to registered ChangeListeners.
+ */
+@Component
+public class SlotIndex {
+
+    /**
+     * Told which days may have changed. Called on the thread that applied the change (often right after a commit),
+     * so implementations must return quickly.
+     */
+    @FunctionalInterface
+    public interface ChangeListener {
+        /**
+         * @param doctorId the doctor, or null when every doctor's days may have changed
+         * @param date     the day, or null when every day of the doctor may have changed
+         */
+        void daysChanged(Long doctorId, LocalDate date);
+    }
+
+    private static final int CHANGE_STRIPES = 64;
+
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final Cache<Key, DaySlots> days;
+    private final AtomicLongArray changes = new AtomicLongArray(CHANGE_STRIPES);
+
+    public SlotIndex(AppointmentsProperties properties) {
+        AppointmentsProperties.AvailabilityIndex cfg = properties.getAvailabilityIndex();
+        this.days = Caffeine.newBuilder()
+                .maximumSize(cfg.getMaximumSize())
+                .expireAfterWrite(cfg.getExpireAfterWrite())
+                .build();
+    }
+
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public DaySlots get(Long doctorId, LocalDate date, Supplier<DaySlots> loader) {
+        Key key = new Key(doctorId, date);
+        DaySlots day = days.getIfPresent(key);
+        if (day != null) {
+            return day;
+        }
+        int stripe = stripe(key);
+        long seen = changes.get(stripe);
+        DaySlots loaded = loader.get();
+        DaySlots stored = days.asMap().compute(key, (k, current) ->
+                current != null ? current : changes.get(stripe) == seen ? loaded : null);
+        return stored != null ? stored : loaded;
+    }
+
+    public DaySlots getIfPresent(Long doctorId, LocalDate date) {
+        return days.getIfPresent(new Key(doctorId, date));
+    }
+
+    public void evict(Long doctorId, LocalDate date) {
+        Key key = new Key(doctorId, date);
+        changed(key);
+        days.asMap().remove(key);
+        fireChanged(doctorId, date);
+    }
+
+    /**
+     * The day's availability changed while its bookings did not (a slot hold was placed or let go):
+     * the bitmap is kept and only listeners are told.
+     */
+    public void markChanged(Long doctorId, LocalDate date) {
+        fireChanged(doctorId, date);
+    }
+
+    public void evictDoctor(Long doctorId) {
+        changedAll();
+        days.asMap().keySet().removeIf(k -> k.doctorId().equals(doctorId));
+        fireChanged(doctorId, null);
+    }
+
+    public void invalidateAll() {
+        changedAll();
+        days.invalidateAll();
+        fireChanged(null, null);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        LocalDateTime start = event.getStartTime();
+        LocalDateTime end = event.getEndTime();
+        // An appointment can only span more than one date when it crosses midnight
+        for (LocalDate date = start.toLocalDate(); !date.isAfter(end.minusNanos(1).toLocalDate()); date = date.plusDays(1)) {
+            Key key = new Key(event.getDoctorId(), date);
+            changed(key);
+            if (event.getType() == AppointmentChangedEvent.Type.BOOKED) {
+                days.asMap().computeIfPresent(key, (k, day) -> day.withBusy(start, end));
+            } else {
+                days.asMap().remove(key);
+            }
+            fireChanged(event.getDoctorId(), date);
+        }
+    }
+
+    /**
+     * A doctor's slot length may have changed, which reshapes every day of theirs.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDoctorChanged(DoctorChangedEvent event) {
+        evictDoctor(event.getDoctorId());
+    }
+
+    private int stripe(Key key) {
+        return Math.floorMod(key.hashCode(), CHANGE_STRIPES);
+    }
+
+    private void changed(Key key) {
+        changes.incrementAndGet(stripe(key));
+    }
+
+    private void changedAll() {
+        for (int i = 0; i < CHANGE_STRIPES; i++) {
+            changes.incrementAndGet(i);
+        }
+    }
+
+    private void fireChanged(Long doctorId, LocalDate date) {
+        for (ChangeListener listener : listeners) {
+            listener.daysChanged(doctorId, date);
+        }
+    }
+
+    private record Key(Long doctorId, LocalDate date) {
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.appointments.cache;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The slot grid of a working day, independent of its date: slot i starts i * slotMinutes after the day start.
+ * <p>
+ * Immutable and shared: instances are cached per (start time, length, slot length), and a deployment only ever sees
+ * a handful of those (the configured working hours times each distinct doctor slot length).
+ * Slot start times are pre-rendered the way LocalDateTime.toString() prints them after the date ("T09:30"),
+ * so rendering a day's free slots is one concatenation with the date per slot.
+ */
+public final class SlotTemplate {
+
+    private static final ConcurrentMap<Key, SlotTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+    private final LocalTime start;
+    private final int slotMinutes;
+    private final int slotCount;
+    /** "T" + start time of each slot that starts on the day's own date; later slots (past midnight) are not pre-rendered. */
+    private final String[] times;
+
+    private SlotTemplate(Key key) {
+        this.start = key.start();
+        this.slotMinutes = key.slotMinutes();
+        this.slotCount = (int) (key.lengthMinutes() / key.slotMinutes());
+        long minutesToMidnight = Duration.between(key.start(), LocalTime.MAX).toMinutes() + 1;
+        this.times = new String[(int) Math.min(slotCount, (minutesToMidnight + slotMinutes - 1) / slotMinutes)];
+        for (int slot = 0; slot < times.length; slot++) {
+            times[slot] = "T" + key.start().plusMinutes((long) slot * slotMinutes);
+        }
+    }
+
+    /**
+     * The grid of [start, end) on one date; empty when end is not after start.
+     */
+    public static SlotTemplate of(LocalTime start, LocalTime end, int slotMinutes) {
+        return of(start, Math.max(0, Duration.between(start, end).toMinutes()), slotMinutes);
+    }
+
+    public static SlotTemplate of(LocalTime start, long lengthMinutes, int slotMinutes) {
+        if (slotMinutes <= 0) {
+            throw new IllegalArgumentException("slotMinutes must be positive: " + slotMinutes);
+        }
+        return TEMPLATES.computeIfAbsent(new Key(start, lengthMinutes, slotMinutes), SlotTemplate::new);
+    }
+
+    public LocalTime getStart() {
+        return start;
+    }
+
+    public int getSlotMinutes() {
+        return slotMinutes;
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    public long offsetMinutes(int slot) {
+        return (long) slot * slotMinutes;
+    }
+
+    /**
+     * Whether the slot starts on the same date as the day, i.e. whether time(slot) is available.
+     */
+    public boolean startsOnDayDate(int slot) {
+        return slot < times.length;
+    }
+
+    /**
+     * The slot's start time as "T" + LocalTime.toString(); only for slots with startsOnDayDate.
+     */
+    public String time(int slot) {
+        return times[slot];
+    }
+
+    private record Key(LocalTime start, long lengthMinutes, int slotMinutes) {
+    }
+}
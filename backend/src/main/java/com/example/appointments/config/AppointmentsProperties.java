@@ -1,8 +1,13 @@
 package com.example.appointments.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @ConfigurationProperties(prefix = "appointments")
 public class AppointmentsProperties {
@@ -17,6 +22,74 @@ public class AppointmentsProperties {
      */
     private LocalTime workingHoursEnd = LocalTime.of(17, 0);
 
+    /**
+     * How AppointmentService.book writes: STANDARD (JPA read-then-write), SINGLE_STATEMENT (one conditional upsert)
+     * or JOURNAL (in-memory slot claim plus write-ahead journal, projected to the database afterwards; see journal).
+     */
+    private BookingMode bookingMode = BookingMode.STANDARD;
+
+    /**
+     * Reject a booking with 409 while another booking of the same (doctor, start time) is running on this instance,
+     * instead of letting both race to the database.
+     */
+    private boolean singleFlightBooking = true;
+
+    /**
+     * Longest date range (inclusive, in days) accepted by the multi-day availability endpoint;
+     * also caps the time window of a doctor's appointment listing.
+     */
+    private int maxAvailabilityRangeDays = 31;
+
+    /**
+     * How many days ahead the next-available search looks before giving up.
+     */
+    private int nextAvailableHorizonDays = 14;
+
+    /**
+     * In-memory per-(doctor, date) slot occupancy index used by availability queries.
+     */
+    private AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+
+    /**
+     * In-memory cache of doctors by id and of doctor lists (all, by specialization).
+     */
+    private DoctorCache doctorCache = new DoctorCache();
+
+    /**
+     * Cross-instance invalidation of the in-memory caches over PostgreSQL LISTEN/NOTIFY (postgres profile only).
+     */
+    private ClusterInvalidation clusterInvalidation = new ClusterInvalidation();
+
+    /**
+     * Server-sent event streams of live availability (GET /api/doctors/{id}/availability/stream).
+     */
+    private AvailabilityStream availabilityStream = new AvailabilityStream();
+
+    /**
+     * Short-lived slot reservations (POST /api/slot-holds).
+     */
+    private SlotHolds slotHolds = new SlotHolds();
+
+    /**
+     * Hibernate second-level and query cache for Doctor (see HibernateCacheConfig).
+     */
+    private HibernateCache hibernateCache = new HibernateCache();
+
+    /**
+     * Append-only appointment event log (appointment_events), written behind the booking path.
+     */
+    private Audit audit = new Audit();
+
+    /**
+     * Transactional outbox of appointment changes (appointment_outbox) and the relay delivering it downstream.
+     */
+    private Outbox outbox = new Outbox();
+
+    /**
+     * Write-ahead journal and database projection of the JOURNAL booking mode (see JournaledBookingEngine).
+     */
+    private Journal journal = new Journal();
+
     public LocalTime getWorkingHoursStart() {
         return workingHoursStart;
     }
@@ -32,4 +105,674 @@ public class AppointmentsProperties {
     public void setWorkingHoursEnd(LocalTime workingHoursEnd) {
         this.workingHoursEnd = workingHoursEnd;
     }
+
+    public BookingMode getBookingMode() {
+        return bookingMode;
+    }
+
+    public void setBookingMode(BookingMode bookingMode) {
+        this.bookingMode = bookingMode;
+    }
+
+    public boolean isSingleFlightBooking() {
+        return singleFlightBooking;
+    }
+
+    public void setSingleFlightBooking(boolean singleFlightBooking) {
+        this.singleFlightBooking = singleFlightBooking;
+    }
+
+    public int getMaxAvailabilityRangeDays() {
+        return maxAvailabilityRangeDays;
+    }
+
+    public void setMaxAvailabilityRangeDays(int maxAvailabilityRangeDays) {
+        this.maxAvailabilityRangeDays = maxAvailabilityRangeDays;
+    }
+
+    public int getNextAvailableHorizonDays() {
+        return nextAvailableHorizonDays;
+    }
+
+    public void setNextAvailableHorizonDays(int nextAvailableHorizonDays) {
+        this.nextAvailableHorizonDays = nextAvailableHorizonDays;
+    }
+
+    public AvailabilityIndex getAvailabilityIndex() {
+        return availabilityIndex;
+    }
+
+    public void setAvailabilityIndex(AvailabilityIndex availabilityIndex) {
+        this.availabilityIndex = availabilityIndex;
+    }
+
+    public DoctorCache getDoctorCache() {
+        return doctorCache;
+    }
+
+    public void setDoctorCache(DoctorCache doctorCache) {
+        this.doctorCache = doctorCache;
+    }
+
+    public ClusterInvalidation getClusterInvalidation() {
+        return clusterInvalidation;
+    }
+
+    public void setClusterInvalidation(ClusterInvalidation clusterInvalidation) {
+        this.clusterInvalidation = clusterInvalidation;
+    }
+
+    public AvailabilityStream getAvailabilityStream() {
+        return availabilityStream;
+    }
+
+    public void setAvailabilityStream(AvailabilityStream availabilityStream) {
+        this.availabilityStream = availabilityStream;
+    }
+
+    public SlotHolds getSlotHolds() {
+        return slotHolds;
+    }
+
+    public void setSlotHolds(SlotHolds slotHolds) {
+        this.slotHolds = slotHolds;
+    }
+
+    public HibernateCache getHibernateCache() {
+        return hibernateCache;
+    }
+
+    public void setHibernateCache(HibernateCache hibernateCache) {
+        this.hibernateCache = hibernateCache;
+    }
+
+    public Audit getAudit() {
+        return audit;
+    }
+
+    public void setAudit(Audit audit) {
+        this.audit = audit;
+    }
+
+    public Outbox getOutbox() {
+        return outbox;
+    }
+
+    public void setOutbox(Outbox outbox) {
+        this.outbox = outbox;
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    public enum BookingMode {
+        STANDARD,
+        SINGLE_STATEMENT,
+        JOURNAL
+    }
+
+    public static class AvailabilityIndex {
+
+        /**
+         * Maximum number of (doctor, date) days kept in memory.
+         */
+        private long maximumSize = 10_000;
+
+        /**
+         * How long a loaded day is trusted before it is rebuilt from the database.
+         * Bounds staleness when other instances book against the same database.
+         */
+        private Duration expireAfterWrite = Duration.ofMinutes(5);
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getExpireAfterWrite() {
+            return expireAfterWrite;
+        }
+
+        public void setExpireAfterWrite(Duration expireAfterWrite) {
+            this.expireAfterWrite = expireAfterWrite;
+        }
+    }
+
+    public static class DoctorCache {
+
+        /**
+         * Maximum number of doctors cached by id.
+         */
+        private long maximumSize = 10_000;
+
+        /**
+         * Maximum number of cached doctor lists (one per specialization, plus the full list).
+         */
+        private long maximumLists = 1_000;
+
+        /**
+         * How long a cached doctor or list is trusted. Changes made through this instance evict immediately;
+         * this bounds staleness for changes made by other instances.
+         */
+        private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public long getMaximumLists() {
+            return maximumLists;
+        }
+
+        public void setMaximumLists(long maximumLists) {
+            this.maximumLists = maximumLists;
+        }
+
+        public Duration getExpireAfterWrite() {
+            return expireAfterWrite;
+        }
+
+        public void setExpireAfterWrite(Duration expireAfterWrite) {
+            this.expireAfterWrite = expireAfterWrite;
+        }
+    }
+
+    public static class ClusterInvalidation {
+
+        /**
+         * Publish committed appointment/doctor changes with pg_notify and apply other instances' changes locally.
+         */
+        private boolean enabled = true;
+
+        /**
+         * NOTIFY/LISTEN channel shared by all instances (a plain lower-case SQL identifier).
+         */
+        private String channel = "appointments_cache";
+
+        /**
+         * How long the listener blocks waiting for notifications before re-checking for shutdown.
+         */
+        private Duration pollTimeout = Duration.ofSeconds(1);
+
+        /**
+         * Pause before re-opening the listen connection after it fails. Caches are cleared on reconnect,
+         * since notifications sent while disconnected are lost.
+         */
+        private Duration reconnectDelay = Duration.ofSeconds(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getChannel() {
+            return channel;
+        }
+
+        public void setChannel(String channel) {
+            this.channel = channel;
+        }
+
+        public Duration getPollTimeout() {
+            return pollTimeout;
+        }
+
+        public void setPollTimeout(Duration pollTimeout) {
+            this.pollTimeout = pollTimeout;
+        }
+
+        public Duration getReconnectDelay() {
+            return reconnectDelay;
+        }
+
+        public void setReconnectDelay(Duration reconnectDelay) {
+            this.reconnectDelay = reconnectDelay;
+        }
+    }
+
+    public static class AvailabilityStream {
+
+        /**
+         * How long a stream stays open; clients reconnect (EventSource does so automatically) and get a fresh snapshot.
+         */
+        private Duration timeout = Duration.ofMinutes(30);
+
+        /**
+         * Threads recomputing changed days and sending the differences to subscribers.
+         */
+        private int fanOutThreads = 2;
+
+        /**
+         * Events queued for a subscriber whose connection is not keeping up; one that falls further behind is
+         * disconnected, and its client reconnects to a fresh snapshot.
+         */
+        private int maxPendingEvents = 256;
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public int getFanOutThreads() {
+            return fanOutThreads;
+        }
+
+        public void setFanOutThreads(int fanOutThreads) {
+            this.fanOutThreads = fanOutThreads;
+        }
+
+        public int getMaxPendingEvents() {
+            return maxPendingEvents;
+        }
+
+        public void setMaxPendingEvents(int maxPendingEvents) {
+            this.maxPendingEvents = maxPendingEvents;
+        }
+    }
+
+    public static class SlotHolds {
+
+        /**
+         * How long a hold lasts when the request does not say.
+         */
+        private Duration defaultTtl = Duration.ofMinutes(5);
+
+        /**
+         * Longest hold a request may ask for.
+         */
+        private Duration maxTtl = Duration.ofMinutes(15);
+
+        /**
+         * How long availability reads may reuse a doctor's holds read from slot_holds. Changes made here or announced
+         * on the invalidation bus drop them at once; without the bus this bounds how late another instance's holds show.
+         */
+        private Duration expireAfterWrite = Duration.ofSeconds(10);
+
+        /**
+         * Maximum number of doctors whose holds are kept in memory.
+         */
+        private long maximumSize = 10_000;
+
+        public Duration getDefaultTtl() {
+            return defaultTtl;
+        }
+
+        public void setDefaultTtl(Duration defaultTtl) {
+            this.defaultTtl = defaultTtl;
+        }
+
+        public Duration getMaxTtl() {
+            return maxTtl;
+        }
+
+        public void setMaxTtl(Duration maxTtl) {
+            this.maxTtl = maxTtl;
+        }
+
+        public Duration getExpireAfterWrite() {
+            return expireAfterWrite;
+        }
+
+        public void setExpireAfterWrite(Duration expireAfterWrite) {
+            this.expireAfterWrite = expireAfterWrite;
+        }
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+    }
+
+    public static class HibernateCache {
+
+        /**
+         * Turns the second-level cache, the query cache and Hibernate statistics on or off together.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Cache regions by name, created at startup; Hibernate refuses to start if a cached entity or query uses
+         * a region missing here.
+         */
+        private Map<String, Region> regions = new LinkedHashMap<>(Map.of(
+                "doctors", new Region(10_000, Duration.ofMinutes(10)),
+                "doctor-queries", new Region(1_000, Duration.ofMinutes(10)),
+                "default-query-results-region", new Region(1_000, Duration.ofMinutes(10)),
+                // Must outlive every cached query result, so it never expires
+                "default-update-timestamps-region", new Region(1_000, null)
+        ));
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Map<String, Region> getRegions() {
+            return regions;
+        }
+
+        public void setRegions(Map<String, Region> regions) {
+            this.regions = regions;
+        }
+    }
+
+    public static class Region {
+
+        private long maximumSize;
+
+        /**
+         * Null for entries that never expire.
+         */
+        private Duration expireAfterWrite;
+
+        public Region() {
+        }
+
+        public Region(long maximumSize, Duration expireAfterWrite) {
+            this.maximumSize = maximumSize;
+            this.expireAfterWrite = expireAfterWrite;
+        }
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getExpireAfterWrite() {
+            return expireAfterWrite;
+        }
+
+        public void setExpireAfterWrite(Duration expireAfterWrite) {
+            this.expireAfterWrite = expireAfterWrite;
+        }
+    }
+
+    public static class Audit {
+
+        private boolean enabled = true;
+
+        /**
+         * Events waiting to be written; when full, committing threads wait up to enqueueTimeout for room.
+         */
+        private int queueCapacity = 10_000;
+
+        /**
+         * How long a committing thread waits for room in a full queue before the event is dropped (and logged),
+         * so a database outage slows bookings down but never blocks them.
+         */
+        private Duration enqueueTimeout = Duration.ofSeconds(1);
+
+        /**
+         * Most events written in one transaction.
+         */
+        private int batchSize = 500;
+
+        /**
+         * How long the writer waits for a batch to fill once it holds at least one event.
+         */
+        private Duration maxBatchDelay = Duration.ofMillis(50);
+
+        /**
+         * Pause before retrying a batch whose write failed.
+         */
+        private Duration retryDelay = Duration.ofSeconds(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getEnqueueTimeout() {
+            return enqueueTimeout;
+        }
+
+        public void setEnqueueTimeout(Duration enqueueTimeout) {
+            this.enqueueTimeout = enqueueTimeout;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getMaxBatchDelay() {
+            return maxBatchDelay;
+        }
+
+        public void setMaxBatchDelay(Duration maxBatchDelay) {
+            this.maxBatchDelay = maxBatchDelay;
+        }
+
+        public Duration getRetryDelay() {
+            return retryDelay;
+        }
+
+        public void setRetryDelay(Duration retryDelay) {
+            this.retryDelay = retryDelay;
+        }
+    }
+
+    public static class Outbox {
+
+        /**
+         * When false (the default), no outbox rows are written and the relay does not run. Messages carry patient
+         * names and ids, so turn it on together with a sink that is allowed to receive them.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Where the relay delivers messages when no other OutboxSink bean is defined.
+         */
+        private Sink sink = Sink.LOG;
+
+        /**
+         * JSON-lines file appended to by the FILE sink.
+         */
+        private Path file = Path.of("appointments-outbox.jsonl");
+
+        /**
+         * Most rows claimed, delivered and deleted per relay transaction.
+         */
+        private int batchSize = 100;
+
+        /**
+         * How often the relay looks for rows when it has not been woken by a local commit
+         * (picks up rows written by other instances, and anything missed).
+         */
+        private Duration pollInterval = Duration.ofSeconds(1);
+
+        /**
+         * Pause after a failed delivery before the batch is claimed again.
+         */
+        private Duration retryDelay = Duration.ofSeconds(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Sink getSink() {
+            return sink;
+        }
+
+        public void setSink(Sink sink) {
+            this.sink = sink;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public void setFile(Path file) {
+            this.file = file;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public Duration getRetryDelay() {
+            return retryDelay;
+        }
+
+        public void setRetryDelay(Duration retryDelay) {
+            this.retryDelay = retryDelay;
+        }
+
+        public enum Sink {
+            LOG,
+            FILE
+        }
+    }
+
+    public static class Journal {
+
+        /**
+         * Directory of the journal segment files; must survive restarts (a persistent volume, not /tmp).
+         */
+        private Path directory = Path.of("appointments-journal");
+
+        /**
+         * Size of each memory-mapped segment file. A segment is deleted once every record in it has been projected.
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        /**
+         * How often written journal pages are forced to disk (group fsync).
+         */
+        private Duration flushInterval = Duration.ofMillis(2);
+
+        /**
+         * When true, a booking or cancellation returns only once the force covering its record is done; when false it
+         * returns as soon as the record is in the mapped file, which survives a process crash but not a power loss.
+         */
+        private boolean awaitFlush = true;
+
+        /**
+         * Journal records waiting to be projected; when full, bookings and cancellations are refused with 503.
+         */
+        private int projectionQueueCapacity = 100_000;
+
+        /**
+         * Most journal records projected to the database in one transaction.
+         */
+        private int projectionBatchSize = 500;
+
+        /**
+         * Pause before retrying a projection batch whose transaction failed.
+         */
+        private Duration retryDelay = Duration.ofSeconds(1);
+
+        public Path getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(Path directory) {
+            this.directory = directory;
+        }
+
+        public DataSize getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(DataSize segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public boolean isAwaitFlush() {
+            return awaitFlush;
+        }
+
+        public void setAwaitFlush(boolean awaitFlush) {
+            this.awaitFlush = awaitFlush;
+        }
+
+        public int getProjectionQueueCapacity() {
+            return projectionQueueCapacity;
+        }
+
+        public void setProjectionQueueCapacity(int projectionQueueCapacity) {
+            this.projectionQueueCapacity = projectionQueueCapacity;
+        }
+
+        public int getProjectionBatchSize() {
+            return projectionBatchSize;
+        }
+
+        public void setProjectionBatchSize(int projectionBatchSize) {
+            this.projectionBatchSize = projectionBatchSize;
+        }
+
+        public Duration getRetryDelay() {
+            return retryDelay;
+        }
+
+        public void setRetryDelay(Duration retryDelay) {
+            this.retryDelay = retryDelay;
+        }
+    }
 }
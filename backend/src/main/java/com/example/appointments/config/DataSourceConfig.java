@@ -1,24 +1,43 @@
 package com.example.appointments.config;
 
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.env.Environment;
 
 import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Custom DataSource configuration for the 'postgres' profile to make Render Blueprints easier.
  * It constructs a JDBC URL from DATABASE_URL (postgres://...) or reads spring.datasource.url/SPRING_DATASOURCE_URL.
  * Username/password are taken from spring.datasource.username/SPRING_DATASOURCE_USERNAME or DB_USER/DB_PASSWORD.
+ * <p>
+ * Optional read replicas: a comma-separated list in spring.datasource.replica.urls/SPRING_DATASOURCE_REPLICA_URLS
+ * or DATABASE_REPLICA_URLS (jdbc: or postgres:// URLs), with credentials from spring.datasource.replica.username/password,
+ * SPRING_DATASOURCE_REPLICA_USERNAME/PASSWORD or DB_REPLICA_USER/DB_REPLICA_PASSWORD (default: the primary's).
+ * When set, read-only transactions are routed to the replicas (see ReadReplicaRoutingDataSource).
+ * spring.datasource.replica.health-check-interval (default 5s) and spring.datasource.replica.connection-timeout
+ * (default 1s, how long a read waits for a replica connection before trying elsewhere) tune the routing.
+ * <p>
+ * Pool settings come from spring.datasource.hikari.* like with Boot's own DataSource (application*.yml maps them to
+ * DB_POOL_* env vars), plus spring.datasource.replica.hikari.* overrides for the replica pools.
+ * Every pool publishes the hikaricp.* meters, tagged with its pool name (primary, replica-1, ...).
  */
 @Configuration
 @Profile("postgres")
 public class DataSourceConfig {
 
     @Bean
-    public DataSource dataSource(Environment env) {
+    public DataSource dataSource(Environment env, MeterRegistry meterRegistry) {
         // Read both Spring-style keys and env-style keys to be compatible in tests and production
         String jdbcUrl = firstNonBlank(
                 env.getProperty("spring.datasource.url"),
@@ -47,8 +66,7 @@ public class DataSourceConfig {
         );
 
         if ((jdbcUrl == null || jdbcUrl.isBlank()) && databaseUrl != null && !databaseUrl.isBlank()) {
-            // Transform postgres://host:port/db to jdbc:postgresql://host:port/db
-            jdbcUrl = databaseUrl.replaceFirst("^postgres(ql)?://", "jdbc:postgresql://");
+            jdbcUrl = toJdbcUrl(databaseUrl);
         }
 
         if (jdbcUrl == null || jdbcUrl.isBlank()) {
@@ -58,13 +76,78 @@ public class DataSourceConfig {
             throw new IllegalStateException("No datasource credentials configured. Provide spring.datasource.username/password or DB_USER/DB_PASSWORD.");
         }
 
+        Binder binder = Binder.get(env);
+        HikariDataSource primary = hikari(binder, meterRegistry, "primary", jdbcUrl, user, password);
+
+        String replicaUrls = firstNonBlank(
+                env.getProperty("spring.datasource.replica.urls"),
+                env.getProperty("SPRING_DATASOURCE_REPLICA_URLS"),
+                env.getProperty("DATABASE_REPLICA_URLS")
+        );
+        if (replicaUrls == null) {
+            return primary;
+        }
+
+        String replicaUser = firstNonBlank(
+                env.getProperty("spring.datasource.replica.username"),
+                env.getProperty("SPRING_DATASOURCE_REPLICA_USERNAME"),
+                env.getProperty("DB_REPLICA_USER"),
+                user
+        );
+        String replicaPassword = firstNonBlank(
+                env.getProperty("spring.datasource.replica.password"),
+                env.getProperty("SPRING_DATASOURCE_REPLICA_PASSWORD"),
+                env.getProperty("DB_REPLICA_PASSWORD"),
+                password
+        );
+        Duration healthCheckInterval = duration(Duration.ofSeconds(5),
+                env.getProperty("spring.datasource.replica.health-check-interval"),
+                env.getProperty("SPRING_DATASOURCE_REPLICA_HEALTH_CHECK_INTERVAL"));
+        Duration connectionTimeout = duration(Duration.ofSeconds(1),
+                env.getProperty("spring.datasource.replica.connection-timeout"),
+                env.getProperty("SPRING_DATASOURCE_REPLICA_CONNECTION_TIMEOUT"));
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : replicaUrls.split(",")) {
+            if (url.isBlank()) continue;
+            String name = "replica-" + (replicas.size() + 1);
+            HikariDataSource replica = hikari(binder, meterRegistry, name, toJdbcUrl(url.trim()), replicaUser, replicaPassword);
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            binder.bind("spring.datasource.replica.hikari", Bindable.ofInstance(replica));
+            replica.setReadOnly(true);
+            replicas.put(name, replica);
+        }
+        if (replicas.isEmpty()) {
+            return primary;
+        }
+        return new ReadReplicaRoutingDataSource(primary, replicas, healthCheckInterval, meterRegistry);
+    }
+
+    private static HikariDataSource hikari(Binder binder, MeterRegistry meterRegistry,
+                                           String poolName, String jdbcUrl, String user, String password) {
         HikariDataSource ds = new HikariDataSource();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(ds));
+        // Boot only instruments DataSource beans; replicas are pools inside the routing DataSource
+        ds.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        ds.setPoolName(poolName);
         ds.setJdbcUrl(jdbcUrl);
         ds.setUsername(user);
         ds.setPassword(password);
         return ds;
     }
 
+    /**
+     * Transforms postgres://host:port/db to jdbc:postgresql://host:port/db; jdbc: URLs are returned as they are.
+     */
+    private static String toJdbcUrl(String url) {
+        return url.replaceFirst("^postgres(ql)?://", "jdbc:postgresql://");
+    }
+
+    private static Duration duration(Duration defaultValue, String... values) {
+        String value = firstNonBlank(values);
+        return value == null ? defaultValue : DurationStyle.detectAndParse(value);
+    }
+
     private static String firstNonBlank(String... values) {
         if (values == null) return null;
         for (String v : values) {
@@ -0,0 +1,108 @@
+package com.example.appointments.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Hibernate second-level cache for Doctor rows and the by-specialization query, on a Caffeine-backed JCache.
+ * <p>
+ * DoctorCache already answers the service-level lookups; this covers the loads that go through Hibernate directly,
+ * such as initializing an appointment's doctor or reloading a list after DoctorCache evicted it.
+ * Regions come from appointments.hibernateCache.regions and are created before Hibernate starts, which is told to fail
+ * on any other region rather than create an unbounded one.
+ * <p>
+ * Hibernate statistics are switched on with the cache; Actuator publishes them as hibernate.* meters
+ * (hibernate.second.level.cache.requests, hibernate.query.executions.max, ...), and hit ratios are added as
+ * appointments.hibernate.cache.hit.ratio tagged cache=second-level|query.
+ * appointments.hibernateCache.enabled=false (e.g. in a profile's yml) turns all of it off.
+ */
+@Configuration(proxyBeanMethods = false)
+public class HibernateCacheConfig {
+
+    public static final String DOCTOR_REGION = "doctors";
+    public static final String DOCTOR_QUERY_REGION = "doctor-queries";
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "appointments.hibernate-cache", name = "enabled", matchIfMissing = true)
+    public CacheManager hibernateCacheManager(AppointmentsProperties properties) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        // A manager of its own per application context, so test contexts never share regions
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("appointments-hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+        for (Map.Entry<String, AppointmentsProperties.Region> e : properties.getHibernateCache().getRegions().entrySet()) {
+            AppointmentsProperties.Region region = e.getValue();
+            CaffeineConfiguration<Object, Object> config = new CaffeineConfiguration<>();
+            config.setMaximumSize(OptionalLong.of(region.getMaximumSize()));
+            if (region.getExpireAfterWrite() != null) {
+                config.setExpireAfterWrite(OptionalLong.of(region.getExpireAfterWrite().toNanos()));
+            }
+            cacheManager.createCache(e.getKey(), config);
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(ObjectProvider<CacheManager> hibernateCacheManager) {
+        return props -> {
+            CacheManager cacheManager = hibernateCacheManager.getIfAvailable();
+            if (cacheManager == null) {
+                // hibernate-jcache on the classpath would otherwise be picked up on its own
+                props.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+                props.put(AvailableSettings.USE_QUERY_CACHE, false);
+                return;
+            }
+            props.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            props.put(AvailableSettings.USE_QUERY_CACHE, true);
+            props.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            props.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+            props.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            props.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "appointments.hibernate-cache", name = "enabled", matchIfMissing = true)
+    public MeterBinder hibernateCacheHitRatio(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> {
+            hitRatio(registry, statistics, "second-level",
+                    s -> ratio(s.getSecondLevelCacheHitCount(), s.getSecondLevelCacheMissCount()));
+            hitRatio(registry, statistics, "query",
+                    s -> ratio(s.getQueryCacheHitCount(), s.getQueryCacheMissCount()));
+        };
+    }
+
+    private static void hitRatio(MeterRegistry registry, Statistics statistics, String cache, ToDoubleFunction<Statistics> ratio) {
+        Gauge.builder("appointments.hibernate.cache.hit.ratio", statistics, ratio)
+                .description("Share of Hibernate cache lookups answered from the cache since startup")
+                .tag("cache", cache)
+                .register(registry);
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.appointments.config;
+
+import com.example.appointments.outbox.FileOutboxSink;
+import com.example.appointments.outbox.LoggingOutboxSink;
+import com.example.appointments.outbox.OutboxSink;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The outbox relay's sink, chosen by appointments.outbox.sink unless the application defines its own OutboxSink.
+ */
+@Configuration(proxyBeanMethods = false)
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(OutboxSink.class)
+    public OutboxSink outboxSink(AppointmentsProperties properties) {
+        AppointmentsProperties.Outbox cfg = properties.getOutbox();
+        return switch (cfg.getSink()) {
+            case LOG -> new LoggingOutboxSink();
+            case FILE -> new FileOutboxSink(cfg.getFile());
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.appointments.config;
+
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs reads that must see the latest committed data on the primary, even when called from a read-only transaction
+ * that ReadReplicaRoutingDataSource would send to a replica.
+ * <p>
+ * Used for whatever fills a long-lived cache (DoctorCache, the SlotIndex days): a value loaded from a lagging replica
+ * would be served long after the replica caught up. Reads already inside a read-write transaction are on the primary
+ * and run in place; otherwise the read gets its own read-write transaction (see ReadRoutingConfig).
+ * Without replicas, reads always run in place.
+ */
+public class PrimaryReads {
+
+    private final TransactionOperations primaryTransaction;
+
+    PrimaryReads(TransactionOperations primaryTransaction) {
+        this.primaryTransaction = primaryTransaction;
+    }
+
+    /**
+     * For deployments without replicas, and tests.
+     */
+    public static PrimaryReads inline() {
+        return new PrimaryReads(TransactionOperations.withoutTransaction());
+    }
+
+    public <T> T get(Supplier<T> read) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return read.get();
+        }
+        return primaryTransaction.execute(status -> read.get());
+    }
+}
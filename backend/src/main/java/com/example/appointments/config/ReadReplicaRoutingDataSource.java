@@ -0,0 +1,165 @@
+package com.example.appointments.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to read replicas and everything else to the primary.
+ * <p>
+ * Connections are handed out lazily (LazyConnectionDataSourceProxy): the physical connection is only taken on the
+ * first statement, after the transaction manager has marked it read-only, so @Transactional(readOnly = true) decides
+ * the target. Read-only connections go round-robin to the replicas currently considered healthy. A replica is taken
+ * out when it refuses a connection and put back by the background health check (a validated connection every
+ * healthCheckInterval). With no healthy replica, read-only work falls back to the primary.
+ * A pool timeout (all of a replica's connections busy) also falls through, but does not take the replica out.
+ * <p>
+ * Meters: appointments.datasource.replicas.healthy (gauge) and appointments.datasource.replica.fallbacks
+ * (read-only connections served by the primary).
+ */
+public class ReadReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicaRoutingDataSource.class);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter fallbacks;
+    private final ScheduledExecutorService healthCheck;
+
+    public ReadReplicaRoutingDataSource(DataSource primary,
+                                        Map<String, DataSource> replicas,
+                                        Duration healthCheckInterval,
+                                        MeterRegistry meterRegistry) {
+        super(primary);
+        this.primary = primary;
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+        setReadOnlyDataSource(new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return readOnlyConnection();
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return primary.getConnection(username, password);
+            }
+        });
+        Gauge.builder("appointments.datasource.replicas.healthy", this.replicas,
+                        rs -> rs.stream().filter(r -> r.healthy).count())
+                .description("Read replicas currently receiving read-only transactions")
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("appointments.datasource.replica.fallbacks")
+                .description("Read-only connections taken from the primary because no replica could serve them")
+                .register(meterRegistry);
+        this.healthCheck = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replica-health-check");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = healthCheckInterval.toMillis();
+        healthCheck.scheduleWithFixedDelay(this::checkReplicas, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    Connection readOnlyConnection() throws SQLException {
+        int size = replicas.size();
+        int first = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((first + i) % size);
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLTransientConnectionException e) {
+                log.debug("Read replica {} has no free connection; trying the next one", replica.name);
+            } catch (SQLException e) {
+                markDown(replica, e);
+            }
+        }
+        fallbacks.increment();
+        return primary.getConnection();
+    }
+
+    void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection con = replica.dataSource.getConnection()) {
+                if (con.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    markUp(replica);
+                } else {
+                    markDown(replica, null);
+                }
+            } catch (SQLTransientConnectionException e) {
+                // Busy, not down
+            } catch (SQLException | RuntimeException e) {
+                markDown(replica, e);
+            }
+        }
+    }
+
+    private static void markUp(Replica replica) {
+        if (!replica.healthy) {
+            replica.healthy = true;
+            log.info("Read replica {} is back; routing read-only transactions to it again", replica.name);
+        }
+    }
+
+    private static void markDown(Replica replica, Exception cause) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            log.warn("Read replica {} is unavailable; read-only transactions go elsewhere until it passes a health check",
+                    replica.name, cause);
+        }
+    }
+
+    @Override
+    public void close() {
+        healthCheck.shutdownNow();
+        for (Replica replica : replicas) {
+            closeQuietly(replica.dataSource);
+        }
+        closeQuietly(primary);
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Failed to close data source", e);
+            }
+        }
+    }
+
+    private static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.appointments.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * PrimaryReads for the active DataSource: a new read-write transaction per read when ReadReplicaRoutingDataSource
+ * is in use (read-write connections always come from the primary), in place otherwise.
+ */
+@Configuration(proxyBeanMethods = false)
+public class ReadRoutingConfig {
+
+    @Bean
+    public PrimaryReads primaryReads(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        if (!(dataSource instanceof ReadReplicaRoutingDataSource)) {
+            return PrimaryReads.inline();
+        }
+        TransactionTemplate primary = new TransactionTemplate(transactionManager);
+        primary.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return new PrimaryReads(primary);
+    }
+}
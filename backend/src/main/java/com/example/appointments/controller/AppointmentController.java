@@ -1,21 +1,48 @@
 package com.example.appointments.controller;
 
+import com.example.appointments.dto.AppointmentEventResponse;
 import com.example.appointments.dto.AppointmentResponse;
+import com.example.appointments.dto.BatchBookingItemResponse;
+import com.example.appointments.dto.BatchBookingRequest;
 import com.example.appointments.dto.CreateAppointmentRequest;
+import com.example.appointments.dto.PatientAppointmentResponse;
+import com.example.appointments.dto.PatientHistoryResponse;
 import com.example.appointments.entity.Appointment;
+import com.example.appointments.exception.InvalidRequestException;
+import com.example.appointments.exception.ResourceNotFoundException;
+import com.example.appointments.exception.ServiceBusyException;
+import com.example.appointments.exception.SlotAlreadyBookedException;
+import com.example.appointments.repository.AppointmentEventView;
+import com.example.appointments.repository.PatientAppointmentView;
+import com.example.appointments.service.AppointmentAuditLog;
+import com.example.appointments.service.AppointmentBatchService;
 import com.example.appointments.service.AppointmentService;
+import com.example.appointments.service.BatchBookingResult;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/appointments")
 public class AppointmentController {
 
     private final AppointmentService appointmentService;
+    private final AppointmentBatchService appointmentBatchService;
+    private final AppointmentAuditLog appointmentAuditLog;
 
-    public AppointmentController(AppointmentService appointmentService) {
+    public AppointmentController(AppointmentService appointmentService, AppointmentBatchService appointmentBatchService,
+                                 AppointmentAuditLog appointmentAuditLog) {
         this.appointmentService = appointmentService;
+        this.appointmentBatchService = appointmentBatchService;
+        this.appointmentAuditLog = appointmentAuditLog;
     }
 
     @PostMapping
@@ -24,20 +51,128 @@ public class AppointmentController {
         return ResponseEntity.ok(toResponse(saved));
     }
 
+    /**
+     * Books many appointments in one call. Always 200; each item carries its own status
+     * (200 booked, 400 start time off the slot grid in JOURNAL mode, 404 unknown doctor, 409 slot taken,
+     * 503 database busy, 500 anything else) in request order.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchBookingItemResponse>> bookBatch(@Valid @RequestBody BatchBookingRequest req) {
+        List<BatchBookingResult> results = appointmentBatchService.bookAll(req.getAppointments());
+        List<BatchBookingItemResponse> res = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            BatchBookingResult r = results.get(i);
+            if (r.isBooked()) {
+                res.add(new BatchBookingItemResponse(i, HttpStatus.OK.value(), toResponse(r.getAppointment()), null));
+            } else {
+                res.add(toFailedItem(i, r.getFailure()));
+            }
+        }
+        return ResponseEntity.ok(res);
+    }
+
+    /**
+     * Same statuses and messages as GlobalExceptionHandler gives a single booking.
+     */
+    private static BatchBookingItemResponse toFailedItem(int index, RuntimeException failure) {
+        if (failure instanceof ResourceNotFoundException) {
+            return new BatchBookingItemResponse(index, HttpStatus.NOT_FOUND.value(), null, failure.getMessage());
+        }
+        if (failure instanceof InvalidRequestException) {
+            return new BatchBookingItemResponse(index, HttpStatus.BAD_REQUEST.value(), null, failure.getMessage());
+        }
+        if (failure instanceof SlotAlreadyBookedException) {
+            return new BatchBookingItemResponse(index, HttpStatus.CONFLICT.value(), null, failure.getMessage());
+        }
+        if (failure instanceof ServiceBusyException) {
+            return new BatchBookingItemResponse(index, HttpStatus.SERVICE_UNAVAILABLE.value(), null, failure.getMessage());
+        }
+        if (failure instanceof CannotCreateTransactionException) {
+            return new BatchBookingItemResponse(index, HttpStatus.SERVICE_UNAVAILABLE.value(), null, "Service is busy, please retry.");
+        }
+        return new BatchBookingItemResponse(index, HttpStatus.INTERNAL_SERVER_ERROR.value(), null, "Unexpected error");
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<AppointmentResponse> get(@PathVariable("id") Long id) {
+        return ResponseEntity.ok(toResponse(appointmentService.getByIdOrThrow(id)));
+    }
+
+    /**
+     * The appointment's state changes from the event log, oldest first. Written behind the booking path,
+     * so a change made a moment ago may not be listed yet.
+     */
+    @GetMapping("/{id}/events")
+    public ResponseEntity<List<AppointmentEventResponse>> events(@PathVariable("id") Long id) {
+        List<AppointmentEventResponse> res = appointmentAuditLog.history(id).stream()
+                .map(AppointmentController::toEventResponse)
+                .toList();
+        return ResponseEntity.ok(res);
+    }
+
+    /**
+     * A doctor's appointments (any status) starting in [from, to), ordered by start time.
+     */
+    @GetMapping
+    public ResponseEntity<List<AppointmentResponse>> listForDoctor(
+            @RequestParam("doctorId") Long doctorId,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        List<AppointmentResponse> res = appointmentService.listForDoctor(doctorId, from, to).stream()
+                .map(AppointmentController::toResponse)
+                .toList();
+        return ResponseEntity.ok(res);
+    }
+
+    /**
+     * A patient's appointments, newest first, one page at a time, each with its doctor's name and specialization.
+     * By default rows are read as projections; fetch=join loads the entities with their doctor fetch-joined instead.
+     */
+    @GetMapping("/patients/{patientId}")
+    public ResponseEntity<PatientHistoryResponse> patientHistory(
+            @PathVariable("patientId") String patientId,
+            @RequestParam(name = "page", defaultValue = "0") int page,
+            @RequestParam(name = "size", defaultValue = "20") int size,
+            @RequestParam(name = "fetch", defaultValue = "projection") String fetch
+    ) {
+        Page<PatientAppointmentResponse> history = "join".equalsIgnoreCase(fetch)
+                ? appointmentService.getPatientHistoryWithDoctors(patientId, page, size).map(AppointmentController::toPatientResponse)
+                : appointmentService.getPatientHistory(patientId, page, size).map(AppointmentController::toPatientResponse);
+        return ResponseEntity.ok(new PatientHistoryResponse(history.getContent(), history.getNumber(), history.getSize(),
+                history.getTotalElements(), history.hasNext()));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<AppointmentResponse> cancel(@PathVariable("id") Long id) {
         Appointment saved = appointmentService.cancel(id);
         return ResponseEntity.ok(toResponse(saved));
     }
 
-    private AppointmentResponse toResponse(Appointment a) {
+    static AppointmentResponse toResponse(Appointment a) {
         return new AppointmentResponse(
                 a.getId(),
                 a.getDoctor().getId(),
                 a.getPatientName(),
+                a.getPatientId(),
                 a.getStartTime(),
                 a.getEndTime(),
                 a.getStatus()
         );
     }
+
+    private static AppointmentEventResponse toEventResponse(AppointmentEventView e) {
+        return new AppointmentEventResponse(e.id(), e.appointmentId(), e.doctorId(), e.type(), e.patientName(),
+                e.patientId(), e.startTime(), e.endTime(), e.occurredAt());
+    }
+
+    private static PatientAppointmentResponse toPatientResponse(PatientAppointmentView v) {
+        return new PatientAppointmentResponse(v.id(), v.doctorId(), v.doctorName(), v.doctorSpecialization(),
+                v.patientName(), v.startTime(), v.endTime(), v.status());
+    }
+
+    private static PatientAppointmentResponse toPatientResponse(Appointment a) {
+        return new PatientAppointmentResponse(a.getId(), a.getDoctor().getId(), a.getDoctor().getName(),
+                a.getDoctor().getSpecialization(), a.getPatientName(), a.getStartTime(), a.getEndTime(), a.getStatus());
+    }
 }
@@ -1,15 +1,29 @@
 package com.example.appointments.controller;
 
+import com.example.appointments.dto.AvailableSlotResponse;
 import com.example.appointments.dto.CreateDoctorRequest;
+import com.example.appointments.dto.DoctorAvailabilityResponse;
+import com.example.appointments.dto.DoctorPageResponse;
 import com.example.appointments.dto.DoctorResponse;
 import com.example.appointments.entity.Doctor;
+import com.example.appointments.service.AvailabilityBroadcaster;
 import com.example.appointments.service.DoctorService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -17,9 +31,13 @@ import java.util.List;
 public class DoctorController {
 
     private final DoctorService doctorService;
+    private final AvailabilityBroadcaster availabilityBroadcaster;
+    private final ObjectMapper objectMapper;
 
-    public DoctorController(DoctorService doctorService) {
+    public DoctorController(DoctorService doctorService, AvailabilityBroadcaster availabilityBroadcaster, ObjectMapper objectMapper) {
         this.doctorService = doctorService;
+        this.availabilityBroadcaster = availabilityBroadcaster;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -28,19 +46,130 @@ public class DoctorController {
         return ResponseEntity.ok(toResponse(saved));
     }
 
+    /**
+     * Supports conditional GET: the response carries an ETag, and If-None-Match with the current one gets 304.
+     */
     @GetMapping
-    public ResponseEntity<List<DoctorResponse>> listDoctors(@RequestParam(name = "specialization", required = false) String specialization) {
+    public ResponseEntity<List<DoctorResponse>> listDoctors(@RequestParam(name = "specialization", required = false) String specialization,
+                                                            WebRequest request) {
         List<DoctorResponse> res = doctorService.listDoctors(specialization).stream().map(this::toResponse).toList();
-        return ResponseEntity.ok(res);
+        String etag = etag(res);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(res);
+    }
+
+    /**
+     * Keyset-paginated listing: up to limit doctors with id > afterId, in id order.
+     * nextAfterId in the response is the cursor for the following page (null on the last page).
+     */
+    @GetMapping("/page")
+    public ResponseEntity<DoctorPageResponse> listDoctorsPage(
+            @RequestParam(name = "specialization", required = false) String specialization,
+            @RequestParam(name = "afterId", defaultValue = "0") long afterId,
+            @RequestParam(name = "limit", defaultValue = "50") int limit
+    ) {
+        List<Doctor> page = doctorService.listDoctorsPage(specialization, afterId, limit);
+        Long nextAfterId = page.size() == limit ? page.get(page.size() - 1).getId() : null;
+        return ResponseEntity.ok(new DoctorPageResponse(page.stream().map(this::toResponse).toList(), nextAfterId));
+    }
+
+    /**
+     * All doctors as newline-delimited JSON, one DoctorResponse per line, written while the rows are read
+     * so memory use stays flat regardless of table size.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamDoctors(
+            @RequestParam(name = "specialization", required = false) String specialization
+    ) {
+        StreamingResponseBody body = out -> doctorService.streamDoctors(specialization, d -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(toResponse(d)));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
+    /**
+     * Supports conditional GET for polling clients: while the day is unchanged, If-None-Match with the ETag
+     * of the previous response gets 304 and no body. Availability comes from the SlotIndex bitmap, so this mostly saves
+     * the transfer.
+     */
     @GetMapping("/{id}/availability")
     public ResponseEntity<List<String>> availability(
             @PathVariable("id") Long doctorId,
-            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
+            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            WebRequest request
     ) {
         List<String> slots = doctorService.getAvailability(doctorId, date);
-        return ResponseEntity.ok(slots);
+        String etag = etag(slots);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(slots);
+    }
+
+    /**
+     * Live availability as server-sent events: "slots" (JSON array of free starts) first,
+     * then "slot-taken" / "slot-freed" (one slot start each) as appointments are booked and cancelled.
+     */
+    @GetMapping(value = "/{id}/availability/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter availabilityStream(
+            @PathVariable("id") Long doctorId,
+            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
+    ) {
+        return availabilityBroadcaster.subscribe(doctorId, date);
+    }
+
+    /**
+     * Availability for several doctors over an inclusive date range, e.g. a week view.
+     * Select doctors with repeated/comma-separated doctorIds or with a specialization.
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<List<DoctorAvailabilityResponse>> availabilityRange(
+            @RequestParam(name = "doctorIds", required = false) List<Long> doctorIds,
+            @RequestParam(name = "specialization", required = false) String specialization,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        List<DoctorAvailabilityResponse> res = doctorService.getAvailabilityRange(doctorIds, specialization, from, to)
+                .entrySet().stream()
+                .map(e -> new DoctorAvailabilityResponse(e.getKey(), e.getValue()))
+                .toList();
+        return ResponseEntity.ok(res);
+    }
+
+    /**
+     * Earliest open slots across all doctors of a specialization, soonest first.
+     */
+    @GetMapping("/next-available")
+    public ResponseEntity<List<AvailableSlotResponse>> nextAvailable(
+            @RequestParam("specialization") String specialization,
+            @RequestParam(name = "after", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime after,
+            @RequestParam(name = "limit", defaultValue = "5") int limit
+    ) {
+        LocalDateTime from = after != null ? after : LocalDateTime.now();
+        List<AvailableSlotResponse> res = doctorService.findNextAvailable(specialization, from, limit).stream()
+                .map(s -> new AvailableSlotResponse(s.getDoctor().getId(), s.getDoctor().getName(),
+                        s.getDoctor().getSpecialization(), s.getStartTime()))
+                .toList();
+        return ResponseEntity.ok(res);
+    }
+
+    /**
+     * Digest of the body as it is serialized, so every instance gives the same data the same tag
+     * and a tag can never outlive the data it describes.
+     */
+    private String etag(Object body) {
+        try {
+            return DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(body));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     private DoctorResponse toResponse(Doctor d) {
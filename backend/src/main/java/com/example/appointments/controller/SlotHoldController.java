@@ -0,0 +1,43 @@
+package com.example.appointments.controller;
+
+import com.example.appointments.cache.SlotHolds;
+import com.example.appointments.dto.AppointmentResponse;
+import com.example.appointments.dto.ConfirmSlotHoldRequest;
+import com.example.appointments.dto.CreateSlotHoldRequest;
+import com.example.appointments.dto.SlotHoldResponse;
+import com.example.appointments.service.SlotHoldService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/slot-holds")
+public class SlotHoldController {
+
+    private final SlotHoldService slotHoldService;
+
+    public SlotHoldController(SlotHoldService slotHoldService) {
+        this.slotHoldService = slotHoldService;
+    }
+
+    /**
+     * Holds a slot until expiresAt; it shows as busy in availability and only this hold can book it.
+     */
+    @PostMapping
+    public ResponseEntity<SlotHoldResponse> hold(@Valid @RequestBody CreateSlotHoldRequest req) {
+        SlotHolds.Hold hold = slotHoldService.hold(req);
+        return ResponseEntity.ok(new SlotHoldResponse(hold.id(), hold.doctorId(), hold.startTime(), hold.endTime(), hold.expiresAt()));
+    }
+
+    @PostMapping("/{id}/confirm")
+    public ResponseEntity<AppointmentResponse> confirm(@PathVariable("id") String holdId,
+                                                       @Valid @RequestBody ConfirmSlotHoldRequest req) {
+        return ResponseEntity.ok(AppointmentController.toResponse(slotHoldService.confirm(holdId, req)));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> release(@PathVariable("id") String holdId) {
+        slotHoldService.release(holdId);
+        return ResponseEntity.noContent().build();
+    }
+}
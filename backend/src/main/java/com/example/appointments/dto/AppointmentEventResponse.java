@@ -0,0 +1,108 @@
+package com.example.appointments.dto;
+
+import com.example.appointments.event.AppointmentChangedEvent;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+public class AppointmentEventResponse {
+
+    private Long id;
+    private Long appointmentId;
+    private Long doctorId;
+    private AppointmentChangedEvent.Type type;
+    private String patientName;
+    private String patientId;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private Instant occurredAt;
+
+    public AppointmentEventResponse() {
+    }
+
+    public AppointmentEventResponse(Long id, Long appointmentId, Long doctorId, AppointmentChangedEvent.Type type,
+                                    String patientName, String patientId, LocalDateTime startTime,
+                                    LocalDateTime endTime, Instant occurredAt) {
+        this.id = id;
+        this.appointmentId = appointmentId;
+        this.doctorId = doctorId;
+        this.type = type;
+        this.patientName = patientName;
+        this.patientId = patientId;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.occurredAt = occurredAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getAppointmentId() {
+        return appointmentId;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public AppointmentChangedEvent.Type getType() {
+        return type;
+    }
+
+    public String getPatientName() {
+        return patientName;
+    }
+
+    public String getPatientId() {
+        return patientId;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public void setAppointmentId(Long appointmentId) {
+        this.appointmentId = appointmentId;
+    }
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public void setType(AppointmentChangedEvent.Type type) {
+        this.type = type;
+    }
+
+    public void setPatientName(String patientName) {
+        this.patientName = patientName;
+    }
+
+    public void setPatientId(String patientId) {
+        this.patientId = patientId;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
+    }
+
+    public void setOccurredAt(Instant occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+}
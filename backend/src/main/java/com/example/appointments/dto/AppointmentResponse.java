@@ -9,6 +9,7 @@ public class AppointmentResponse {
     private Long id;
     private Long doctorId;
     private String patientName;
+    private String patientId;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
     private AppointmentStatus status;
@@ -16,10 +17,12 @@ public class AppointmentResponse {
     public AppointmentResponse() {
     }
 
-    public AppointmentResponse(Long id, Long doctorId, String patientName, LocalDateTime startTime, LocalDateTime endTime, AppointmentStatus status) {
+    public AppointmentResponse(Long id, Long doctorId, String patientName, String patientId,
+                               LocalDateTime startTime, LocalDateTime endTime, AppointmentStatus status) {
         this.id = id;
         this.doctorId = doctorId;
         this.patientName = patientName;
+        this.patientId = patientId;
         this.startTime = startTime;
         this.endTime = endTime;
         this.status = status;
@@ -37,6 +40,10 @@ public class AppointmentResponse {
         return patientName;
     }
 
+    public String getPatientId() {
+        return patientId;
+    }
+
     public LocalDateTime getStartTime() {
         return startTime;
     }
@@ -61,6 +68,10 @@ public class AppointmentResponse {
         this.patientName = patientName;
     }
 
+    public void setPatientId(String patientId) {
+        this.patientId = patientId;
+    }
+
     public void setStartTime(LocalDateTime startTime) {
         this.startTime = startTime;
     }
@@ -0,0 +1,53 @@
+package com.example.appointments.dto;
+
+import java.time.LocalDateTime;
+
+public class AvailableSlotResponse {
+
+    private Long doctorId;
+    private String doctorName;
+    private String specialization;
+    private LocalDateTime startTime;
+
+    public AvailableSlotResponse() {
+    }
+
+    public AvailableSlotResponse(Long doctorId, String doctorName, String specialization, LocalDateTime startTime) {
+        this.doctorId = doctorId;
+        this.doctorName = doctorName;
+        this.specialization = specialization;
+        this.startTime = startTime;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public String getDoctorName() {
+        return doctorName;
+    }
+
+    public String getSpecialization() {
+        return specialization;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public void setDoctorName(String doctorName) {
+        this.doctorName = doctorName;
+    }
+
+    public void setSpecialization(String specialization) {
+        this.specialization = specialization;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+}
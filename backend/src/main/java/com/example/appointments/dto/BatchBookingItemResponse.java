@@ -0,0 +1,51 @@
+package com.example.appointments.dto;
+
+public class BatchBookingItemResponse {
+
+    private int index;
+    private int status;
+    private AppointmentResponse appointment;
+    private String error;
+
+    public BatchBookingItemResponse() {
+    }
+
+    public BatchBookingItemResponse(int index, int status, AppointmentResponse appointment, String error) {
+        this.index = index;
+        this.status = status;
+        this.appointment = appointment;
+        this.error = error;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public AppointmentResponse getAppointment() {
+        return appointment;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public void setAppointment(AppointmentResponse appointment) {
+        this.appointment = appointment;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
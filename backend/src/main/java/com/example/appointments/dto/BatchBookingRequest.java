@@ -0,0 +1,29 @@
+package com.example.appointments.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BatchBookingRequest {
+
+    @NotEmpty
+    @Size(max = 500)
+    private List<@Valid CreateAppointmentRequest> appointments;
+
+    public BatchBookingRequest() {
+    }
+
+    public BatchBookingRequest(List<CreateAppointmentRequest> appointments) {
+        this.appointments = appointments;
+    }
+
+    public List<CreateAppointmentRequest> getAppointments() {
+        return appointments;
+    }
+
+    public void setAppointments(List<CreateAppointmentRequest> appointments) {
+        this.appointments = appointments;
+    }
+}
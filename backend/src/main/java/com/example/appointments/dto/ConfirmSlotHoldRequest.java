@@ -0,0 +1,37 @@
+package com.example.appointments.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+public class ConfirmSlotHoldRequest {
+
+    @NotBlank
+    private String patientName;
+
+    @Size(max = 64)
+    private String patientId;
+
+    public ConfirmSlotHoldRequest() {
+    }
+
+    public ConfirmSlotHoldRequest(String patientName, String patientId) {
+        this.patientName = patientName;
+        this.patientId = patientId;
+    }
+
+    public String getPatientName() {
+        return patientName;
+    }
+
+    public String getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientName(String patientName) {
+        this.patientName = patientName;
+    }
+
+    public void setPatientId(String patientId) {
+        this.patientId = patientId;
+    }
+}
@@ -3,6 +3,7 @@ package com.example.appointments.dto;
 import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
 import java.time.LocalDateTime;
 
@@ -14,10 +15,22 @@ public class CreateAppointmentRequest {
     @NotBlank
     private String patientName;
 
+    /**
+     * Optional stable patient identifier; appointments booked with one show up in that patient's history.
+     */
+    @Size(max = 64)
+    private String patientId;
+
     @NotNull
     @Future
     private LocalDateTime startTime;
 
+    /**
+     * Optional id of the caller's slot hold; a held slot can only be booked with it.
+     */
+    @Size(max = 64)
+    private String holdId;
+
     public CreateAppointmentRequest() {
     }
 
@@ -35,10 +48,18 @@ public class CreateAppointmentRequest {
         return patientName;
     }
 
+    public String getPatientId() {
+        return patientId;
+    }
+
     public LocalDateTime getStartTime() {
         return startTime;
     }
 
+    public String getHoldId() {
+        return holdId;
+    }
+
     public void setDoctorId(Long doctorId) {
         this.doctorId = doctorId;
     }
@@ -47,7 +68,15 @@ public class CreateAppointmentRequest {
         this.patientName = patientName;
     }
 
+    public void setPatientId(String patientId) {
+        this.patientId = patientId;
+    }
+
     public void setStartTime(LocalDateTime startTime) {
         this.startTime = startTime;
     }
+
+    public void setHoldId(String holdId) {
+        this.holdId = holdId;
+    }
 }
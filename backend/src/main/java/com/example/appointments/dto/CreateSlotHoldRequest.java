@@ -0,0 +1,56 @@
+package com.example.appointments.dto;
+
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDateTime;
+
+public class CreateSlotHoldRequest {
+
+    @NotNull
+    private Long doctorId;
+
+    @NotNull
+    @Future
+    private LocalDateTime startTime;
+
+    /**
+     * How long to hold the slot; appointments.slotHolds.defaultTtl when absent.
+     */
+    @Min(1)
+    private Integer minutes;
+
+    public CreateSlotHoldRequest() {
+    }
+
+    public CreateSlotHoldRequest(Long doctorId, LocalDateTime startTime, Integer minutes) {
+        this.doctorId = doctorId;
+        this.startTime = startTime;
+        this.minutes = minutes;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public Integer getMinutes() {
+        return minutes;
+    }
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public void setMinutes(Integer minutes) {
+        this.minutes = minutes;
+    }
+}
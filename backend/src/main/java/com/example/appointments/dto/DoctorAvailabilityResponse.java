@@ -0,0 +1,35 @@
+package com.example.appointments.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+public class DoctorAvailabilityResponse {
+
+    private Long doctorId;
+    private Map<LocalDate, List<String>> slots;
+
+    public DoctorAvailabilityResponse() {
+    }
+
+    public DoctorAvailabilityResponse(Long doctorId, Map<LocalDate, List<String>> slots) {
+        this.doctorId = doctorId;
+        this.slots = slots;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public Map<LocalDate, List<String>> getSlots() {
+        return slots;
+    }
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public void setSlots(Map<LocalDate, List<String>> slots) {
+        this.slots = slots;
+    }
+}
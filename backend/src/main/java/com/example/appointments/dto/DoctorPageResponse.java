@@ -0,0 +1,35 @@
+package com.example.appointments.dto;
+
+import java.util.List;
+
+public class DoctorPageResponse {
+    private List<DoctorResponse> items;
+    private Long nextAfterId;
+
+    public DoctorPageResponse() {
+    }
+
+    public DoctorPageResponse(List<DoctorResponse> items, Long nextAfterId) {
+        this.items = items;
+        this.nextAfterId = nextAfterId;
+    }
+
+    public List<DoctorResponse> getItems() {
+        return items;
+    }
+
+    /**
+     * Pass as afterId to fetch the next page; null when this is the last page.
+     */
+    public Long getNextAfterId() {
+        return nextAfterId;
+    }
+
+    public void setItems(List<DoctorResponse> items) {
+        this.items = items;
+    }
+
+    public void setNextAfterId(Long nextAfterId) {
+        this.nextAfterId = nextAfterId;
+    }
+}
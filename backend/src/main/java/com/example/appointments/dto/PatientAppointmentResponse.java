@@ -0,0 +1,97 @@
+package com.example.appointments.dto;
+
+import com.example.appointments.entity.AppointmentStatus;
+
+import java.time.LocalDateTime;
+
+public class PatientAppointmentResponse {
+
+    private Long id;
+    private Long doctorId;
+    private String doctorName;
+    private String doctorSpecialization;
+    private String patientName;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private AppointmentStatus status;
+
+    public PatientAppointmentResponse() {
+    }
+
+    public PatientAppointmentResponse(Long id, Long doctorId, String doctorName, String doctorSpecialization,
+                                      String patientName, LocalDateTime startTime, LocalDateTime endTime,
+                                      AppointmentStatus status) {
+        this.id = id;
+        this.doctorId = doctorId;
+        this.doctorName = doctorName;
+        this.doctorSpecialization = doctorSpecialization;
+        this.patientName = patientName;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.status = status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public String getDoctorName() {
+        return doctorName;
+    }
+
+    public String getDoctorSpecialization() {
+        return doctorSpecialization;
+    }
+
+    public String getPatientName() {
+        return patientName;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public AppointmentStatus getStatus() {
+        return status;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public void setDoctorName(String doctorName) {
+        this.doctorName = doctorName;
+    }
+
+    public void setDoctorSpecialization(String doctorSpecialization) {
+        this.doctorSpecialization = doctorSpecialization;
+    }
+
+    public void setPatientName(String patientName) {
+        this.patientName = patientName;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
+    }
+
+    public void setStatus(AppointmentStatus status) {
+        this.status = status;
+    }
+}
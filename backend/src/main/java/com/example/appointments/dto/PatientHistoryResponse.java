@@ -0,0 +1,62 @@
+package com.example.appointments.dto;
+
+import java.util.List;
+
+public class PatientHistoryResponse {
+    private List<PatientAppointmentResponse> items;
+    private int page;
+    private int size;
+    private long totalElements;
+    private boolean hasNext;
+
+    public PatientHistoryResponse() {
+    }
+
+    public PatientHistoryResponse(List<PatientAppointmentResponse> items, int page, int size, long totalElements, boolean hasNext) {
+        this.items = items;
+        this.page = page;
+        this.size = size;
+        this.totalElements = totalElements;
+        this.hasNext = hasNext;
+    }
+
+    public List<PatientAppointmentResponse> getItems() {
+        return items;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getTotalElements() {
+        return totalElements;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setItems(List<PatientAppointmentResponse> items) {
+        this.items = items;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public void setTotalElements(long totalElements) {
+        this.totalElements = totalElements;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+}
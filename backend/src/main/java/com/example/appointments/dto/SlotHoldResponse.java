@@ -0,0 +1,64 @@
+package com.example.appointments.dto;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+public class SlotHoldResponse {
+
+    private String holdId;
+    private Long doctorId;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private Instant expiresAt;
+
+    public SlotHoldResponse() {
+    }
+
+    public SlotHoldResponse(String holdId, Long doctorId, LocalDateTime startTime, LocalDateTime endTime, Instant expiresAt) {
+        this.holdId = holdId;
+        this.doctorId = doctorId;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getHoldId() {
+        return holdId;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setHoldId(String holdId) {
+        this.holdId = holdId;
+    }
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -3,6 +3,7 @@ package com.example.appointments.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
 import java.time.LocalDateTime;
 
@@ -10,13 +11,22 @@ import java.time.LocalDateTime;
 @Table(
     name = "appointments",
     indexes = {
-        @Index(name = "idx_appointments_doctor_start", columnList = "doctor_id, start_time")
+        // Covering index for the overlap queries; see db/migration for the dialect-specific extras
+        @Index(name = "idx_appointments_doctor_status_time", columnList = "doctor_id, status, start_time, end_time"),
+        // Patient history, newest first
+        @Index(name = "idx_appointments_patient_start", columnList = "patient_id, start_time, id")
+    },
+    uniqueConstraints = {
+        // Conflict target of the single-statement booking upsert
+        @UniqueConstraint(name = "uk_appointments_doctor_start", columnNames = {"doctor_id", "start_time"})
     }
 )
 public class Appointment {
 
+    // Pooled sequence (not IDENTITY) so Hibernate can assign ids up front and batch INSERTs
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointments_seq")
+    @SequenceGenerator(name = "appointments_seq", sequenceName = "appointments_seq", allocationSize = 50)
     private Long id;
 
     // FK to Doctor
@@ -28,6 +38,11 @@ public class Appointment {
     @Column(name = "patient_name", nullable = false)
     private String patientName;
 
+    // Caller-supplied patient identifier (e.g. the portal's patient id); optional
+    @Size(max = 64)
+    @Column(name = "patient_id", length = 64)
+    private String patientId;
+
     @NotNull
     @Column(name = "start_time", nullable = false)
     private LocalDateTime startTime;
@@ -69,6 +84,10 @@ public class Appointment {
         return patientName;
     }
 
+    public String getPatientId() {
+        return patientId;
+    }
+
     public LocalDateTime getStartTime() {
         return startTime;
     }
@@ -97,6 +116,10 @@ public class Appointment {
         this.patientName = patientName;
     }
 
+    public void setPatientId(String patientId) {
+        this.patientId = patientId;
+    }
+
     public void setStartTime(LocalDateTime startTime) {
         this.startTime = startTime;
     }
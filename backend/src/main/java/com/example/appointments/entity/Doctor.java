@@ -1,13 +1,21 @@
 package com.example.appointments.entity;
 
+import com.example.appointments.config.HibernateCacheConfig;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+/**
+ * Reference data read far more often than written, so it is kept in the Hibernate second-level cache.
+ */
 @Entity
 @Table(name = "doctors")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.DOCTOR_REGION)
 public class Doctor {
 
     @Id
@@ -81,4 +89,21 @@ public class Doctor {
     public void setPerSlotDurationMinutes(Integer perSlotDurationMinutes) {
         this.perSlotDurationMinutes = perSlotDurationMinutes;
     }
+
+    /**
+     * Same database row: DoctorCache hands out copies, which must match the entity they were made from.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof Doctor other && id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        // Constant, so a new doctor keeps its hash when persisting assigns the id
+        return Doctor.class.hashCode();
+    }
 }
@@ -0,0 +1,91 @@
+package com.example.appointments.event;
+
+import com.example.appointments.entity.Appointment;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Published by AppointmentService whenever an appointment is booked or cancelled.
+ * Listeners that only care about committed state should use @TransactionalEventListener.
+ */
+public class AppointmentChangedEvent {
+
+    public enum Type {
+        BOOKED,
+        CANCELLED
+    }
+
+    private final Type type;
+    private final Long appointmentId;
+    private final Long doctorId;
+    private final LocalDateTime startTime;
+    private final LocalDateTime endTime;
+    private final String patientName;
+    private final String patientId;
+    private final Instant occurredAt;
+
+    public AppointmentChangedEvent(Type type, Long appointmentId, Long doctorId, LocalDateTime startTime, LocalDateTime endTime) {
+        this(type, appointmentId, doctorId, startTime, endTime, null, null, Instant.now());
+    }
+
+    public AppointmentChangedEvent(Type type, Long appointmentId, Long doctorId, LocalDateTime startTime, LocalDateTime endTime,
+                                   String patientName, String patientId, Instant occurredAt) {
+        this.type = type;
+        this.appointmentId = appointmentId;
+        this.doctorId = doctorId;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.patientName = patientName;
+        this.patientId = patientId;
+        this.occurredAt = occurredAt;
+    }
+
+    public static AppointmentChangedEvent booked(Appointment a) {
+        return of(Type.BOOKED, a);
+    }
+
+    public static AppointmentChangedEvent cancelled(Appointment a) {
+        return of(Type.CANCELLED, a);
+    }
+
+    private static AppointmentChangedEvent of(Type type, Appointment a) {
+        return new AppointmentChangedEvent(type, a.getId(), a.getDoctor().getId(), a.getStartTime(), a.getEndTime(),
+                a.getPatientName(), a.getPatientId(), Instant.now());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getAppointmentId() {
+        return appointmentId;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public String getPatientName() {
+        return patientName;
+    }
+
+    public String getPatientId() {
+        return patientId;
+    }
+
+    /**
+     * When the change was made (inside its transaction, before commit).
+     */
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+}
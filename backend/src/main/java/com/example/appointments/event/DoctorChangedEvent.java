@@ -0,0 +1,18 @@
+package com.example.appointments.event;
+
+/**
+ * Published by DoctorService whenever a doctor is created or updated.
+ * Caches holding doctor data listen for it (after commit) to drop stale entries.
+ */
+public class DoctorChangedEvent {
+
+    private final Long doctorId;
+
+    public DoctorChangedEvent(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.appointments.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by SlotHolds when a hold is placed or released. Availability of the covered time changes
+ * while the bookings underneath do not, so listeners (after commit) refresh holds rather than evict days.
+ */
+public class SlotHoldChangedEvent {
+
+    private final Long doctorId;
+    private final LocalDateTime startTime;
+    private final LocalDateTime endTime;
+
+    public SlotHoldChangedEvent(Long doctorId, LocalDateTime startTime, LocalDateTime endTime) {
+        this.doctorId = doctorId;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.appointments.exception;
+
+/**
+ * The request was refused because work it would add is already backed up (e.g. the journal projection queue is full);
+ * answered with 503 and Retry-After.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
@@ -1,7 +1,35 @@
 package com.example.appointments.exception;
 
 public class SlotAlreadyBookedException extends RuntimeException {
+
+    /**
+     * What detected the conflict; booking metrics are tagged with it.
+     */
+    public enum Reason {
+        /** An overlapping CONFIRMED appointment was found before writing. */
+        OVERLAP,
+        /** The write hit a database constraint: a concurrent booking of the same (or an overlapping) slot. */
+        INTEGRITY_VIOLATION,
+        /** A concurrent booking won the optimistic-lock race on a reused slot row. */
+        OPTIMISTIC_LOCK,
+        /** Another booking of the same slot was already running on this instance; the database was not queried. */
+        IN_FLIGHT,
+        /** The slot is held for someone else (see SlotHolds); the database was not queried. */
+        HELD
+    }
+
+    private final Reason reason;
+
     public SlotAlreadyBookedException(String message) {
+        this(message, Reason.OVERLAP);
+    }
+
+    public SlotAlreadyBookedException(String message, Reason reason) {
         super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
     }
 }
@@ -0,0 +1,467 @@
+package com.example.appointments.journal;
+
+import com.example.appointments.event.AppointmentChangedEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Memory-mapped write-ahead journal of the JOURNAL booking mode.
+ * <p>
+ * Records are appended to fixed-size segment files (segment-N.journal) mapped into memory, so an append is one copy
+ * into the mapping under a short lock, with no system call. A flusher thread forces the newly written pages to disk
+ * every flushInterval: one fsync covers every record appended since the previous one (group commit), and
+ * awaitDurable blocks a caller until the force covering its record is done.
+ * <p>
+ * A record is framed as [body length][CRC32 of body][body]. Recovery reads each segment up to the first frame that is
+ * empty, cut short or fails its checksum, which is where a crash stopped the writer.
+ * <p>
+ * Segments are retired by count: every append counts against its segment, every release (the record has been
+ * projected to the database) counts down, and a segment that is full and fully released is deleted.
+ * <p>
+ * Meters: appointments.journal.flush (time per group force), appointments.journal.flush.records (records made durable
+ * per force) and appointments.journal.segments (live segment files).
+ */
+public class BookingJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingJournal.class);
+
+    private static final int HEADER_BYTES = 8;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.journal");
+    private static final Duration STOP_TIMEOUT = Duration.ofSeconds(10);
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ConcurrentMap<Long, Segment> segments = new ConcurrentHashMap<>();
+    private final AtomicLong flushed = new AtomicLong();
+    private final Object flushMonitor = new Object();
+    private final List<Path> recovered = new ArrayList<>();
+    private final Timer flushTimer;
+    private final DistributionSummary flushRecords;
+
+    // Guarded by appendLock
+    private Segment current;
+    private long written;
+    private long appended;
+    private boolean closed;
+
+    private long nextIndex;
+    private long flushedRecords;
+    private volatile RuntimeException flushFailure;
+    private volatile boolean running;
+    private Thread flusher;
+
+    /**
+     * Where a record ended up: its segment (for release) and the journal position just after it (for awaitDurable).
+     */
+    public record Appended(long segment, long position) {
+    }
+
+    public BookingJournal(Path directory, int segmentSize, MeterRegistry meterRegistry) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.flushTimer = Timer.builder("appointments.journal.flush")
+                .description("Time to force newly written journal pages to disk")
+                .register(meterRegistry);
+        this.flushRecords = DistributionSummary.builder("appointments.journal.flush.records")
+                .description("Journal records made durable by one force")
+                .register(meterRegistry);
+        Gauge.builder("appointments.journal.segments", segments, ConcurrentMap::size)
+                .description("Journal segment files not yet fully projected")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reads every record left in the directory by earlier runs, oldest first. The segments stay on disk until open,
+     * which the caller must only reach once the records are safe elsewhere.
+     */
+    public List<JournalRecord> recover() {
+        List<JournalRecord> records = new ArrayList<>();
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(p -> SEGMENT_NAME.matcher(p.getFileName().toString()).matches())
+                        .sorted()
+                        .toList();
+            }
+            for (Path file : files) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    int count = read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), records);
+                    log.info("Recovered {} journal records from {}", count, file);
+                }
+                recovered.add(file);
+                nextIndex = Math.max(nextIndex, index(file) + 1);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read booking journal in " + directory, e);
+        }
+        return records;
+    }
+
+    /**
+     * Deletes the recovered segments, starts a fresh one and the flusher thread.
+     */
+    public void open(Duration flushInterval) {
+        try {
+            for (Path file : recovered) {
+                Files.delete(file);
+            }
+            recovered.clear();
+            appendLock.lock();
+            try {
+                current = createSegment(nextIndex);
+                written = position(current);
+                flushed.set(written);
+            } finally {
+                appendLock.unlock();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open booking journal in " + directory, e);
+        }
+        running = true;
+        long intervalNanos = flushInterval.toNanos();
+        flusher = new Thread(() -> {
+            while (running) {
+                LockSupport.parkNanos(intervalNanos);
+                flush();
+            }
+        }, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Copies the record into the current segment, starting a new segment when it does not fit.
+     * The record is not durable yet; see awaitDurable.
+     */
+    public Appended append(JournalRecord record) {
+        byte[] frame = encode(record);
+        if (frame.length > segmentSize) {
+            throw new IllegalArgumentException("Journal record of " + frame.length + " bytes exceeds the segment size");
+        }
+        appendLock.lock();
+        try {
+            if (closed || current == null) {
+                throw new IllegalStateException("Booking journal is not open");
+            }
+            if (flushFailure != null) {
+                throw new IllegalStateException("Booking journal can no longer be flushed", flushFailure);
+            }
+            if (current.position + frame.length > segmentSize) {
+                roll();
+            }
+            Segment segment = current;
+            segment.buffer.put(segment.position, frame);
+            segment.position += frame.length;
+            segment.pending.incrementAndGet();
+            appended++;
+            written = position(segment);
+            return new Appended(segment.index, written);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until everything up to position has been forced to disk.
+     */
+    public void awaitDurable(long position) {
+        if (flushed.get() >= position) {
+            return;
+        }
+        synchronized (flushMonitor) {
+            while (flushed.get() < position) {
+                if (flushFailure != null) {
+                    throw new IllegalStateException("Booking journal can no longer be flushed", flushFailure);
+                }
+                try {
+                    flushMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the journal flush", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * One record of the segment has been projected; deletes the segment once it is full and all of its records are.
+     */
+    public void release(long segmentIndex) {
+        Segment segment = segments.get(segmentIndex);
+        if (segment != null && segment.pending.decrementAndGet() == 0 && segment.full) {
+            retire(segment);
+        }
+    }
+
+    /**
+     * Forces what has been appended since the last flush. Runs on the flusher thread; a failure is final, since pages
+     * that could not be written may already have been dropped by the kernel.
+     */
+    void flush() {
+        Segment segment;
+        int to;
+        long target;
+        long records;
+        appendLock.lock();
+        try {
+            segment = current;
+            if (segment == null) {
+                return;
+            }
+            to = segment.position;
+            target = written;
+            records = appended;
+        } finally {
+            appendLock.unlock();
+        }
+        if (target <= flushed.get() || flushFailure != null) {
+            return;
+        }
+        int from = segment.flushedOffset;
+        try {
+            // A roll in between may already have forced the whole segment
+            if (to > from) {
+                flushTimer.record(() -> segment.buffer.force(from, to - from));
+            }
+        } catch (RuntimeException e) {
+            log.error("Forcing booking journal segment {} failed; the journal stops accepting records", segment.index, e);
+            flushFailure = e;
+            signalFlushed();
+            return;
+        }
+        segment.flushedOffset = Math.max(segment.flushedOffset, to);
+        flushRecords.record(records - flushedRecords);
+        flushedRecords = records;
+        flushed.accumulateAndGet(target, Math::max);
+        signalFlushed();
+    }
+
+    /**
+     * Stops the flusher and forces what is left. Records appended afterwards are refused.
+     * When every record has been released the last segment is deleted too, so a clean restart has nothing to recover.
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            try {
+                flusher.join(STOP_TIMEOUT.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        appendLock.lock();
+        try {
+            closed = true;
+        } finally {
+            appendLock.unlock();
+        }
+        flush();
+        if (current != null && current.pending.get() == 0) {
+            retire(current);
+        }
+    }
+
+    // Called with appendLock held
+    private void roll() {
+        Segment full = current;
+        full.buffer.force();
+        full.flushedOffset = full.position;
+        flushed.accumulateAndGet(position(full), Math::max);
+        signalFlushed();
+        try {
+            current = createSegment(full.index + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start booking journal segment " + (full.index + 1), e);
+        }
+        full.full = true;
+        if (full.pending.get() == 0) {
+            retire(full);
+        }
+    }
+
+    private void retire(Segment segment) {
+        // Only the caller that removes the segment deletes its file
+        if (!segments.remove(segment.index, segment)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            log.warn("Cannot delete projected journal segment {}", segment.path, e);
+        }
+    }
+
+    private Segment createSegment(long index) throws IOException {
+        Path path = directory.resolve(String.format("segment-%016d.journal", index));
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Mapping past the end grows the file (zero-filled); force once so the size and the new entry are durable
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            channel.force(true);
+        }
+        forceDirectory();
+        Segment segment = new Segment(index, path, buffer);
+        segments.put(index, segment);
+        return segment;
+    }
+
+    private void forceDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform (Windows); the segment's own force still covers its contents
+            log.debug("Cannot force journal directory {}", directory, e);
+        }
+    }
+
+    private void signalFlushed() {
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+        }
+    }
+
+    private long position(Segment segment) {
+        return segment.index * segmentSize + segment.position;
+    }
+
+    private static long index(Path file) {
+        Matcher m = SEGMENT_NAME.matcher(file.getFileName().toString());
+        if (!m.matches()) {
+            throw new IllegalArgumentException("Not a journal segment: " + file);
+        }
+        return Long.parseLong(m.group(1));
+    }
+
+    /**
+     * Appends the valid records of one segment to out and returns how many there were.
+     */
+    static int read(ByteBuffer segment, List<JournalRecord> out) {
+        int count = 0;
+        int position = 0;
+        while (segment.limit() - position >= HEADER_BYTES) {
+            int length = segment.getInt(position);
+            if (length <= 0 || length > segment.limit() - position - HEADER_BYTES) {
+                break;
+            }
+            int checksum = segment.getInt(position + 4);
+            ByteBuffer body = segment.slice(position + HEADER_BYTES, length);
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            out.add(decode(body));
+            count++;
+            position += HEADER_BYTES + length;
+        }
+        return count;
+    }
+
+    static byte[] encode(JournalRecord r) {
+        byte[] patientName = r.patientName().getBytes(StandardCharsets.UTF_8);
+        byte[] patientId = r.patientId() == null ? null : r.patientId().getBytes(StandardCharsets.UTF_8);
+        int length = 1 + 8 + 8 + 12 + 12 + 12 + 4 + patientName.length + 4 + (patientId == null ? 0 : patientId.length);
+        ByteBuffer b = ByteBuffer.allocate(HEADER_BYTES + length);
+        b.putInt(length).putInt(0);
+        b.put((byte) (r.type() == AppointmentChangedEvent.Type.BOOKED ? 'B' : 'C'));
+        b.putLong(r.appointmentId()).putLong(r.doctorId());
+        putInstant(b, r.startTime().toInstant(ZoneOffset.UTC));
+        putInstant(b, r.endTime().toInstant(ZoneOffset.UTC));
+        putInstant(b, r.occurredAt());
+        b.putInt(patientName.length).put(patientName);
+        if (patientId == null) {
+            b.putInt(-1);
+        } else {
+            b.putInt(patientId.length).put(patientId);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(b.array(), HEADER_BYTES, length);
+        b.putInt(4, (int) crc.getValue());
+        return b.array();
+    }
+
+    private static JournalRecord decode(ByteBuffer b) {
+        AppointmentChangedEvent.Type type = b.get() == 'B' ? AppointmentChangedEvent.Type.BOOKED : AppointmentChangedEvent.Type.CANCELLED;
+        long appointmentId = b.getLong();
+        long doctorId = b.getLong();
+        LocalDateTime start = LocalDateTime.ofInstant(getInstant(b), ZoneOffset.UTC);
+        LocalDateTime end = LocalDateTime.ofInstant(getInstant(b), ZoneOffset.UTC);
+        Instant occurredAt = getInstant(b);
+        String patientName = getString(b);
+        String patientId = getString(b);
+        return new JournalRecord(type, appointmentId, doctorId, start, end, patientName, patientId, occurredAt);
+    }
+
+    private static void putInstant(ByteBuffer b, Instant instant) {
+        b.putLong(instant.getEpochSecond()).putInt(instant.getNano());
+    }
+
+    private static Instant getInstant(ByteBuffer b) {
+        return Instant.ofEpochSecond(b.getLong(), b.getInt());
+    }
+
+    private static String getString(ByteBuffer b) {
+        int length = b.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Segment {
+
+        final long index;
+        final Path path;
+        final MappedByteBuffer buffer;
+        /** Records appended but not yet released. */
+        final AtomicInteger pending = new AtomicInteger();
+        // Written with appendLock held
+        int position;
+        volatile int flushedOffset;
+        volatile boolean full;
+
+        Segment(long index, Path path, MappedByteBuffer buffer) {
+            this.index = index;
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.appointments.journal;
+
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.exception.ServiceBusyException;
+import com.example.appointments.outbox.AppointmentOutbox;
+import com.example.appointments.repository.AppointmentProjectionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes journaled bookings and cancellations (JOURNAL booking mode) to the appointments table, behind the booking path.
+ * <p>
+ * JournaledBookingEngine enqueues each record once it is in the journal; one writer thread drains the queue and
+ * projects up to appointments.journal.projectionBatchSize records per transaction. Records of the same appointment
+ * within a batch collapse into its last state, so its row is written once. The same transaction adds every change
+ * to the outbox (AppointmentOutbox), which therefore still only carries changes that reached the database.
+ * <p>
+ * After commit the records are released from their journal segments. A failed batch is retried, whatever the
+ * exception, until it commits or the application stops; records that never made it stay in the journal and are
+ * projected again on the next start. A constraint violation would fail again, so such a batch is written one record
+ * per transaction instead and the records still refused are set aside: logged, counted and left in their segment,
+ * which is therefore kept until a restart projects them after the clash has been resolved.
+ * <p>
+ * Room in the queue is reserved before a record is journaled (reserve), so a full queue refuses the request with
+ * ServiceBusyException instead of blocking a thread that already holds its slot.
+ * <p>
+ * Meters: appointments.journal.projection.queue.size (gauge), appointments.journal.projected,
+ * appointments.journal.projection.lag (from the change to the commit of its row), appointments.journal.projection.failed
+ * (records set aside) and appointments.journal.projection.rejected (requests refused for want of room).
+ */
+@Component
+public class JournalProjector {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalProjector.class);
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+    private static final Duration STOP_TIMEOUT = Duration.ofSeconds(10);
+
+    private final AppointmentProjectionRepository repository;
+    private final AppointmentOutbox outbox;
+    private final TransactionOperations transactionOperations;
+    private final int batchSize;
+    private final Duration retryDelay;
+    private final BlockingQueue<Entry> queue;
+    /** Free places in the queue, taken by reserve and given back when the writer takes records off the queue. */
+    private final Semaphore room;
+    private final Counter projected;
+    private final Timer lag;
+    private final Counter failed;
+    private final Counter rejected;
+
+    private volatile boolean running;
+    private Thread writer;
+    private BookingJournal journal;
+
+    /**
+     * A record waiting for projection and the journal segment holding it.
+     */
+    private record Entry(JournalRecord record, long segment) {
+    }
+
+    public JournalProjector(AppointmentProjectionRepository repository,
+                            AppointmentOutbox outbox,
+                            TransactionOperations transactionOperations,
+                            AppointmentsProperties properties,
+                            MeterRegistry meterRegistry) {
+        AppointmentsProperties.Journal cfg = properties.getJournal();
+        this.repository = repository;
+        this.outbox = outbox;
+        this.transactionOperations = transactionOperations;
+        this.batchSize = cfg.getProjectionBatchSize();
+        this.retryDelay = cfg.getRetryDelay();
+        this.queue = new ArrayBlockingQueue<>(cfg.getProjectionQueueCapacity());
+        this.room = new Semaphore(cfg.getProjectionQueueCapacity());
+        Gauge.builder("appointments.journal.projection.queue.size", queue, BlockingQueue::size)
+                .description("Journaled appointment changes waiting to be written to the database")
+                .register(meterRegistry);
+        this.projected = Counter.builder("appointments.journal.projected")
+                .description("Journaled appointment changes written to the database")
+                .register(meterRegistry);
+        this.lag = Timer.builder("appointments.journal.projection.lag")
+                .description("Time from an appointment change to the commit of its row")
+                .register(meterRegistry);
+        this.failed = Counter.builder("appointments.journal.projection.failed")
+                .description("Journaled appointment changes the database refused for good; kept in the journal")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("appointments.journal.projection.rejected")
+                .description("Bookings and cancellations refused because the projection queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reserves a place in the queue for a record about to be journaled; pair with enqueue, or unreserve if the
+     * record is not journaled after all.
+     *
+     * @throws ServiceBusyException when the queue is full: the database has fallen behind
+     */
+    public void reserve() {
+        if (!room.tryAcquire()) {
+            rejected.increment();
+            throw new ServiceBusyException("Too many appointment changes waiting to be saved, please retry.");
+        }
+    }
+
+    public void unreserve() {
+        room.release();
+    }
+
+    /**
+     * Queues a journaled record into the place reserved for it; never blocks.
+     * Records of one appointment must be enqueued in journal order.
+     */
+    public void enqueue(JournalRecord record, long segment) {
+        queue.add(new Entry(record, segment));
+    }
+
+    /**
+     * Projects the records on the calling thread (journal recovery at startup), in batches of one transaction each.
+     */
+    public void project(List<JournalRecord> records) {
+        for (int from = 0; from < records.size(); from += batchSize) {
+            List<JournalRecord> batch = records.subList(from, Math.min(records.size(), from + batchSize));
+            try {
+                transactionOperations.executeWithoutResult(status -> write(batch));
+            } catch (DataIntegrityViolationException e) {
+                for (JournalRecord record : batch) {
+                    try {
+                        transactionOperations.executeWithoutResult(status -> write(List.of(record)));
+                    } catch (DataIntegrityViolationException refused) {
+                        setAside(record, refused);
+                    }
+                }
+            }
+        }
+    }
+
+    void start(BookingJournal journal) {
+        this.journal = journal;
+        running = true;
+        writer = new Thread(this::drain, "journal-projector");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stops once the queue is empty (or after STOP_TIMEOUT).
+     */
+    void stop() {
+        running = false;
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.join(STOP_TIMEOUT.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            writer.interrupt();
+        }
+        writer = null;
+    }
+
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+            List<Entry> batch = new ArrayList<>(batchSize);
+            try {
+                Entry first = queue.poll(POLL_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                room.release(batch.size());
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes the batch in one transaction. When the database refuses it for good, writes its records one per
+     * transaction so that only the offending ones are set aside.
+     */
+    private void commit(List<Entry> batch) throws InterruptedException {
+        try {
+            if (writeWithRetry(batch)) {
+                committed(batch);
+            }
+        } catch (DataIntegrityViolationException e) {
+            if (batch.size() == 1) {
+                setAside(batch.get(0).record(), e);
+                return;
+            }
+            for (Entry entry : batch) {
+                commit(List.of(entry));
+            }
+        }
+    }
+
+    /**
+     * Retries every failure but a constraint violation, which is rethrown. False when the application stopped first.
+     */
+    private boolean writeWithRetry(List<Entry> batch) throws InterruptedException {
+        List<JournalRecord> records = batch.stream().map(Entry::record).toList();
+        while (true) {
+            try {
+                transactionOperations.executeWithoutResult(status -> write(records));
+                return true;
+            } catch (DataIntegrityViolationException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                // Not just DataAccessException: a database that is down surfaces as CannotCreateTransactionException
+                if (!running) {
+                    log.error("Projection of {} journal records failed during shutdown; they are projected on restart",
+                            batch.size(), e);
+                    return false;
+                }
+                log.warn("Projection of {} journal records failed; retrying in {}", batch.size(), retryDelay, e);
+                Thread.sleep(retryDelay.toMillis());
+            }
+        }
+    }
+
+    /**
+     * The segment is not released, so the record is projected again on the next start.
+     */
+    private void setAside(JournalRecord record, RuntimeException cause) {
+        failed.increment();
+        log.error("{} of appointment {} cannot be projected and is set aside; it stays in the journal", record.type(),
+                record.appointmentId(), cause);
+    }
+
+    private void committed(List<Entry> batch) {
+        Instant now = Instant.now();
+        for (Entry entry : batch) {
+            journal.release(entry.segment());
+            lag.record(Duration.between(entry.record().occurredAt(), now));
+        }
+        projected.increment(batch.size());
+    }
+
+    private void write(List<JournalRecord> records) {
+        Map<Long, JournalRecord> latest = new LinkedHashMap<>();
+        for (JournalRecord r : records) {
+            latest.put(r.appointmentId(), r);
+            outbox.record(r.toEvent());
+        }
+        repository.upsertAll(latest.values());
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.appointments.journal;
+
+import com.example.appointments.entity.AppointmentStatus;
+import com.example.appointments.event.AppointmentChangedEvent;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * One booking or cancellation as written to the BookingJournal. Carries the appointment's whole row, so replaying
+ * the last record of an appointment is enough to rebuild it, and projecting it needs no read.
+ *
+ * @param occurredAt when the change was made; null for rows loaded from the database at startup
+ */
+public record JournalRecord(AppointmentChangedEvent.Type type,
+                            long appointmentId,
+                            long doctorId,
+                            LocalDateTime startTime,
+                            LocalDateTime endTime,
+                            String patientName,
+                            String patientId,
+                            Instant occurredAt) {
+
+    public AppointmentStatus status() {
+        return type == AppointmentChangedEvent.Type.BOOKED ? AppointmentStatus.CONFIRMED : AppointmentStatus.CANCELLED;
+    }
+
+    public JournalRecord cancelled(Instant at) {
+        return new JournalRecord(AppointmentChangedEvent.Type.CANCELLED, appointmentId, doctorId, startTime, endTime,
+                patientName, patientId, at);
+    }
+
+    public AppointmentChangedEvent toEvent() {
+        return new AppointmentChangedEvent(type, appointmentId, doctorId, startTime, endTime, patientName, patientId, occurredAt);
+    }
+}
@@ -0,0 +1,459 @@
+package com.example.appointments.journal;
+
+import com.example.appointments.cache.DaySlots;
+import com.example.appointments.cache.DoctorCache;
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.entity.Appointment;
+import com.example.appointments.entity.Doctor;
+import com.example.appointments.event.AppointmentChangedEvent;
+import com.example.appointments.exception.InvalidRequestException;
+import com.example.appointments.exception.ResourceNotFoundException;
+import com.example.appointments.exception.SlotAlreadyBookedException;
+import com.example.appointments.repository.AppointmentIdGenerator;
+import com.example.appointments.repository.AppointmentProjectionRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Booking engine of the JOURNAL booking mode: bookings and cancellations are decided in memory and made durable by
+ * the BookingJournal, and the appointments table follows asynchronously (JournalProjector).
+ * <p>
+ * Every (doctor, date) has one bit per slot of a grid anchored at the working-day start and covering the whole day,
+ * packed into long words. A booking claims its slot's bit with a compare-and-set, so of any number of concurrent
+ * requests for a slot exactly one wins, without a lock or a query; the others get SlotAlreadyBookedException.
+ * The winner appends the booking to the journal, waits for the group fsync covering it and hands it to the projector;
+ * when the projector has no room left the request fails with ServiceBusyException and the slot stays free.
+ * A cancellation moves the appointment to CANCELLED with a compare-and-set, journals that and only then clears the
+ * slot's bit, so a new booking of the slot is always journaled after it. Booking a slot again reuses its row, as in
+ * STANDARD mode.
+ * <p>
+ * On start the state is rebuilt from the appointments table (everything ending today or later) overlaid with the
+ * records the previous run left in the journal, which are projected again before any request is served.
+ * Appointments off the grid (booked in another mode) keep every slot they overlap busy until the next start.
+ * <p>
+ * The state lives in this process, so in JOURNAL mode a single instance must be the only writer of appointments.
+ */
+@Component
+public class JournaledBookingEngine implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(JournaledBookingEngine.class);
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final AppointmentProjectionRepository repository;
+    private final AppointmentIdGenerator ids;
+    private final DoctorCache doctorCache;
+    private final JournalProjector projector;
+    private final AppointmentsProperties.Journal cfg;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final LocalTime gridStart;
+    private final ConcurrentMap<DayKey, DayBook> days = new ConcurrentHashMap<>();
+    /** Last known state of every appointment in memory, by id. */
+    private final ConcurrentMap<Long, JournalRecord> appointments = new ConcurrentHashMap<>();
+    private final AtomicReference<LocalDate> keptFrom = new AtomicReference<>(LocalDate.MIN);
+
+    /** First date whose appointments are all in memory; earlier ones were not loaded or have been evicted. */
+    private volatile LocalDate trackedFrom = LocalDate.MAX;
+    private volatile BookingJournal journal;
+    private volatile boolean running;
+
+    public JournaledBookingEngine(AppointmentProjectionRepository repository,
+                                  AppointmentIdGenerator ids,
+                                  DoctorCache doctorCache,
+                                  JournalProjector projector,
+                                  AppointmentsProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.ids = ids;
+        this.doctorCache = doctorCache;
+        this.projector = projector;
+        this.cfg = properties.getJournal();
+        this.meterRegistry = meterRegistry;
+        this.enabled = properties.getBookingMode() == AppointmentsProperties.BookingMode.JOURNAL;
+        this.gridStart = properties.getWorkingHoursStart();
+        Gauge.builder("appointments.journal.appointments", appointments, Map::size)
+                .description("Appointments held in memory by the journal booking engine")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Books the slot starting at start, which must be on the doctor's slot grid.
+     * Slot holds are the caller's business (AppointmentService checks them first).
+     */
+    public Appointment book(Doctor doctor, String patientName, String patientId, LocalDateTime start) {
+        BookingJournal journal = journal();
+        evictPastDays();
+        int minutes = doctor.getPerSlotDurationMinutes();
+        DayBook day = day(doctor.getId(), start.toLocalDate(), minutes);
+        int slot = day.slotOf(start.toLocalTime());
+        if (slot < 0) {
+            throw new InvalidRequestException("startTime must be on the doctor's " + minutes
+                    + "-minute slot grid (counted from " + gridStart + ").");
+        }
+        if (!day.tryClaim(slot)) {
+            throw new SlotAlreadyBookedException("Requested slot is already booked.");
+        }
+        JournalRecord record;
+        BookingJournal.Appended appended;
+        try {
+            long id = day.appointmentId(slot);
+            record = new JournalRecord(AppointmentChangedEvent.Type.BOOKED, id != 0 ? id : ids.next(), doctor.getId(),
+                    start, start.plusMinutes(minutes), patientName, patientId, Instant.now());
+            appended = append(journal, record);
+        } catch (RuntimeException e) {
+            day.release(slot);
+            throw e;
+        }
+        appointments.put(record.appointmentId(), record);
+        day.setAppointmentId(slot, record.appointmentId());
+        projector.enqueue(record, appended.segment());
+        awaitDurable(journal, appended);
+        return toAppointment(record, doctor);
+    }
+
+    public Appointment cancel(Long appointmentId) {
+        BookingJournal journal = journal();
+        while (true) {
+            JournalRecord current = appointments.get(appointmentId);
+            if (current == null) {
+                // Ended before today's start, so not loaded; the database has its final state
+                JournalRecord stored = repository.findById(appointmentId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Appointment not found: " + appointmentId));
+                appointments.putIfAbsent(appointmentId, stored);
+                continue;
+            }
+            JournalRecord cancelled = current.cancelled(Instant.now());
+            if (!appointments.replace(appointmentId, current, cancelled)) {
+                continue;
+            }
+            BookingJournal.Appended appended;
+            try {
+                appended = append(journal, cancelled);
+            } catch (RuntimeException e) {
+                appointments.replace(appointmentId, cancelled, current);
+                throw e;
+            }
+            // Projected before the slot can be booked again, so the rows see the two changes in order
+            projector.enqueue(cancelled, appended.segment());
+            if (current.type() == AppointmentChangedEvent.Type.BOOKED) {
+                freeSlot(current);
+            }
+            awaitDurable(journal, appended);
+            return toAppointment(cancelled, doctor(cancelled.doctorId()));
+        }
+    }
+
+    /**
+     * Marks the doctor's booked slots of the date on day, read from the slot bits rather than the appointments table,
+     * which trails them by the projection lag. False, with day untouched, when this engine is not running or does not
+     * track the date (it is before the engine's first day); the appointments table is then the source.
+     */
+    public boolean markBooked(Long doctorId, LocalDate date, DaySlots.Builder day) {
+        if (!tracks(date)) {
+            return false;
+        }
+        DayBook book = days.get(new DayKey(doctorId, date));
+        if (book != null) {
+            for (int slot = book.nextBooked(0); slot >= 0; slot = book.nextBooked(slot + 1)) {
+                LocalDateTime start = date.atTime(book.slotStart(slot));
+                day.busy(start, start.plusMinutes(book.slotMinutes));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * True when every appointment of the date (and of any later date) is in memory, i.e. the engine is running and
+     * the date is not before its first day.
+     */
+    public boolean tracks(LocalDate date) {
+        return journal != null && !date.isBefore(trackedFrom);
+    }
+
+    /**
+     * The appointment as this engine knows it, which may be ahead of its row.
+     */
+    public Optional<Appointment> find(Long appointmentId) {
+        JournalRecord record = appointments.get(appointmentId);
+        return record == null ? Optional.empty() : Optional.of(toAppointment(record, doctor(record.doctorId())));
+    }
+
+    @Override
+    public synchronized void start() {
+        if (enabled && journal == null) {
+            recover();
+        }
+        running = true;
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        BookingJournal open = journal;
+        if (open == null) {
+            return;
+        }
+        journal = null;
+        // Projects what is queued, so a clean restart has nothing to recover
+        projector.stop();
+        open.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before the web server and stops after it, so no request arrives before the state is rebuilt
+     * or after the journal is closed.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void recover() {
+        trackedFrom = LocalDate.now();
+        for (JournalRecord r : repository.findEndingAfter(LocalDate.now().atStartOfDay())) {
+            appointments.put(r.appointmentId(), r);
+        }
+        BookingJournal opened = new BookingJournal(cfg.getDirectory(), (int) cfg.getSegmentSize().toBytes(), meterRegistry);
+        List<JournalRecord> recovered = opened.recover();
+        for (JournalRecord r : recovered) {
+            appointments.put(r.appointmentId(), r);
+        }
+        // Bits are set from final states only, so the order rows and records were read in does not matter
+        appointments.values().forEach(this::occupy);
+        if (!recovered.isEmpty()) {
+            projector.project(recovered);
+            log.info("Projected {} journal records left by the previous run", recovered.size());
+        }
+        opened.open(cfg.getFlushInterval());
+        projector.start(opened);
+        journal = opened;
+        log.info("Journal booking engine started with {} appointments over {} doctor days", appointments.size(), days.size());
+    }
+
+    private void occupy(JournalRecord r) {
+        Optional<Doctor> doctor = doctorCache.findById(r.doctorId());
+        if (doctor.isEmpty()) {
+            log.warn("Appointment {} belongs to unknown doctor {}; its slot is not tracked", r.appointmentId(), r.doctorId());
+            return;
+        }
+        int minutes = doctor.get().getPerSlotDurationMinutes();
+        boolean booked = r.type() == AppointmentChangedEvent.Type.BOOKED;
+        DayBook day = day(r.doctorId(), r.startTime().toLocalDate(), minutes);
+        int slot = day.slotOf(r.startTime().toLocalTime());
+        if (slot >= 0 && r.endTime().equals(r.startTime().plusMinutes(minutes))) {
+            if (booked) {
+                day.tryClaim(slot);
+                day.setAppointmentId(slot, r.appointmentId());
+            } else if (day.appointmentId(slot) == 0) {
+                day.setAppointmentId(slot, r.appointmentId());
+            }
+            return;
+        }
+        if (!booked) {
+            return;
+        }
+        // Off the grid: block every slot the appointment touches, on every date it touches
+        for (LocalDate date = r.startTime().toLocalDate(); !date.isAfter(r.endTime().minusNanos(1).toLocalDate()); date = date.plusDays(1)) {
+            int from = date.equals(r.startTime().toLocalDate()) ? r.startTime().toLocalTime().toSecondOfDay() : 0;
+            int to = date.equals(r.endTime().toLocalDate()) ? r.endTime().toLocalTime().toSecondOfDay() : MINUTES_PER_DAY * 60;
+            day(r.doctorId(), date, minutes).occupy(from, to);
+        }
+    }
+
+    private void freeSlot(JournalRecord r) {
+        DayBook day = days.get(new DayKey(r.doctorId(), r.startTime().toLocalDate()));
+        if (day == null) {
+            return;
+        }
+        int slot = day.slotOf(r.startTime().toLocalTime());
+        if (slot >= 0 && day.appointmentId(slot) == r.appointmentId()) {
+            day.release(slot);
+        }
+    }
+
+    /**
+     * Once a day, drops the days and appointments that ended before yesterday; their rows were projected long ago.
+     */
+    private void evictPastDays() {
+        LocalDate cutoff = LocalDate.now().minusDays(1);
+        LocalDate kept = keptFrom.get();
+        if (kept.isBefore(cutoff) && keptFrom.compareAndSet(kept, cutoff)) {
+            if (trackedFrom.isBefore(cutoff)) {
+                trackedFrom = cutoff;
+            }
+            days.keySet().removeIf(k -> k.date().isBefore(cutoff));
+            LocalDateTime start = cutoff.atStartOfDay();
+            appointments.values().removeIf(r -> r.endTime().isBefore(start));
+        }
+    }
+
+    /**
+     * Journals the record once room for it is reserved in the projection queue, so enqueueing it never blocks;
+     * a full queue fails the request (ServiceBusyException) before anything is written.
+     */
+    private BookingJournal.Appended append(BookingJournal journal, JournalRecord record) {
+        projector.reserve();
+        try {
+            return journal.append(record);
+        } catch (RuntimeException e) {
+            projector.unreserve();
+            throw e;
+        }
+    }
+
+    private void awaitDurable(BookingJournal journal, BookingJournal.Appended appended) {
+        if (cfg.isAwaitFlush()) {
+            journal.awaitDurable(appended.position());
+        }
+    }
+
+    private BookingJournal journal() {
+        BookingJournal open = journal;
+        if (open == null) {
+            throw new IllegalStateException("Journal booking engine is not running (appointments.bookingMode is not JOURNAL)");
+        }
+        return open;
+    }
+
+    private DayBook day(Long doctorId, LocalDate date, int slotMinutes) {
+        return days.computeIfAbsent(new DayKey(doctorId, date), k -> new DayBook(gridStart, slotMinutes));
+    }
+
+    private Doctor doctor(long doctorId) {
+        return doctorCache.findById(doctorId)
+                .orElseThrow(() -> new ResourceNotFoundException("Doctor not found: " + doctorId));
+    }
+
+    private static Appointment toAppointment(JournalRecord r, Doctor doctor) {
+        Appointment a = new Appointment(doctor, r.patientName(), r.startTime(), r.endTime());
+        a.setId(r.appointmentId());
+        a.setPatientId(r.patientId());
+        a.setStatus(r.status());
+        return a;
+    }
+
+    private record DayKey(Long doctorId, LocalDate date) {
+    }
+
+    /**
+     * One doctor's day: a bit per slot (set = booked) and the id of the row last used for each slot.
+     * Slot i starts firstMinute + i * slotMinutes after midnight, where firstMinute puts the working-day start on the grid.
+     */
+    static final class DayBook {
+
+        private final int firstMinute;
+        private final int slotMinutes;
+        private final int slotCount;
+        private final AtomicLongArray words;
+        private final AtomicLongArray appointmentIds;
+
+        DayBook(LocalTime gridStart, int slotMinutes) {
+            this.slotMinutes = slotMinutes;
+            this.firstMinute = (gridStart.getHour() * 60 + gridStart.getMinute()) % slotMinutes;
+            this.slotCount = (MINUTES_PER_DAY - firstMinute) / slotMinutes;
+            this.words = new AtomicLongArray((slotCount + 63) / 64);
+            this.appointmentIds = new AtomicLongArray(slotCount);
+        }
+
+        /**
+         * The slot starting exactly at time, or -1 when time is not on the grid.
+         */
+        int slotOf(LocalTime time) {
+            if (time.getSecond() != 0 || time.getNano() != 0) {
+                return -1;
+            }
+            int offset = time.getHour() * 60 + time.getMinute() - firstMinute;
+            if (offset < 0 || offset % slotMinutes != 0 || offset / slotMinutes >= slotCount) {
+                return -1;
+            }
+            return offset / slotMinutes;
+        }
+
+        /**
+         * Sets the slot's bit unless it is already set; true for exactly one of any number of concurrent callers.
+         */
+        boolean tryClaim(int slot) {
+            int word = slot >>> 6;
+            long bit = 1L << slot;
+            while (true) {
+                long current = words.get(word);
+                if ((current & bit) != 0) {
+                    return false;
+                }
+                if (words.compareAndSet(word, current, current | bit)) {
+                    return true;
+                }
+            }
+        }
+
+        void release(int slot) {
+            words.getAndAccumulate(slot >>> 6, ~(1L << slot), (current, mask) -> current & mask);
+        }
+
+        boolean isBooked(int slot) {
+            return (words.get(slot >>> 6) & (1L << slot)) != 0;
+        }
+
+        /**
+         * The first booked slot at or after fromSlot, or -1.
+         */
+        int nextBooked(int fromSlot) {
+            for (int word = fromSlot >>> 6; fromSlot < slotCount && word < words.length(); word++) {
+                long bits = words.get(word) & (-1L << fromSlot);
+                if (bits != 0) {
+                    int slot = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    return slot < slotCount ? slot : -1;
+                }
+                fromSlot = (word + 1) << 6;
+            }
+            return -1;
+        }
+
+        LocalTime slotStart(int slot) {
+            return LocalTime.ofSecondOfDay((firstMinute + (long) slot * slotMinutes) * 60);
+        }
+
+        /**
+         * Sets the bit of every slot overlapping [fromSecond, toSecond) of the day.
+         */
+        void occupy(int fromSecond, int toSecond) {
+            int slotSeconds = slotMinutes * 60;
+            int base = firstMinute * 60;
+            int first = Math.max(0, Math.floorDiv(fromSecond - base, slotSeconds));
+            int last = Math.min(slotCount - 1, Math.floorDiv(toSecond - base - 1, slotSeconds));
+            for (int slot = first; slot <= last; slot++) {
+                words.getAndAccumulate(slot >>> 6, 1L << slot, (current, bit) -> current | bit);
+            }
+        }
+
+        long appointmentId(int slot) {
+            return appointmentIds.get(slot);
+        }
+
+        void setAppointmentId(int slot, long id) {
+            appointmentIds.set(slot, id);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.appointments.outbox;
+
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.event.AppointmentChangedEvent;
+import com.example.appointments.repository.OutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes every appointment change to appointment_outbox in the transaction that made it, so downstream systems
+ * (reminders, billing) hear about exactly the bookings and cancellations that committed.
+ * <p>
+ * Listens synchronously, while the transaction is still open: a transaction's changes are collected and inserted
+ * with one JDBC batch just before it commits (a batch booking costs one round trip, not one per appointment).
+ * Delivery is left to OutboxRelay, which is woken once the transaction has committed.
+ * <p>
+ * In JOURNAL booking mode a change is published before it is in the database, so the event is ignored here and
+ * JournalProjector records it from the transaction that writes the row.
+ */
+@Component
+public class AppointmentOutbox {
+
+    private final OutboxRepository repository;
+    private final OutboxRelay relay;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final boolean journaled;
+
+    public AppointmentOutbox(OutboxRepository repository,
+                             OutboxRelay relay,
+                             ObjectMapper objectMapper,
+                             AppointmentsProperties properties) {
+        this.repository = repository;
+        this.relay = relay;
+        this.objectMapper = objectMapper;
+        this.enabled = properties.getOutbox().isEnabled();
+        this.journaled = properties.getBookingMode() == AppointmentsProperties.BookingMode.JOURNAL;
+    }
+
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        if (!journaled) {
+            record(event);
+        }
+    }
+
+    /**
+     * Adds the change to the current transaction's outbox rows, or inserts it right away when there is no transaction.
+     */
+    public void record(AppointmentChangedEvent event) {
+        if (!enabled || event.getAppointmentId() == null) {
+            return;
+        }
+        OutboxMessage message = new OutboxMessage(null, event.getAppointmentId(), event.getType().name(),
+                payload(event), event.getOccurredAt());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            repository.insertAll(List.of(message));
+            relay.wakeUp();
+            return;
+        }
+        pending().messages.add(message);
+    }
+
+    private PendingMessages pending() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingMessages pending) {
+                return pending;
+            }
+        }
+        PendingMessages pending = new PendingMessages();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private String payload(AppointmentChangedEvent event) {
+        try {
+            return objectMapper.writeValueAsString(new Payload(event.getType().name(), event.getAppointmentId(),
+                    event.getDoctorId(), event.getPatientName(), event.getPatientId(), event.getStartTime(),
+                    event.getEndTime(), event.getOccurredAt()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize outbox payload for appointment " + event.getAppointmentId(), e);
+        }
+    }
+
+    /**
+     * The message body downstream systems see.
+     */
+    record Payload(String type,
+                   Long appointmentId,
+                   Long doctorId,
+                   String patientName,
+                   String patientId,
+                   LocalDateTime startTime,
+                   LocalDateTime endTime,
+                   Instant occurredAt) {
+    }
+
+    /**
+     * One transaction's outbox rows, written before it commits.
+     */
+    private final class PendingMessages implements TransactionSynchronization {
+
+        private final List<OutboxMessage> messages = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            repository.insertAll(messages);
+        }
+
+        @Override
+        public void afterCommit() {
+            relay.wakeUp();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.appointments.outbox;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends each message as one JSON line ({"id":..,"type":..,"appointmentId":..,"createdAt":..,"payload":{..}})
+ * to a local file, forced to disk before the batch counts as delivered. For development, tests and
+ * file-based integrations (a log shipper tailing the file).
+ */
+public class FileOutboxSink implements OutboxSink {
+
+    private final Path file;
+
+    public FileOutboxSink(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public synchronized void deliver(List<OutboxMessage> messages) {
+        StringBuilder lines = new StringBuilder(messages.size() * 256);
+        for (OutboxMessage m : messages) {
+            lines.append("{\"id\":").append(m.id())
+                    .append(",\"type\":\"").append(m.eventType())
+                    .append("\",\"appointmentId\":").append(m.appointmentId())
+                    .append(",\"createdAt\":\"").append(m.createdAt())
+                    .append("\",\"payload\":").append(m.payload())
+                    .append("}\n");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append outbox messages to " + file, e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.appointments.outbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Logs each message's id, type and appointment, for trying the outbox out before a real downstream sink exists.
+ * The payload is not logged: it holds the patient's name and id.
+ */
+public class LoggingOutboxSink implements OutboxSink {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggingOutboxSink.class);
+
+    @Override
+    public void deliver(List<OutboxMessage> messages) {
+        for (OutboxMessage m : messages) {
+            log.info("Outbox message {} ({} appointment {})", m.id(), m.eventType(), m.appointmentId());
+        }
+    }
+}
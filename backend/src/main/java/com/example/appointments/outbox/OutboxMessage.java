@@ -0,0 +1,13 @@
+package com.example.appointments.outbox;
+
+import java.time.Instant;
+
+/**
+ * One appointment_outbox row. id is null until the row has been inserted.
+ *
+ * @param eventType AppointmentChangedEvent.Type name
+ * @param payload   the change as JSON (see AppointmentOutbox)
+ * @param createdAt when the change happened
+ */
+public record OutboxMessage(Long id, Long appointmentId, String eventType, String payload, Instant createdAt) {
+}
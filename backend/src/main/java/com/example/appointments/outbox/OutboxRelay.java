@@ -0,0 +1,169 @@
+package com.example.appointments.outbox;
+
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.repository.OutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves appointment_outbox rows to the OutboxSink on a background thread, off every booking's request path.
+ * <p>
+ * Each round is one transaction: claim up to appointments.outbox.batchSize of the oldest rows with
+ * FOR UPDATE SKIP LOCKED, deliver them, delete them. Instances sharing a database therefore split the table between
+ * their relays instead of blocking on each other, and a failed delivery rolls back so the rows are claimed again
+ * after appointments.outbox.retryDelay. The relay runs back to back while it finds full batches, then sleeps until
+ * a local commit wakes it or appointments.outbox.pollInterval passes.
+ * <p>
+ * Meters: appointments.outbox.delivered, appointments.outbox.delivery.failures and appointments.outbox.lag
+ * (time from the change to its delivery).
+ */
+@Component
+public class OutboxRelay implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final Duration STOP_TIMEOUT = Duration.ofSeconds(10);
+
+    private final OutboxRepository repository;
+    private final OutboxSink sink;
+    private final TransactionOperations transactionOperations;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration retryDelay;
+    private final Semaphore wakeUps = new Semaphore(0);
+    private final Counter delivered;
+    private final Counter failures;
+    private final Timer lag;
+
+    private volatile boolean running;
+    private Thread relay;
+
+    public OutboxRelay(OutboxRepository repository,
+                       OutboxSink sink,
+                       TransactionOperations transactionOperations,
+                       AppointmentsProperties properties,
+                       MeterRegistry meterRegistry) {
+        AppointmentsProperties.Outbox cfg = properties.getOutbox();
+        this.repository = repository;
+        this.sink = sink;
+        this.transactionOperations = transactionOperations;
+        this.enabled = cfg.isEnabled();
+        this.batchSize = cfg.getBatchSize();
+        this.pollInterval = cfg.getPollInterval();
+        this.retryDelay = cfg.getRetryDelay();
+        this.delivered = Counter.builder("appointments.outbox.delivered")
+                .description("Outbox messages delivered to the sink")
+                .register(meterRegistry);
+        this.failures = Counter.builder("appointments.outbox.delivery.failures")
+                .description("Outbox batches whose delivery failed and will be retried")
+                .register(meterRegistry);
+        this.lag = Timer.builder("appointments.outbox.lag")
+                .description("Time from an appointment change to its delivery from the outbox")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Asks the relay to look for rows now rather than at its next poll.
+     */
+    public void wakeUp() {
+        if (wakeUps.availablePermits() == 0) {
+            wakeUps.release();
+        }
+    }
+
+    /**
+     * Claims, delivers and deletes one batch.
+     *
+     * @return the number of messages delivered
+     */
+    int relayBatch() {
+        List<OutboxMessage> batch = transactionOperations.execute(status -> {
+            List<OutboxMessage> claimed = repository.claim(batchSize);
+            if (!claimed.isEmpty()) {
+                sink.deliver(claimed);
+                repository.deleteAll(claimed);
+            }
+            return claimed;
+        });
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+        Instant now = Instant.now();
+        for (OutboxMessage message : batch) {
+            lag.record(Duration.between(message.createdAt(), now));
+        }
+        delivered.increment(batch.size());
+        return batch.size();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (relayBatch() >= batchSize) {
+                    // Probably more waiting
+                    continue;
+                }
+                wakeUps.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                wakeUps.drainPermits();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.warn("Outbox delivery failed; retrying in {}", retryDelay, e);
+                try {
+                    Thread.sleep(retryDelay.toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        if (!enabled) {
+            return;
+        }
+        relay = new Thread(this::run, "outbox-relay");
+        relay.setDaemon(true);
+        relay.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (relay == null) {
+            return;
+        }
+        wakeUp();
+        try {
+            relay.join(STOP_TIMEOUT.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (relay.isAlive()) {
+            relay.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
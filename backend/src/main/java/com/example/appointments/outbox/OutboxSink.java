@@ -0,0 +1,16 @@
+package com.example.appointments.outbox;
+
+import java.util.List;
+
+/**
+ * Downstream destination of the appointment outbox (a message broker, an SMS or billing service, ...).
+ * <p>
+ * Define a bean of this type to replace the configured one (appointments.outbox.sink).
+ * deliver is called by the relay with the claimed rows still locked: returning normally deletes them, throwing
+ * leaves them to be delivered again. Delivery is therefore at-least-once, in id order per batch, and sinks should
+ * de-duplicate on OutboxMessage.id.
+ */
+public interface OutboxSink {
+
+    void deliver(List<OutboxMessage> messages);
+}
@@ -0,0 +1,72 @@
+package com.example.appointments.repository;
+
+import com.example.appointments.event.AppointmentChangedEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Plain JDBC access to the append-only appointment_events table: there is nothing to manage as an entity,
+ * and batched inserts go straight to JdbcTemplate.batchUpdate.
+ */
+@Repository
+public class AppointmentEventRepository {
+
+    private static final String INSERT = """
+            INSERT INTO appointment_events
+                (appointment_id, doctor_id, event_type, patient_name, patient_id, start_time, end_time, occurred_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String FIND_BY_APPOINTMENT = """
+            SELECT id, appointment_id, doctor_id, event_type, patient_name, patient_id, start_time, end_time, occurred_at
+            FROM appointment_events
+            WHERE appointment_id = ?
+            ORDER BY id
+            """;
+
+    private static final RowMapper<AppointmentEventView> ROW_MAPPER = (rs, rowNum) -> new AppointmentEventView(
+            rs.getLong("id"),
+            rs.getLong("appointment_id"),
+            rs.getLong("doctor_id"),
+            AppointmentChangedEvent.Type.valueOf(rs.getString("event_type")),
+            rs.getString("patient_name"),
+            rs.getString("patient_id"),
+            rs.getTimestamp("start_time").toLocalDateTime(),
+            rs.getTimestamp("end_time").toLocalDateTime(),
+            rs.getTimestamp("occurred_at").toLocalDateTime().toInstant(ZoneOffset.UTC));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AppointmentEventRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Appends the events with one JDBC batch; occurred_at is stored as UTC.
+     */
+    public void insertAll(List<AppointmentChangedEvent> events) {
+        jdbcTemplate.batchUpdate(INSERT, events, events.size(), (ps, e) -> {
+            ps.setLong(1, e.getAppointmentId());
+            ps.setLong(2, e.getDoctorId());
+            ps.setString(3, e.getType().name());
+            ps.setString(4, e.getPatientName());
+            ps.setString(5, e.getPatientId());
+            ps.setTimestamp(6, Timestamp.valueOf(e.getStartTime()));
+            ps.setTimestamp(7, Timestamp.valueOf(e.getEndTime()));
+            ps.setTimestamp(8, Timestamp.valueOf(LocalDateTime.ofInstant(e.getOccurredAt(), ZoneOffset.UTC)));
+        });
+    }
+
+    /**
+     * The appointment's events, oldest first.
+     */
+    public List<AppointmentEventView> findByAppointmentId(Long appointmentId) {
+        return jdbcTemplate.query(FIND_BY_APPOINTMENT, ROW_MAPPER, appointmentId);
+    }
+}
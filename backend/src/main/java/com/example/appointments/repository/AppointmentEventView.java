@@ -0,0 +1,20 @@
+package com.example.appointments.repository;
+
+import com.example.appointments.event.AppointmentChangedEvent;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * One row of the appointment_events log.
+ */
+public record AppointmentEventView(Long id,
+                                   Long appointmentId,
+                                   Long doctorId,
+                                   AppointmentChangedEvent.Type type,
+                                   String patientName,
+                                   String patientId,
+                                   LocalDateTime startTime,
+                                   LocalDateTime endTime,
+                                   Instant occurredAt) {
+}
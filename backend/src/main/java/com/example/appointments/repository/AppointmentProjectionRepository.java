@@ -0,0 +1,123 @@
+package com.example.appointments.repository;
+
+import com.example.appointments.entity.AppointmentStatus;
+import com.example.appointments.event.AppointmentChangedEvent;
+import com.example.appointments.journal.JournalRecord;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Plain JDBC writes of journaled appointments (JOURNAL booking mode) into the appointments table.
+ * The rows already have their ids (see AppointmentIdGenerator) and their final state, so there is nothing for the
+ * EntityManager to do: a projection is one id lookup plus one batched UPDATE and one batched INSERT.
+ */
+@Repository
+public class AppointmentProjectionRepository {
+
+    // Keeps @Version meaningful for JPA writes made after switching back to another booking mode
+    private static final String UPDATE = """
+            UPDATE appointments
+            SET patient_name = ?, patient_id = ?, start_time = ?, end_time = ?, status = ?, version = version + 1
+            WHERE id = ?
+            """;
+
+    private static final String INSERT = """
+            INSERT INTO appointments (patient_name, patient_id, start_time, end_time, status, id, doctor_id, version)
+            VALUES (?, ?, ?, ?, ?, ?, ?, 0)
+            """;
+
+    private static final String FIND_ENDING_AFTER = """
+            SELECT id, doctor_id, patient_name, patient_id, start_time, end_time, status
+            FROM appointments
+            WHERE end_time > ?
+            """;
+
+    private static final String FIND_BY_ID = """
+            SELECT id, doctor_id, patient_name, patient_id, start_time, end_time, status
+            FROM appointments
+            WHERE id = ?
+            """;
+
+    private static final RowMapper<JournalRecord> ROW_MAPPER = (rs, rowNum) -> new JournalRecord(
+            AppointmentStatus.valueOf(rs.getString("status")) == AppointmentStatus.CONFIRMED
+                    ? AppointmentChangedEvent.Type.BOOKED
+                    : AppointmentChangedEvent.Type.CANCELLED,
+            rs.getLong("id"),
+            rs.getLong("doctor_id"),
+            rs.getTimestamp("start_time").toLocalDateTime(),
+            rs.getTimestamp("end_time").toLocalDateTime(),
+            rs.getString("patient_name"),
+            rs.getString("patient_id"),
+            null);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AppointmentProjectionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Writes each record's appointment as the record describes it, updating rows that exist and inserting the rest.
+     * At most one record per appointment; must run in a transaction.
+     */
+    public void upsertAll(Collection<JournalRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        Set<Long> existing = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM appointments WHERE id IN (" + String.join(", ", Collections.nCopies(records.size(), "?")) + ")",
+                Long.class,
+                records.stream().map(JournalRecord::appointmentId).toArray()));
+        List<JournalRecord> updates = new ArrayList<>(existing.size());
+        List<JournalRecord> inserts = new ArrayList<>(records.size() - existing.size());
+        for (JournalRecord r : records) {
+            (existing.contains(r.appointmentId()) ? updates : inserts).add(r);
+        }
+        // Both statements take the row's columns first and the id after them
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE, updates, updates.size(), (ps, r) -> {
+                setColumns(ps, r);
+                ps.setLong(6, r.appointmentId());
+            });
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT, inserts, inserts.size(), (ps, r) -> {
+                setColumns(ps, r);
+                ps.setLong(6, r.appointmentId());
+                ps.setLong(7, r.doctorId());
+            });
+        }
+    }
+
+    /**
+     * Current state of every appointment ending after the given time, for rebuilding the in-memory booking state.
+     */
+    public List<JournalRecord> findEndingAfter(LocalDateTime time) {
+        return jdbcTemplate.query(FIND_ENDING_AFTER, ROW_MAPPER, Timestamp.valueOf(time));
+    }
+
+    public Optional<JournalRecord> findById(long id) {
+        return jdbcTemplate.query(FIND_BY_ID, ROW_MAPPER, id).stream().findFirst();
+    }
+
+    private static void setColumns(PreparedStatement ps, JournalRecord r) throws SQLException {
+        ps.setString(1, r.patientName());
+        ps.setString(2, r.patientId());
+        ps.setTimestamp(3, Timestamp.valueOf(r.startTime()));
+        ps.setTimestamp(4, Timestamp.valueOf(r.endTime()));
+        ps.setString(5, r.status().name());
+    }
+}
@@ -3,13 +3,18 @@ package com.example.appointments.repository;
 import com.example.appointments.entity.Appointment;
 import com.example.appointments.entity.AppointmentStatus;
 import com.example.appointments.entity.Doctor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+public interface AppointmentRepository extends JpaRepository<Appointment, Long>, AppointmentRepositoryCustom {
 
     List<Appointment> findByDoctorAndStatusAndStartTimeBetween(
         Doctor doctor,
@@ -18,19 +23,126 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
         LocalDateTime endInclusive
     );
 
+    @Query("""
+        select count(a) > 0 from Appointment a
+        where a.doctor = :doctor
+          and a.status = :status
+          and a.startTime < :endExclusive
+          and a.endTime > :startExclusive
+        """)
     boolean existsByDoctorAndStatusAndStartTimeLessThanAndEndTimeGreater(
-        Doctor doctor,
-        AppointmentStatus status,
-        LocalDateTime endExclusive,
-        LocalDateTime startExclusive
+        @Param("doctor") Doctor doctor,
+        @Param("status") AppointmentStatus status,
+        @Param("endExclusive") LocalDateTime endExclusive,
+        @Param("startExclusive") LocalDateTime startExclusive
     );
 
     Optional<Appointment> findByDoctorAndStartTime(Doctor doctor, LocalDateTime startTime);
 
+    @Query("""
+        select a from Appointment a
+        where a.doctor = :doctor
+          and a.status = :status
+          and a.endTime > :startExclusive
+          and a.startTime < :endExclusive
+        """)
     List<Appointment> findByDoctorAndStatusAndEndTimeGreaterAndStartTimeLess(
+        @Param("doctor") Doctor doctor,
+        @Param("status") AppointmentStatus status,
+        @Param("startExclusive") LocalDateTime startExclusive,
+        @Param("endExclusive") LocalDateTime endExclusive
+    );
+
+    /**
+     * All rows (any status) of a doctor overlapping [startExclusive, endExclusive); used by batch booking
+     * to check conflicts and find reusable CANCELLED rows with one query per doctor.
+     */
+    List<Appointment> findByDoctorAndEndTimeGreaterThanAndStartTimeLessThan(
         Doctor doctor,
-        AppointmentStatus status,
         LocalDateTime startExclusive,
         LocalDateTime endExclusive
     );
+
+    /**
+     * (start, end) of a doctor's appointments overlapping [startExclusive, endExclusive), sorted by start time.
+     * Projection only: availability needs the intervals, not managed entities.
+     */
+    @Query("""
+        select new com.example.appointments.repository.BusyInterval(a.doctor.id, a.startTime, a.endTime)
+        from Appointment a
+        where a.doctor.id = :doctorId
+          and a.status = :status
+          and a.endTime > :startExclusive
+          and a.startTime < :endExclusive
+        order by a.startTime
+        """)
+    List<BusyInterval> findBusyIntervals(
+        @Param("doctorId") Long doctorId,
+        @Param("status") AppointmentStatus status,
+        @Param("startExclusive") LocalDateTime startExclusive,
+        @Param("endExclusive") LocalDateTime endExclusive
+    );
+
+    /**
+     * Intervals of several doctors overlapping [startExclusive, endExclusive) in one round trip,
+     * ordered by doctor and start time so callers can group and merge them in a single pass.
+     */
+    @Query("""
+        select new com.example.appointments.repository.BusyInterval(a.doctor.id, a.startTime, a.endTime)
+        from Appointment a
+        where a.doctor.id in :doctorIds
+          and a.status = :status
+          and a.endTime > :startExclusive
+          and a.startTime < :endExclusive
+        order by a.doctor.id, a.startTime
+        """)
+    List<BusyInterval> findOverlappingForDoctors(
+        @Param("doctorIds") Collection<Long> doctorIds,
+        @Param("status") AppointmentStatus status,
+        @Param("startExclusive") LocalDateTime startExclusive,
+        @Param("endExclusive") LocalDateTime endExclusive
+    );
+
+    /**
+     * A doctor's appointments (any status) starting in [startInclusive, endExclusive), by start time.
+     * Seeks the unique (doctor_id, start_time) index.
+     */
+    @Query("""
+        select a from Appointment a
+        where a.doctor.id = :doctorId
+          and a.startTime >= :startInclusive
+          and a.startTime < :endExclusive
+        order by a.startTime
+        """)
+    List<Appointment> findDoctorSchedule(
+        @Param("doctorId") Long doctorId,
+        @Param("startInclusive") LocalDateTime startInclusive,
+        @Param("endExclusive") LocalDateTime endExclusive
+    );
+
+    /**
+     * One page of a patient's history, newest first, as projections with the doctor joined in the same statement.
+     * Served by idx_appointments_patient_start.
+     */
+    @Query(value = """
+        select new com.example.appointments.repository.PatientAppointmentView(
+            a.id, d.id, d.name, d.specialization, a.patientName, a.startTime, a.endTime, a.status)
+        from Appointment a join a.doctor d
+        where a.patientId = :patientId
+        order by a.startTime desc, a.id desc
+        """,
+        countQuery = "select count(a) from Appointment a where a.patientId = :patientId")
+    Page<PatientAppointmentView> findPatientHistory(@Param("patientId") String patientId, Pageable pageable);
+
+    /**
+     * Same page as findPatientHistory, but as managed entities with the doctor association fetch-joined,
+     * so reading appointment.getDoctor() costs no extra query.
+     */
+    @Query(value = """
+        select a from Appointment a join fetch a.doctor
+        where a.patientId = :patientId
+        order by a.startTime desc, a.id desc
+        """,
+        countQuery = "select count(a) from Appointment a where a.patientId = :patientId")
+    Page<Appointment> findPatientHistoryWithDoctor(@Param("patientId") String patientId, Pageable pageable);
 }
@@ -0,0 +1,22 @@
+package com.example.appointments.repository;
+
+import com.example.appointments.entity.Appointment;
+import com.example.appointments.entity.Doctor;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Hand-written statements that Spring Data cannot derive; implemented by AppointmentRepositoryImpl.
+ */
+public interface AppointmentRepositoryCustom {
+
+    /**
+     * Books [start, end) for the doctor with one conditional upsert on the unique (doctor_id, start_time) key:
+     * inserts a CONFIRMED row, or flips a CANCELLED row at the same start back to CONFIRMED,
+     * unless any CONFIRMED appointment of the doctor overlaps the interval.
+     *
+     * @return the booked appointment (detached), or empty when the slot is taken
+     */
+    Optional<Appointment> bookIfSlotFree(Doctor doctor, String patientName, String patientId, LocalDateTime start, LocalDateTime end);
+}
@@ -0,0 +1,171 @@
+package com.example.appointments.repository;
+
+import com.example.appointments.entity.Appointment;
+import com.example.appointments.entity.AppointmentStatus;
+import com.example.appointments.entity.Doctor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Dialect-specific single-statement booking. The statement itself decides the outcome:
+ * <ul>
+ *     <li>PostgreSQL: INSERT ... SELECT ... WHERE NOT EXISTS ... ON CONFLICT DO UPDATE ... RETURNING</li>
+ *     <li>MySQL: INSERT ... SELECT ... WHERE NOT EXISTS ... ON DUPLICATE KEY UPDATE (outcome from the affected-row count,
+ *     which requires useAffectedRows=true on the JDBC URL)</li>
+ *     <li>H2: SELECT ... FROM FINAL TABLE (MERGE INTO ... USING ...)</li>
+ * </ul>
+ * The id for a new row is drawn from Hibernate's own pooled appointments_seq generator so it never collides
+ * with ids Hibernate hands out for JPA inserts.
+ */
+public class AppointmentRepositoryImpl implements AppointmentRepositoryCustom {
+
+    // Candidate row exists only when no CONFIRMED appointment of the doctor overlaps [start, end)
+    private static final String NO_OVERLAP = """
+            NOT EXISTS (SELECT 1 FROM appointments o
+                        WHERE o.doctor_id = :doctorId AND o.status = 'CONFIRMED'
+                          AND o.start_time < :endTime AND o.end_time > :startTime)
+            """;
+
+    private static final String POSTGRES_UPSERT = """
+            INSERT INTO appointments (id, doctor_id, patient_name, patient_id, start_time, end_time, status, version)
+            SELECT CAST(:id AS bigint), CAST(:doctorId AS bigint), CAST(:patientName AS varchar),
+                   CAST(:patientId AS varchar),
+                   CAST(:startTime AS timestamp), CAST(:endTime AS timestamp), 'CONFIRMED', 0
+            WHERE\s""" + NO_OVERLAP + """
+            ON CONFLICT (doctor_id, start_time) DO UPDATE
+               SET status = 'CONFIRMED', patient_name = EXCLUDED.patient_name, patient_id = EXCLUDED.patient_id,
+                   end_time = EXCLUDED.end_time, version = appointments.version + 1
+             WHERE appointments.status = 'CANCELLED'
+            RETURNING id, version
+            """;
+
+    // Assignments run left to right, so status must be overwritten last
+    private static final String MYSQL_UPSERT = """
+            INSERT INTO appointments (id, doctor_id, patient_name, patient_id, start_time, end_time, status, version)
+            SELECT * FROM (SELECT :id AS id, :doctorId AS doctor_id, :patientName AS patient_name, :patientId AS patient_id,
+                                  :startTime AS start_time, :endTime AS end_time,
+                                  'CONFIRMED' AS status, 0 AS version) AS s
+            WHERE\s""" + NO_OVERLAP + """
+            ON DUPLICATE KEY UPDATE
+               version = IF(appointments.status = 'CANCELLED', appointments.version + 1, appointments.version),
+               patient_name = IF(appointments.status = 'CANCELLED', s.patient_name, appointments.patient_name),
+               patient_id = IF(appointments.status = 'CANCELLED', s.patient_id, appointments.patient_id),
+               end_time = IF(appointments.status = 'CANCELLED', s.end_time, appointments.end_time),
+               status = 'CONFIRMED'
+            """;
+
+    private static final String H2_MERGE = """
+            SELECT id, version FROM FINAL TABLE (
+              MERGE INTO appointments t
+              USING (SELECT CAST(:id AS BIGINT) AS id, CAST(:doctorId AS BIGINT) AS doctor_id,
+                            CAST(:patientName AS VARCHAR) AS patient_name, CAST(:patientId AS VARCHAR) AS patient_id,
+                            CAST(:startTime AS TIMESTAMP) AS start_time, CAST(:endTime AS TIMESTAMP) AS end_time
+                     WHERE\s""" + NO_OVERLAP + """
+                    ) s
+              ON (t.doctor_id = s.doctor_id AND t.start_time = s.start_time)
+              WHEN MATCHED AND t.status = 'CANCELLED' THEN
+                UPDATE SET status = 'CONFIRMED', patient_name = s.patient_name, patient_id = s.patient_id,
+                           end_time = s.end_time, version = t.version + 1
+              WHEN NOT MATCHED THEN
+                INSERT (id, doctor_id, patient_name, patient_id, start_time, end_time, status, version)
+                VALUES (s.id, s.doctor_id, s.patient_name, s.patient_id, s.start_time, s.end_time, 'CONFIRMED', 0)
+            )
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private volatile DatabaseDriver databaseDriver;
+
+    public AppointmentRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<Appointment> bookIfSlotFree(Doctor doctor, String patientName, String patientId, LocalDateTime start, LocalDateTime end) {
+        // Pending JPA changes must be visible to the native statement
+        entityManager.flush();
+
+        long newId = nextId();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("id", newId)
+                .addValue("doctorId", doctor.getId())
+                .addValue("patientName", patientName)
+                .addValue("patientId", patientId)
+                .addValue("startTime", Timestamp.valueOf(start))
+                .addValue("endTime", Timestamp.valueOf(end));
+
+        Long id;
+        int version;
+        switch (databaseDriver()) {
+            case POSTGRESQL, H2 -> {
+                String sql = databaseDriver() == DatabaseDriver.H2 ? H2_MERGE : POSTGRES_UPSERT;
+                List<long[]> rows = jdbcTemplate.query(sql, params, (rs, n) -> new long[]{rs.getLong(1), rs.getInt(2)});
+                if (rows.isEmpty()) {
+                    return Optional.empty();
+                }
+                id = rows.get(0)[0];
+                version = (int) rows.get(0)[1];
+            }
+            case MYSQL, MARIADB -> {
+                int affected = jdbcTemplate.update(MYSQL_UPSERT, params);
+                if (affected == 0) {
+                    return Optional.empty();
+                }
+                if (affected == 1) {
+                    id = newId;
+                    version = 0;
+                } else {
+                    // 2 = an existing CANCELLED row was reused; MySQL cannot return its id from the same statement
+                    Appointment reused = jdbcTemplate.queryForObject(
+                            "SELECT id, version FROM appointments WHERE doctor_id = :doctorId AND start_time = :startTime",
+                            params, (rs, n) -> toAppointment(rs.getLong(1), rs.getInt(2), doctor, patientName, patientId, start, end));
+                    return Optional.ofNullable(reused);
+                }
+            }
+            default -> throw new IllegalStateException("Single-statement booking is not supported on " + databaseDriver());
+        }
+        return Optional.of(toAppointment(id, version, doctor, patientName, patientId, start, end));
+    }
+
+    private static Appointment toAppointment(Long id, int version, Doctor doctor, String patientName, String patientId,
+                                             LocalDateTime start, LocalDateTime end) {
+        Appointment appt = new Appointment(doctor, patientName, start, end);
+        appt.setPatientId(patientId);
+        appt.setId(id);
+        appt.setVersion(version);
+        appt.setStatus(AppointmentStatus.CONFIRMED);
+        return appt;
+    }
+
+    private long nextId() {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator generator = (IdentifierGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(Appointment.class)
+                .getGenerator();
+        return ((Number) generator.generate(session, null)).longValue();
+    }
+
+    private DatabaseDriver databaseDriver() {
+        DatabaseDriver driver = databaseDriver;
+        if (driver == null) {
+            driver = jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<DatabaseDriver>) con ->
+                    DatabaseDriver.fromProductName(con.getMetaData().getDatabaseProductName()));
+            databaseDriver = driver;
+        }
+        return driver;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.appointments.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only (doctor, start, end) projection of an appointment for availability computation.
+ * Built by JPQL constructor expressions, so no Appointment entities are hydrated or tracked.
+ */
+public record BusyInterval(Long doctorId, LocalDateTime startTime, LocalDateTime endTime) {
+}
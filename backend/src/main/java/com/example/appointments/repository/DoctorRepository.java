@@ -1,10 +1,51 @@
 package com.example.appointments.repository;
 
+import com.example.appointments.config.HibernateCacheConfig;
 import com.example.appointments.entity.Doctor;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
+
+    /**
+     * JDBC fetch size for the streaming queries: rows are pulled from the database in chunks of this size.
+     */
+    String STREAM_FETCH_SIZE = "500";
+
+    /**
+     * Served from the Hibernate query cache when it is enabled; inserts into doctors invalidate it.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = HibernateCacheConfig.DOCTOR_QUERY_REGION)
+    })
     List<Doctor> findBySpecializationIgnoreCase(String specialization);
+
+    /**
+     * Keyset page: the first limit doctors with id > afterId, in id order (index seek on the primary key).
+     */
+    List<Doctor> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    List<Doctor> findBySpecializationIgnoreCaseAndIdGreaterThanOrderByIdAsc(String specialization, Long afterId, Limit limit);
+
+    /**
+     * All doctors in id order, read incrementally; must be consumed (and closed) inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Doctor> streamAllByOrderByIdAsc();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Doctor> streamBySpecializationIgnoreCaseOrderByIdAsc(String specialization);
 }
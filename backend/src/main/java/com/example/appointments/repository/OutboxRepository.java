@@ -0,0 +1,72 @@
+package com.example.appointments.repository;
+
+import com.example.appointments.outbox.OutboxMessage;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Plain JDBC access to appointment_outbox, a queue table: rows are inserted in the transaction of the change
+ * they describe and deleted in the relay transaction that delivered them.
+ */
+@Repository
+public class OutboxRepository {
+
+    private static final String INSERT = """
+            INSERT INTO appointment_outbox (appointment_id, event_type, payload, created_at)
+            VALUES (?, ?, ?, ?)
+            """;
+
+    // Same syntax on PostgreSQL, MySQL 8 and H2. Rows locked by another relay are skipped, not waited for.
+    private static final String CLAIM = """
+            SELECT id, appointment_id, event_type, payload, created_at
+            FROM appointment_outbox
+            ORDER BY id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    private static final String DELETE = "DELETE FROM appointment_outbox WHERE id = ?";
+
+    private static final RowMapper<OutboxMessage> ROW_MAPPER = (rs, rowNum) -> new OutboxMessage(
+            rs.getLong("id"),
+            rs.getLong("appointment_id"),
+            rs.getString("event_type"),
+            rs.getString("payload"),
+            rs.getTimestamp("created_at").toLocalDateTime().toInstant(ZoneOffset.UTC));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OutboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts the messages (ids ignored) with one JDBC batch; created_at is stored as UTC.
+     */
+    public void insertAll(List<OutboxMessage> messages) {
+        jdbcTemplate.batchUpdate(INSERT, messages, messages.size(), (ps, m) -> {
+            ps.setLong(1, m.appointmentId());
+            ps.setString(2, m.eventType());
+            ps.setString(3, m.payload());
+            ps.setTimestamp(4, Timestamp.valueOf(LocalDateTime.ofInstant(m.createdAt(), ZoneOffset.UTC)));
+        });
+    }
+
+    /**
+     * Locks and returns up to limit of the oldest rows not locked by another transaction.
+     * Must run in a transaction, which holds the locks until it ends.
+     */
+    public List<OutboxMessage> claim(int limit) {
+        return jdbcTemplate.query(CLAIM, ROW_MAPPER, limit);
+    }
+
+    public void deleteAll(List<OutboxMessage> messages) {
+        jdbcTemplate.batchUpdate(DELETE, messages, messages.size(), (ps, m) -> ps.setLong(1, m.id()));
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.appointments.repository;
+
+import com.example.appointments.entity.AppointmentStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only row of a patient's appointment history, with the doctor's name and specialization joined in.
+ * Built by a JPQL constructor expression, so neither Appointment nor the lazy Doctor is hydrated per row.
+ */
+public record PatientAppointmentView(Long id,
+                                     Long doctorId,
+                                     String doctorName,
+                                     String doctorSpecialization,
+                                     String patientName,
+                                     LocalDateTime startTime,
+                                     LocalDateTime endTime,
+                                     AppointmentStatus status) {
+}
@@ -0,0 +1,99 @@
+package com.example.appointments.repository;
+
+import com.example.appointments.cache.SlotHolds;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Plain JDBC access to slot_holds. Every query takes the current time and ignores rows that expired before it;
+ * expires_at is stored as UTC.
+ */
+@Repository
+public class SlotHoldRepository {
+
+    private static final String COLUMNS = "id, doctor_id, start_time, end_time, expires_at";
+
+    private static final String INSERT = """
+            INSERT INTO slot_holds (id, doctor_id, start_time, end_time, expires_at)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    // Same syntax on PostgreSQL, MySQL 8 and H2
+    private static final String LOCK_DOCTOR = "SELECT id FROM doctors WHERE id = ? FOR UPDATE";
+
+    private static final RowMapper<SlotHolds.Hold> ROW_MAPPER = (rs, rowNum) -> new SlotHolds.Hold(
+            rs.getString("id"),
+            rs.getLong("doctor_id"),
+            rs.getTimestamp("start_time").toLocalDateTime(),
+            rs.getTimestamp("end_time").toLocalDateTime(),
+            rs.getTimestamp("expires_at").toLocalDateTime().toInstant(ZoneOffset.UTC));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SlotHoldRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Locks the doctor's row until the transaction ends, so hold placements for one doctor run one at a time
+     * on every instance. Must run in a transaction.
+     *
+     * @return whether the doctor exists
+     */
+    public boolean lockDoctor(Long doctorId) {
+        return !jdbcTemplate.queryForList(LOCK_DOCTOR, Long.class, doctorId).isEmpty();
+    }
+
+    public void insert(SlotHolds.Hold hold) {
+        jdbcTemplate.update(INSERT, hold.id(), hold.doctorId(), Timestamp.valueOf(hold.startTime()),
+                Timestamp.valueOf(hold.endTime()), utc(hold.expiresAt()));
+    }
+
+    public Optional<SlotHolds.Hold> findLive(String id, Instant now) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM slot_holds WHERE id = ? AND expires_at > ?",
+                ROW_MAPPER, id, utc(now)).stream().findFirst();
+    }
+
+    /**
+     * Live holds of the doctor, by start time.
+     */
+    public List<SlotHolds.Hold> findLiveByDoctor(Long doctorId, Instant now) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM slot_holds WHERE doctor_id = ? AND expires_at > ? ORDER BY start_time",
+                ROW_MAPPER, doctorId, utc(now));
+    }
+
+    /**
+     * Live holds of the doctor overlapping [from, to), by start time.
+     */
+    public List<SlotHolds.Hold> findLiveOverlapping(Long doctorId, LocalDateTime from, LocalDateTime to, Instant now) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM slot_holds"
+                        + " WHERE doctor_id = ? AND start_time < ? AND end_time > ? AND expires_at > ? ORDER BY start_time",
+                ROW_MAPPER, doctorId, Timestamp.valueOf(to), Timestamp.valueOf(from), utc(now));
+    }
+
+    /**
+     * @return whether a row was deleted
+     */
+    public boolean delete(String id) {
+        return jdbcTemplate.update("DELETE FROM slot_holds WHERE id = ?", id) > 0;
+    }
+
+    /**
+     * @return the number of the doctor's expired rows deleted
+     */
+    public int deleteExpired(Long doctorId, Instant now) {
+        return jdbcTemplate.update("DELETE FROM slot_holds WHERE doctor_id = ? AND expires_at <= ?", doctorId, utc(now));
+    }
+
+    private static Timestamp utc(Instant instant) {
+        return Timestamp.valueOf(LocalDateTime.ofInstant(instant, ZoneOffset.UTC));
+    }
+}
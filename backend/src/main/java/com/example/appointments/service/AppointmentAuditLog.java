@@ -0,0 +1,216 @@
+package com.example.appointments.service;
+
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.event.AppointmentChangedEvent;
+import com.example.appointments.repository.AppointmentEventRepository;
+import com.example.appointments.repository.AppointmentEventView;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only history of appointment state changes in appointment_events, for audit and reporting queries that
+ * should not touch the live appointments table.
+ * <p>
+ * Every committed AppointmentChangedEvent (single and batch bookings, cancellations) is put on a bounded queue;
+ * one writer thread drains it and inserts up to appointments.audit.batchSize events per transaction, waiting at most
+ * appointments.audit.maxBatchDelay for a batch to fill. Booking threads only pay for the enqueue. When the queue is full
+ * they wait up to appointments.audit.enqueueTimeout for room and then drop the event, so a database outage cannot
+ * stall bookings. A failed batch, whatever the exception, is retried until it is written or the application stops.
+ * <p>
+ * Events still queued when the process dies are lost: this is a write-behind log, not part of the booking transaction.
+ * <p>
+ * Meters: appointments.audit.queue.size (gauge), appointments.audit.events.written, appointments.audit.queue.full
+ * (enqueues that had to wait), appointments.audit.events.dropped and appointments.audit.batch.size.
+ */
+@Service
+public class AppointmentAuditLog implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentAuditLog.class);
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+    private static final Duration STOP_TIMEOUT = Duration.ofSeconds(10);
+
+    private final AppointmentEventRepository repository;
+    private final TransactionOperations transactionOperations;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration maxBatchDelay;
+    private final Duration retryDelay;
+    private final Duration enqueueTimeout;
+    private final BlockingQueue<AppointmentChangedEvent> queue;
+    private final Counter written;
+    private final Counter queueFull;
+    private final Counter dropped;
+    private final DistributionSummary batchSizes;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public AppointmentAuditLog(AppointmentEventRepository repository,
+                               TransactionOperations transactionOperations,
+                               AppointmentsProperties properties,
+                               MeterRegistry meterRegistry) {
+        AppointmentsProperties.Audit cfg = properties.getAudit();
+        this.repository = repository;
+        this.transactionOperations = transactionOperations;
+        this.enabled = cfg.isEnabled();
+        this.batchSize = cfg.getBatchSize();
+        this.maxBatchDelay = cfg.getMaxBatchDelay();
+        this.retryDelay = cfg.getRetryDelay();
+        this.enqueueTimeout = cfg.getEnqueueTimeout();
+        this.queue = new ArrayBlockingQueue<>(cfg.getQueueCapacity());
+        Gauge.builder("appointments.audit.queue.size", queue, BlockingQueue::size)
+                .description("Appointment events waiting to be written to the audit log")
+                .register(meterRegistry);
+        this.written = Counter.builder("appointments.audit.events.written")
+                .description("Appointment events written to the audit log")
+                .register(meterRegistry);
+        this.queueFull = Counter.builder("appointments.audit.queue.full")
+                .description("Appointment events whose publisher had to wait for room in the audit queue")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("appointments.audit.events.dropped")
+                .description("Appointment events not logged because the audit queue stayed full")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("appointments.audit.batch.size")
+                .description("Appointment events written per audit log transaction")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        if (!enabled || event.getAppointmentId() == null) {
+            return;
+        }
+        if (queue.offer(event)) {
+            return;
+        }
+        queueFull.increment();
+        try {
+            if (queue.offer(event, enqueueTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                return;
+            }
+            log.error("Audit queue still full after {}; {} event for appointment {} not logged",
+                    enqueueTimeout, event.getType(), event.getAppointmentId());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while waiting for room in the audit queue; {} event for appointment {} not logged",
+                    event.getType(), event.getAppointmentId());
+        }
+        dropped.increment();
+    }
+
+    /**
+     * The appointment's logged events, oldest first. Events still queued are not included yet.
+     */
+    public List<AppointmentEventView> history(Long appointmentId) {
+        return repository.findByAppointmentId(appointmentId);
+    }
+
+    private void drain() {
+        // After stop() the queue is flushed before the thread exits
+        while (running || !queue.isEmpty()) {
+            List<AppointmentChangedEvent> batch = new ArrayList<>(batchSize);
+            try {
+                AppointmentChangedEvent first = queue.poll(POLL_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (!batch.isEmpty() || !queue.isEmpty()) {
+                    log.error("Audit writer interrupted; {} events not logged", batch.size() + queue.size());
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Group commit: tops the batch up with whatever arrives within maxBatchDelay, up to batchSize.
+     */
+    private void fill(List<AppointmentChangedEvent> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + maxBatchDelay.toNanos();
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            AppointmentChangedEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<AppointmentChangedEvent> batch) throws InterruptedException {
+        while (true) {
+            try {
+                transactionOperations.executeWithoutResult(status -> repository.insertAll(batch));
+                written.increment(batch.size());
+                batchSizes.record(batch.size());
+                return;
+            } catch (RuntimeException e) {
+                // Not just DataAccessException: a database that is down surfaces as CannotCreateTransactionException,
+                // and letting anything escape would kill the writer thread
+                if (!running) {
+                    log.error("Audit log write failed during shutdown; {} events not logged", batch.size(), e);
+                    return;
+                }
+                log.warn("Audit log write of {} events failed; retrying in {}", batch.size(), retryDelay, e);
+                Thread.sleep(retryDelay.toMillis());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        if (!enabled) {
+            return;
+        }
+        writer = new Thread(this::drain, "appointment-audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.join(STOP_TIMEOUT.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            writer.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.appointments.service;
+
+import com.example.appointments.cache.DoctorCache;
+import com.example.appointments.cache.SlotHolds;
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.dto.CreateAppointmentRequest;
+import com.example.appointments.entity.Appointment;
+import com.example.appointments.entity.AppointmentStatus;
+import com.example.appointments.entity.Doctor;
+import com.example.appointments.event.AppointmentChangedEvent;
+import com.example.appointments.exception.InvalidRequestException;
+import com.example.appointments.exception.ResourceNotFoundException;
+import com.example.appointments.exception.SlotAlreadyBookedException;
+import com.example.appointments.repository.AppointmentRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Books many appointments at once (call-centre imports).
+ * Requests are grouped by doctor; every doctor is loaded once, conflicts are checked in memory against one
+ * range query per doctor, and the accepted rows of a doctor are written in one transaction with JDBC batching.
+ * If that write still loses a race (unique/optimistic-lock violation), the group is replayed item by item
+ * through AppointmentService.book so each item gets its own 409 instead of failing the whole group.
+ * Slot holds are honoured as in AppointmentService.book: a held slot needs the hold's id, and the hold is released
+ * once its booking commits. The group's holds are read with one query over its window.
+ * The grouped write does not take AppointmentService's single-flight gate: the gate only collapses a stampede of
+ * single requests on one slot, while a group already costs one transaction, and a collision with an in-flight
+ * single booking is settled by the unique (doctor_id, start_time) key and the item-by-item replay, which is gated.
+ * Any other failure of a group (no connection, timeout) fails that group's accepted items with the exception;
+ * groups committed before it stay booked.
+ * <p>
+ * In JOURNAL and SINGLE_STATEMENT booking modes every item goes through AppointmentService.book: there is no
+ * database write to batch in JOURNAL mode, and SINGLE_STATEMENT's conditional upsert already books in one statement.
+ */
+@Service
+public class AppointmentBatchService {
+
+    private final AppointmentRepository appointmentRepository;
+    private final DoctorCache doctorCache;
+    private final SlotHolds slotHolds;
+    private final AppointmentService appointmentService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionOperations transactionOperations;
+    private final AppointmentsProperties properties;
+
+    public AppointmentBatchService(AppointmentRepository appointmentRepository,
+                                   DoctorCache doctorCache,
+                                   SlotHolds slotHolds,
+                                   AppointmentService appointmentService,
+                                   ApplicationEventPublisher eventPublisher,
+                                   TransactionOperations transactionOperations,
+                                   AppointmentsProperties properties) {
+        this.appointmentRepository = appointmentRepository;
+        this.doctorCache = doctorCache;
+        this.slotHolds = slotHolds;
+        this.appointmentService = appointmentService;
+        this.eventPublisher = eventPublisher;
+        this.transactionOperations = transactionOperations;
+        this.properties = properties;
+    }
+
+    /**
+     * @return one result per request, in request order
+     */
+    public List<BatchBookingResult> bookAll(List<CreateAppointmentRequest> requests) {
+        BatchBookingResult[] results = new BatchBookingResult[requests.size()];
+        if (properties.getBookingMode() != AppointmentsProperties.BookingMode.STANDARD) {
+            for (int i = 0; i < requests.size(); i++) {
+                results[i] = bookSingle(requests.get(i));
+            }
+            return List.of(results);
+        }
+
+        Map<Long, List<Integer>> byDoctor = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            byDoctor.computeIfAbsent(requests.get(i).getDoctorId(), id -> new ArrayList<>()).add(i);
+        }
+        Map<Long, Doctor> doctors;
+        try {
+            doctors = doctorCache.findAllById(byDoctor.keySet());
+        } catch (RuntimeException e) {
+            // Nothing has been written yet
+            Arrays.fill(results, BatchBookingResult.failed(e));
+            return List.of(results);
+        }
+
+        for (Map.Entry<Long, List<Integer>> group : byDoctor.entrySet()) {
+            Doctor doctor = doctors.get(group.getKey());
+            if (doctor == null) {
+                for (int i : group.getValue()) {
+                    results[i] = BatchBookingResult.failed(new ResourceNotFoundException("Doctor not found: " + group.getKey()));
+                }
+                continue;
+            }
+            List<Integer> accepted = new ArrayList<>();
+            try {
+                transactionOperations.executeWithoutResult(status -> {
+                    accepted.clear();
+                    bookGroup(doctor, group.getValue(), requests, results, accepted);
+                });
+            } catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+                // Lost a race with a concurrent booking; the group was rolled back, so settle each item on its own
+                for (int i : accepted) {
+                    results[i] = bookSingle(requests.get(i));
+                }
+                continue;
+            } catch (RuntimeException e) {
+                // The group was rolled back: items it had accepted (or not reached yet) were not booked
+                for (int i : group.getValue()) {
+                    if (results[i] == null || accepted.contains(i)) {
+                        results[i] = BatchBookingResult.failed(e);
+                    }
+                }
+                continue;
+            }
+            for (int i : accepted) {
+                if (requests.get(i).getHoldId() != null) {
+                    slotHolds.release(requests.get(i).getHoldId());
+                }
+            }
+        }
+        return List.of(results);
+    }
+
+    private void bookGroup(Doctor doctor,
+                           List<Integer> indices,
+                           List<CreateAppointmentRequest> requests,
+                           BatchBookingResult[] results,
+                           List<Integer> accepted) {
+        int minutes = doctor.getPerSlotDurationMinutes();
+        LocalDateTime windowStart = null;
+        LocalDateTime windowEnd = null;
+        for (int i : indices) {
+            LocalDateTime start = requests.get(i).getStartTime();
+            LocalDateTime end = start.plusMinutes(minutes);
+            windowStart = windowStart == null || start.isBefore(windowStart) ? start : windowStart;
+            windowEnd = windowEnd == null || end.isAfter(windowEnd) ? end : windowEnd;
+        }
+
+        // One range query gives both the CONFIRMED intervals to check and the CANCELLED rows to reuse
+        TreeMap<LocalDateTime, LocalDateTime> busy = new TreeMap<>();
+        Map<LocalDateTime, Appointment> cancelled = new HashMap<>();
+        for (Appointment a : appointmentRepository.findByDoctorAndEndTimeGreaterThanAndStartTimeLessThan(doctor, windowStart, windowEnd)) {
+            if (a.getStatus() == AppointmentStatus.CONFIRMED) {
+                busy.put(a.getStartTime(), a.getEndTime());
+            } else {
+                cancelled.put(a.getStartTime(), a);
+            }
+        }
+
+        List<SlotHolds.Hold> holds = slotHolds.findOverlapping(doctor.getId(), windowStart, windowEnd);
+
+        List<Appointment> toSave = new ArrayList<>();
+        for (int i : indices) {
+            CreateAppointmentRequest req = requests.get(i);
+            LocalDateTime start = req.getStartTime();
+            LocalDateTime end = start.plusMinutes(minutes);
+            if (heldByOther(holds, start, end, req.getHoldId())) {
+                results[i] = BatchBookingResult.failed(new SlotAlreadyBookedException("Requested slot is held by another patient.",
+                        SlotAlreadyBookedException.Reason.HELD));
+                continue;
+            }
+            if (overlaps(busy, start, end)) {
+                results[i] = BatchBookingResult.failed(new SlotAlreadyBookedException("Requested slot is already booked."));
+                continue;
+            }
+            busy.put(start, end);
+
+            Appointment appt = cancelled.remove(start);
+            if (appt != null) {
+                appt.setStatus(AppointmentStatus.CONFIRMED);
+                appt.setPatientName(req.getPatientName());
+                appt.setEndTime(end);
+            } else {
+                appt = new Appointment(doctor, req.getPatientName(), start, end);
+            }
+            appt.setPatientId(req.getPatientId());
+            toSave.add(appt);
+            accepted.add(i);
+        }
+
+        List<Appointment> saved = appointmentRepository.saveAllAndFlush(toSave);
+        for (int k = 0; k < saved.size(); k++) {
+            results[accepted.get(k)] = BatchBookingResult.booked(saved.get(k));
+            eventPublisher.publishEvent(AppointmentChangedEvent.booked(saved.get(k)));
+        }
+    }
+
+    private BatchBookingResult bookSingle(CreateAppointmentRequest req) {
+        try {
+            return BatchBookingResult.booked(appointmentService.book(req));
+        } catch (SlotAlreadyBookedException | ResourceNotFoundException | InvalidRequestException e) {
+            return BatchBookingResult.failed(e);
+        } catch (ConcurrencyFailureException e) {
+            return BatchBookingResult.failed(new SlotAlreadyBookedException("Slot has been booked by another user.",
+                    SlotAlreadyBookedException.Reason.OPTIMISTIC_LOCK));
+        } catch (RuntimeException e) {
+            return BatchBookingResult.failed(e);
+        }
+    }
+
+    private static boolean heldByOther(List<SlotHolds.Hold> holds, LocalDateTime start, LocalDateTime end, String exceptHoldId) {
+        for (SlotHolds.Hold hold : holds) {
+            if (hold.startTime().isBefore(end) && hold.endTime().isAfter(start) && !hold.id().equals(exceptHoldId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * CONFIRMED intervals of one doctor never overlap, so only the latest interval starting before end can collide.
+     */
+    private static boolean overlaps(TreeMap<LocalDateTime, LocalDateTime> busy, LocalDateTime start, LocalDateTime end) {
+        Map.Entry<LocalDateTime, LocalDateTime> previous = busy.lowerEntry(end);
+        return previous != null && previous.getValue().isAfter(start);
+    }
+}
@@ -1,28 +1,74 @@
 package com.example.appointments.service;
 
+import com.example.appointments.cache.DoctorCache;
+import com.example.appointments.cache.SlotHolds;
+import com.example.appointments.config.AppointmentsProperties;
 import com.example.appointments.dto.CreateAppointmentRequest;
 import com.example.appointments.entity.Appointment;
 import com.example.appointments.entity.AppointmentStatus;
 import com.example.appointments.entity.Doctor;
+import com.example.appointments.event.AppointmentChangedEvent;
+import com.example.appointments.exception.InvalidRequestException;
 import com.example.appointments.exception.ResourceNotFoundException;
+import com.example.appointments.exception.ServiceBusyException;
 import com.example.appointments.exception.SlotAlreadyBookedException;
+import com.example.appointments.journal.JournaledBookingEngine;
 import com.example.appointments.repository.AppointmentRepository;
-import com.example.appointments.repository.DoctorRepository;
+import com.example.appointments.repository.PatientAppointmentView;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 
 @Service
 public class AppointmentService {
 
+    static final String BOOK_TIMER = "appointments.book";
+    static final String BOOK_IN_FLIGHT_GAUGE = "appointments.book.in.flight";
+
+    static final int MAX_PAGE_SIZE = 500;
+
     private final AppointmentRepository appointmentRepository;
-    private final DoctorRepository doctorRepository;
+    private final DoctorCache doctorCache;
+    private final SlotHolds slotHolds;
+    private final JournaledBookingEngine bookingEngine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AppointmentsProperties properties;
+    private final TransactionOperations transactionOperations;
+    private final MeterRegistry meterRegistry;
+    private final SlotBookingGate bookingGate = new SlotBookingGate();
 
-    public AppointmentService(AppointmentRepository appointmentRepository, DoctorRepository doctorRepository) {
+    public AppointmentService(AppointmentRepository appointmentRepository,
+                              DoctorCache doctorCache,
+                              SlotHolds slotHolds,
+                              JournaledBookingEngine bookingEngine,
+                              ApplicationEventPublisher eventPublisher,
+                              AppointmentsProperties properties,
+                              TransactionOperations transactionOperations,
+                              MeterRegistry meterRegistry) {
         this.appointmentRepository = appointmentRepository;
-        this.doctorRepository = doctorRepository;
+        this.doctorCache = doctorCache;
+        this.slotHolds = slotHolds;
+        this.bookingEngine = bookingEngine;
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        this.transactionOperations = transactionOperations;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder(BOOK_IN_FLIGHT_GAUGE, bookingGate, SlotBookingGate::inFlightCount)
+                .description("Slots with a booking currently running on this instance")
+                .register(meterRegistry);
     }
 
     /**
@@ -31,16 +77,99 @@ public class AppointmentService {
      * - Enforce unique (doctor_id, start_time) at DB level to prevent duplicate inserts for the same slot.
      * - If a slot row exists and is CANCELLED, update it to CONFIRMED; concurrent updates will trigger optimistic locking via @Version.
      * - If no row exists, insert a new CONFIRMED appointment; concurrent inserts will throw DataIntegrityViolationException, translated to 409.
+     * With appointments.bookingMode=SINGLE_STATEMENT the overlap check, reuse and insert collapse into one
+     * conditional upsert (see AppointmentRepositoryCustom.bookIfSlotFree).
+     * With appointments.bookingMode=JOURNAL the slot is claimed in memory and the booking journaled, with no database
+     * round trip; the row is written afterwards (see JournaledBookingEngine). The start time must then be on the doctor's slot grid.
+     * Publishes an AppointmentChangedEvent so in-memory availability can follow the committed booking.
+     * <p>
+     * A slot covered by a live hold (see SlotHolds) can only be booked with that hold's id in the request; anyone else
+     * gets SlotAlreadyBookedException (HELD) before the appointments table is queried. The hold is released once the
+     * booking commits.
+     * <p>
+     * With appointments.singleFlightBooking (default) only one booking per (doctor, start time) runs at a time on
+     * this instance: concurrent requests for the same slot get SlotAlreadyBookedException (IN_FLIGHT) immediately,
+     * without a transaction, even if the running booking later fails. The doctor lookup and hold check come first, so
+     * a request turned away by a hold always sees HELD; a request carrying the live hold of its slot skips the gate,
+     * since nobody else can book that slot anyway.
+     * <p>
+     * Timed as appointments.book, tagged with the booking mode and the outcome (success, conflict_overlap,
+     * conflict_integrity_violation, conflict_optimistic_lock, conflict_in_flight, conflict_held, not_found, invalid, busy,
+     * error). The transaction runs inside the timer, so optimistic-lock failures raised at commit are attributed too.
      */
-    @Transactional
     public Appointment book(CreateAppointmentRequest req) {
-        Doctor doctor = doctorRepository.findById(req.getDoctorId())
-                .orElseThrow(() -> new ResourceNotFoundException("Doctor not found: " + req.getDoctorId()));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        boolean gated = false;
+        try {
+            Doctor doctor = findDoctor(req.getDoctorId());
+            boolean holder = checkNotHeld(doctor, req);
+            if (properties.isSingleFlightBooking() && !holder) {
+                if (!bookingGate.tryEnter(req.getDoctorId(), req.getStartTime())) {
+                    throw new SlotAlreadyBookedException("Slot is being booked by another request.",
+                            SlotAlreadyBookedException.Reason.IN_FLIGHT);
+                }
+                gated = true;
+            }
+            // The slot is released only after commit, so a later request sees the committed row
+            Appointment saved = journaled()
+                    ? bookJournaled(doctor, req)
+                    : transactionOperations.execute(status -> doBook(doctor, req));
+            if (req.getHoldId() != null) {
+                slotHolds.release(req.getHoldId());
+            }
+            outcome = "success";
+            return saved;
+        } catch (SlotAlreadyBookedException e) {
+            outcome = "conflict_" + e.getReason().name().toLowerCase(Locale.ROOT);
+            throw e;
+        } catch (OptimisticLockingFailureException e) {
+            outcome = "conflict_optimistic_lock";
+            throw e;
+        } catch (ResourceNotFoundException e) {
+            outcome = "not_found";
+            throw e;
+        } catch (InvalidRequestException e) {
+            outcome = "invalid";
+            throw e;
+        } catch (ServiceBusyException e) {
+            outcome = "busy";
+            throw e;
+        } finally {
+            if (gated) {
+                bookingGate.exit(req.getDoctorId(), req.getStartTime());
+            }
+            sample.stop(meterRegistry.timer(BOOK_TIMER,
+                    "mode", properties.getBookingMode().name().toLowerCase(Locale.ROOT),
+                    "outcome", outcome));
+        }
+    }
+
+    private Appointment bookJournaled(Doctor doctor, CreateAppointmentRequest req) {
+        Appointment saved = bookingEngine.book(doctor, req.getPatientName(), req.getPatientId(), req.getStartTime());
+        eventPublisher.publishEvent(AppointmentChangedEvent.booked(saved));
+        return saved;
+    }
 
+    private Appointment doBook(Doctor doctor, CreateAppointmentRequest req) {
         int minutes = doctor.getPerSlotDurationMinutes();
         LocalDateTime start = req.getStartTime();
         LocalDateTime end = start.plusMinutes(minutes);
 
+        if (properties.getBookingMode() == AppointmentsProperties.BookingMode.SINGLE_STATEMENT) {
+            Appointment saved;
+            try {
+                saved = appointmentRepository.bookIfSlotFree(doctor, req.getPatientName(), req.getPatientId(), start, end)
+                        .orElseThrow(() -> new SlotAlreadyBookedException("Requested slot is already booked."));
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent overlapping (not same-start) booking tripped the PostgreSQL exclusion constraint
+                throw new SlotAlreadyBookedException("Slot has been booked by another user.",
+                        SlotAlreadyBookedException.Reason.INTEGRITY_VIOLATION);
+            }
+            eventPublisher.publishEvent(AppointmentChangedEvent.booked(saved));
+            return saved;
+        }
+
         // Optional overlap check for non-slot-aligned requests
         boolean overlapExists = appointmentRepository.existsByDoctorAndStatusAndStartTimeLessThanAndEndTimeGreater(
                 doctor,
@@ -53,37 +182,142 @@ public class AppointmentService {
         }
 
         // Try to reuse existing slot row (optimistic locking applies on update)
-        return appointmentRepository.findByDoctorAndStartTime(doctor, start)
+        Appointment saved = appointmentRepository.findByDoctorAndStartTime(doctor, start)
                 .map(existing -> {
                     if (existing.getStatus() == AppointmentStatus.CONFIRMED) {
                         throw new SlotAlreadyBookedException("Requested slot is already booked.");
                     }
                     existing.setStatus(AppointmentStatus.CONFIRMED);
                     existing.setPatientName(req.getPatientName());
+                    existing.setPatientId(req.getPatientId());
                     existing.setEndTime(end);
                     try {
-                        return appointmentRepository.save(existing);
+                        // Flush here so an exclusion/unique violation surfaces inside this try, not at commit
+                        return appointmentRepository.saveAndFlush(existing);
                     } catch (DataIntegrityViolationException e) {
                         // Concurrent update/constraint issue
-                        throw new SlotAlreadyBookedException("Slot has been booked by another user.");
+                        throw new SlotAlreadyBookedException("Slot has been booked by another user.",
+                                SlotAlreadyBookedException.Reason.INTEGRITY_VIOLATION);
                     }
                 })
                 .orElseGet(() -> {
                     try {
                         Appointment appt = new Appointment(doctor, req.getPatientName(), start, end);
-                        return appointmentRepository.save(appt);
+                        appt.setPatientId(req.getPatientId());
+                        // Sequence ids defer the INSERT to flush; flush here so a duplicate surfaces inside this try
+                        return appointmentRepository.saveAndFlush(appt);
                     } catch (DataIntegrityViolationException e) {
                         // Another concurrent request likely inserted the same (doctor_id, start_time)
-                        throw new SlotAlreadyBookedException("Slot has been booked by another user.");
+                        throw new SlotAlreadyBookedException("Slot has been booked by another user.",
+                                SlotAlreadyBookedException.Reason.INTEGRITY_VIOLATION);
                     }
                 });
+        eventPublisher.publishEvent(AppointmentChangedEvent.booked(saved));
+        return saved;
+    }
+
+    private Doctor findDoctor(Long doctorId) {
+        return doctorCache.findById(doctorId)
+                .orElseThrow(() -> new ResourceNotFoundException("Doctor not found: " + doctorId));
+    }
+
+    /**
+     * @return whether the request carries a live hold on its slot
+     * @throws SlotAlreadyBookedException (HELD) if any other live hold overlaps the slot
+     */
+    private boolean checkNotHeld(Doctor doctor, CreateAppointmentRequest req) {
+        LocalDateTime start = req.getStartTime();
+        boolean holder = false;
+        for (SlotHolds.Hold hold : slotHolds.findOverlapping(doctor.getId(), start, start.plusMinutes(doctor.getPerSlotDurationMinutes()))) {
+            if (!hold.id().equals(req.getHoldId())) {
+                throw new SlotAlreadyBookedException("Requested slot is held by another patient.",
+                        SlotAlreadyBookedException.Reason.HELD);
+            }
+            holder = true;
+        }
+        return holder;
+    }
+
+    private boolean journaled() {
+        return properties.getBookingMode() == AppointmentsProperties.BookingMode.JOURNAL;
     }
 
-    @Transactional
     public Appointment cancel(Long appointmentId) {
-        Appointment appt = appointmentRepository.findById(appointmentId)
+        if (journaled()) {
+            Appointment saved = bookingEngine.cancel(appointmentId);
+            eventPublisher.publishEvent(AppointmentChangedEvent.cancelled(saved));
+            return saved;
+        }
+        return transactionOperations.execute(status -> {
+            Appointment appt = appointmentRepository.findById(appointmentId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Appointment not found: " + appointmentId));
+            appt.setStatus(AppointmentStatus.CANCELLED);
+            Appointment saved = appointmentRepository.save(appt);
+            eventPublisher.publishEvent(AppointmentChangedEvent.cancelled(saved));
+            return saved;
+        });
+    }
+
+    /**
+     * In JOURNAL mode the engine's copy comes first, since the row may not have been written yet.
+     * Not read-only, so it runs on the primary: clients read back what they just booked or cancelled,
+     * and a lagging read replica would answer 404 or the old status.
+     */
+    @Transactional
+    public Appointment getByIdOrThrow(Long appointmentId) {
+        if (journaled()) {
+            Optional<Appointment> journaled = bookingEngine.find(appointmentId);
+            if (journaled.isPresent()) {
+                return journaled.get();
+            }
+        }
+        return appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Appointment not found: " + appointmentId));
-        appt.setStatus(AppointmentStatus.CANCELLED);
-        return appointmentRepository.save(appt);
+    }
+
+    /**
+     * All appointments (any status) of a doctor starting in [from, to), by start time.
+     * The window is capped at appointments.maxAvailabilityRangeDays.
+     */
+    @Transactional(readOnly = true)
+    public List<Appointment> listForDoctor(Long doctorId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new InvalidRequestException("'from' must be before 'to'.");
+        }
+        if (from.plusDays(properties.getMaxAvailabilityRangeDays()).isBefore(to)) {
+            throw new InvalidRequestException("Time range must not exceed " + properties.getMaxAvailabilityRangeDays() + " days.");
+        }
+        if (doctorCache.findById(doctorId).isEmpty()) {
+            throw new ResourceNotFoundException("Doctor not found: " + doctorId);
+        }
+        return appointmentRepository.findDoctorSchedule(doctorId, from, to);
+    }
+
+    /**
+     * One page of a patient's appointments, newest first, as projections that already carry the doctor's
+     * name and specialization (one SELECT plus a COUNT, however many doctors the page touches).
+     */
+    @Transactional(readOnly = true)
+    public Page<PatientAppointmentView> getPatientHistory(String patientId, int page, int size) {
+        return appointmentRepository.findPatientHistory(patientId, historyPage(page, size));
+    }
+
+    /**
+     * Same page as getPatientHistory, as Appointment entities with their doctor fetch-joined in the same query.
+     */
+    @Transactional(readOnly = true)
+    public Page<Appointment> getPatientHistoryWithDoctors(String patientId, int page, int size) {
+        return appointmentRepository.findPatientHistoryWithDoctor(patientId, historyPage(page, size));
+    }
+
+    private static PageRequest historyPage(int page, int size) {
+        if (page < 0) {
+            throw new InvalidRequestException("page must not be negative.");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new InvalidRequestException("size must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        // Ordering is part of the queries, so the request stays unsorted
+        return PageRequest.of(page, size);
     }
 }
@@ -0,0 +1,293 @@
+package com.example.appointments.service;
+
+import com.example.appointments.cache.SlotIndex;
+import com.example.appointments.config.AppointmentsProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pushes live availability of one (doctor, date) to SSE subscribers.
+ * <p>
+ * A subscriber first gets a "slots" event with the free slot starts, then a "slot-taken" or "slot-freed" event
+ * (data: the slot start) for every change. Subscribers are async requests, so an idle one holds no thread.
+ * <p>
+ * Changes are picked up from SlotIndex, which covers local bookings and cancellations as well as changes applied
+ * from other instances. The notifying thread only marks the day dirty and queues a refresh; a small pool then
+ * recomputes the day once, diffs it against what subscribers last saw, and fans the difference out.
+ * Refreshes of the same day coalesce, and each day's refresh and new subscriptions are serialized,
+ * so every subscriber sees a snapshot followed by the changes made after it.
+ * <p>
+ * Events are queued per subscriber and written outside the day's lock, one sender per subscriber. A subscriber more
+ * than maxPendingEvents behind (a stalled connection) is disconnected rather than buffered without bound; its client
+ * reconnects to a fresh snapshot. Counted in appointments.availability.stream.dropped.
+ */
+@Service
+public class AvailabilityBroadcaster {
+
+    static final String SUBSCRIBERS_GAUGE = "appointments.availability.stream.subscribers";
+
+    private final DoctorService doctorService;
+    private final long timeoutMillis;
+    private final int maxPendingEvents;
+    private final ExecutorService fanOut;
+    private final Map<Topic.Key, Topic> topics = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Counter slowSubscribersDropped;
+
+    public AvailabilityBroadcaster(DoctorService doctorService,
+                                   SlotIndex slotIndex,
+                                   AppointmentsProperties properties,
+                                   MeterRegistry meterRegistry) {
+        AppointmentsProperties.AvailabilityStream cfg = properties.getAvailabilityStream();
+        this.doctorService = doctorService;
+        this.timeoutMillis = cfg.getTimeout().toMillis();
+        this.maxPendingEvents = cfg.getMaxPendingEvents();
+        AtomicInteger threads = new AtomicInteger();
+        this.fanOut = Executors.newFixedThreadPool(cfg.getFanOutThreads(), r -> {
+            Thread t = new Thread(r, "availability-fan-out-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        slotIndex.addChangeListener(this::onDaysChanged);
+        Gauge.builder(SUBSCRIBERS_GAUGE, subscriberCount, AtomicInteger::get)
+                .description("Open availability SSE streams")
+                .register(meterRegistry);
+        this.slowSubscribersDropped = Counter.builder("appointments.availability.stream.dropped")
+                .description("Availability streams closed because the client fell too far behind")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream for the doctor's day; throws ResourceNotFoundException for an unknown doctor.
+     */
+    public SseEmitter subscribe(Long doctorId, LocalDate date) {
+        return subscribe(doctorId, date, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(Long doctorId, LocalDate date, SseEmitter emitter) {
+        doctorService.getByIdOrThrow(doctorId);
+        Topic.Key key = new Topic.Key(doctorId, date);
+        Subscriber subscriber = new Subscriber(emitter);
+        while (true) {
+            Topic topic = topics.computeIfAbsent(key, Topic::new);
+            topic.lock.lock();
+            try {
+                if (topics.get(key) != topic) {
+                    continue; // its last subscriber just left and it was dropped; take the new one
+                }
+                if (topic.lastSent == null) {
+                    try {
+                        topic.lastSent = doctorService.getAvailability(doctorId, date);
+                    } catch (RuntimeException e) {
+                        topics.remove(key, topic);
+                        throw e;
+                    }
+                }
+                subscriber.enqueue(List.of(SseEmitter.event().name("slots").data(topic.lastSent, MediaType.APPLICATION_JSON)));
+                topic.subscribers.add(subscriber);
+                subscriberCount.incrementAndGet();
+            } finally {
+                topic.lock.unlock();
+            }
+            Runnable remove = () -> unsubscribe(topic, subscriber);
+            emitter.onCompletion(remove);
+            emitter.onTimeout(remove);
+            emitter.onError(e -> remove.run());
+            subscriber.flush();
+            return emitter;
+        }
+    }
+
+    private void unsubscribe(Topic topic, Subscriber subscriber) {
+        topic.lock.lock();
+        try {
+            remove(topic, subscriber);
+        } finally {
+            topic.lock.unlock();
+        }
+    }
+
+    // Caller holds topic.lock
+    private void remove(Topic topic, Subscriber subscriber) {
+        if (topic.subscribers.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+        }
+        if (topic.subscribers.isEmpty()) {
+            topics.remove(topic.key, topic);
+        }
+    }
+
+    private void onDaysChanged(Long doctorId, LocalDate date) {
+        for (Topic topic : topics.values()) {
+            boolean affected = doctorId == null
+                    || (topic.key.doctorId().equals(doctorId) && (date == null || topic.key.date().equals(date)));
+            if (affected && topic.refreshQueued.compareAndSet(false, true)) {
+                fanOut.execute(() -> refresh(topic));
+            }
+        }
+    }
+
+    /**
+     * Diffs the day and queues the difference for every subscriber under the topic's lock, then sends outside it,
+     * so a slow client never holds up the day's other subscribers, its next refresh, or new subscriptions.
+     */
+    private void refresh(Topic topic) {
+        topic.refreshQueued.set(false);
+        List<Subscriber> notified = new ArrayList<>();
+        topic.lock.lock();
+        try {
+            if (topic.subscribers.isEmpty()) {
+                return;
+            }
+            List<String> current;
+            try {
+                current = doctorService.getAvailability(topic.key.doctorId(), topic.key.date());
+            } catch (RuntimeException e) {
+                // e.g. the doctor is gone or the database is unreachable; streams stay open for the next change
+                return;
+            }
+            List<SseEmitter.SseEventBuilder> events = changes(topic.lastSent, current);
+            topic.lastSent = current;
+            if (events.isEmpty()) {
+                return;
+            }
+            for (Subscriber subscriber : topic.subscribers) {
+                if (!subscriber.enqueue(events)) {
+                    // Too far behind; its sender closes the stream
+                    remove(topic, subscriber);
+                    slowSubscribersDropped.increment();
+                }
+                notified.add(subscriber);
+            }
+        } finally {
+            topic.lock.unlock();
+        }
+        notified.forEach(Subscriber::flush);
+    }
+
+    /**
+     * slot-taken events for starts that disappeared, then slot-freed events for starts that appeared.
+     */
+    static List<SseEmitter.SseEventBuilder> changes(List<String> before, List<String> after) {
+        List<SseEmitter.SseEventBuilder> events = new ArrayList<>();
+        Set<String> now = new HashSet<>(after);
+        Set<String> was = new LinkedHashSet<>(before);
+        for (String slot : before) {
+            if (!now.contains(slot)) {
+                events.add(SseEmitter.event().name("slot-taken").data(slot));
+            }
+        }
+        for (String slot : after) {
+            if (!was.contains(slot)) {
+                events.add(SseEmitter.event().name("slot-freed").data(slot));
+            }
+        }
+        return events;
+    }
+
+    int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fanOut.shutdownNow();
+        topics.values().forEach(topic -> topic.subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    /**
+     * One stream's outbound events, sent in order by at most one fan-out thread at a time.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pending = new ArrayBlockingQueue<>(maxPendingEvents);
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile boolean behind;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * @return false, queueing nothing more, once the subscriber has fallen more than maxPendingEvents behind
+         */
+        boolean enqueue(List<SseEmitter.SseEventBuilder> events) {
+            if (behind || pending.remainingCapacity() < events.size()) {
+                behind = true;
+                return false;
+            }
+            pending.addAll(events);
+            return true;
+        }
+
+        void flush() {
+            if (sending.compareAndSet(false, true)) {
+                fanOut.execute(this::send);
+            }
+        }
+
+        private void send() {
+            do {
+                try {
+                    SseEmitter.SseEventBuilder event;
+                    while (!behind && (event = pending.poll()) != null) {
+                        emitter.send(event);
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away; its completion callback removes it
+                    pending.clear();
+                    emitter.completeWithError(e);
+                    return;
+                }
+                if (behind) {
+                    pending.clear();
+                    emitter.complete();
+                    return;
+                }
+                sending.set(false);
+            } while (!pending.isEmpty() && sending.compareAndSet(false, true));
+        }
+    }
+
+    private static final class Topic {
+
+        private record Key(Long doctorId, LocalDate date) {
+        }
+
+        private final Key key;
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean refreshQueued = new AtomicBoolean();
+        // Held while loading the day, so not a monitor: that would pin a virtual thread for the whole query
+        private final ReentrantLock lock = new ReentrantLock();
+        // Free slot starts as of the last event sent to this day's subscribers; guarded by lock
+        private List<String> lastSent;
+
+        private Topic(Key key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.appointments.service;
+
+import com.example.appointments.entity.Doctor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A free slot of a specific doctor, as returned by DoctorService.findNextAvailable.
+ */
+public class AvailableSlot {
+
+    private final Doctor doctor;
+    private final LocalDateTime startTime;
+
+    public AvailableSlot(Doctor doctor, LocalDateTime startTime) {
+        this.doctor = doctor;
+        this.startTime = startTime;
+    }
+
+    public Doctor getDoctor() {
+        return doctor;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.appointments.service;
+
+import com.example.appointments.entity.Appointment;
+
+/**
+ * Outcome of one item of a batch booking: either the booked appointment or the failure
+ * (ResourceNotFoundException, SlotAlreadyBookedException or, in JOURNAL booking mode, InvalidRequestException)
+ * that a single booking would have thrown.
+ */
+public class BatchBookingResult {
+
+    private final Appointment appointment;
+    private final RuntimeException failure;
+
+    private BatchBookingResult(Appointment appointment, RuntimeException failure) {
+        this.appointment = appointment;
+        this.failure = failure;
+    }
+
+    public static BatchBookingResult booked(Appointment appointment) {
+        return new BatchBookingResult(appointment, null);
+    }
+
+    public static BatchBookingResult failed(RuntimeException failure) {
+        return new BatchBookingResult(null, failure);
+    }
+
+    public boolean isBooked() {
+        return appointment != null;
+    }
+
+    public Appointment getAppointment() {
+        return appointment;
+    }
+
+    public RuntimeException getFailure() {
+        return failure;
+    }
+}
@@ -1,99 +1,462 @@
 package com.example.appointments.service;
 
+import com.example.appointments.cache.DaySlots;
+import com.example.appointments.cache.DoctorCache;
+import com.example.appointments.cache.SlotHolds;
+import com.example.appointments.cache.SlotIndex;
+import com.example.appointments.cache.SlotTemplate;
 import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.config.PrimaryReads;
 import com.example.appointments.dto.CreateDoctorRequest;
-import com.example.appointments.entity.Appointment;
 import com.example.appointments.entity.AppointmentStatus;
 import com.example.appointments.entity.Doctor;
+import com.example.appointments.event.DoctorChangedEvent;
+import com.example.appointments.exception.InvalidRequestException;
 import com.example.appointments.exception.ResourceNotFoundException;
+import com.example.appointments.journal.JournaledBookingEngine;
 import com.example.appointments.repository.AppointmentRepository;
+import com.example.appointments.repository.BusyInterval;
 import com.example.appointments.repository.DoctorRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class DoctorService {
 
+    private static final int MAX_NEXT_AVAILABLE = 100;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private final DoctorRepository doctorRepository;
+    private final DoctorCache doctorCache;
     private final AppointmentRepository appointmentRepository;
     private final AppointmentsProperties properties;
+    private final SlotIndex slotIndex;
+    private final SlotHolds slotHolds;
+    private final PrimaryReads primaryReads;
+    private final JournaledBookingEngine bookingEngine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final Timer availabilityFromIndex;
+    private final Timer availabilityFromDatabase;
+    private final DistributionSummary availableSlots;
+    private final DistributionSummary busyIntervals;
 
     public DoctorService(DoctorRepository doctorRepository,
+                         DoctorCache doctorCache,
                          AppointmentRepository appointmentRepository,
-                         AppointmentsProperties properties) {
+                         AppointmentsProperties properties,
+                         SlotIndex slotIndex,
+                         SlotHolds slotHolds,
+                         PrimaryReads primaryReads,
+                         JournaledBookingEngine bookingEngine,
+                         ApplicationEventPublisher eventPublisher,
+                         MeterRegistry meterRegistry) {
         this.doctorRepository = doctorRepository;
+        this.doctorCache = doctorCache;
         this.appointmentRepository = appointmentRepository;
         this.properties = properties;
+        this.slotIndex = slotIndex;
+        this.slotHolds = slotHolds;
+        this.primaryReads = primaryReads;
+        this.bookingEngine = bookingEngine;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.availabilityFromIndex = Timer.builder("appointments.availability")
+                .description("Single-day availability lookups")
+                .tag("source", "index")
+                .register(meterRegistry);
+        this.availabilityFromDatabase = Timer.builder("appointments.availability")
+                .description("Single-day availability lookups")
+                .tag("source", "database")
+                .register(meterRegistry);
+        this.availableSlots = DistributionSummary.builder("appointments.availability.slots")
+                .description("Free slots returned per single-day availability lookup")
+                .register(meterRegistry);
+        this.busyIntervals = DistributionSummary.builder("appointments.availability.busy.intervals")
+                .description("Busy intervals loaded from the database per (doctor, day)")
+                .register(meterRegistry);
     }
 
+    /**
+     * Publishes a DoctorChangedEvent so cached doctor lists pick up the new doctor after commit.
+     * Any future doctor update must publish the same event.
+     */
     @Transactional
     public Doctor createDoctor(CreateDoctorRequest req) {
         Doctor doctor = new Doctor(req.getName(), req.getSpecialization(), req.getContactEmail(), req.getPerSlotDurationMinutes());
-        return doctorRepository.save(doctor);
+        Doctor saved = doctorRepository.save(doctor);
+        eventPublisher.publishEvent(new DoctorChangedEvent(saved.getId()));
+        return saved;
     }
 
     @Transactional(readOnly = true)
     public List<Doctor> listDoctors(String specialization) {
         if (specialization == null || specialization.isBlank()) {
-            return doctorRepository.findAll();
+            return doctorCache.findAll();
+        }
+        return doctorCache.findBySpecialization(specialization);
+    }
+
+    /**
+     * Keyset page of doctors with id > afterId, in id order; pass the last id of a page to get the next one.
+     * Unlike offset paging, each page is an index seek however deep the client has paged.
+     */
+    @Transactional(readOnly = true)
+    public List<Doctor> listDoctorsPage(String specialization, long afterId, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidRequestException("limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        if (specialization == null || specialization.isBlank()) {
+            return doctorRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+        }
+        return doctorRepository.findBySpecializationIgnoreCaseAndIdGreaterThanOrderByIdAsc(specialization, afterId, Limit.of(limit));
+    }
+
+    /**
+     * Hands every doctor (optionally of one specialization) to sink in id order without building a list.
+     * Rows are fetched in chunks of DoctorRepository.STREAM_FETCH_SIZE and each entity is detached once handed over,
+     * so neither the result set nor the persistence context grows with the table.
+     */
+    @Transactional(readOnly = true)
+    public void streamDoctors(String specialization, Consumer<Doctor> sink) {
+        try (Stream<Doctor> doctors = specialization == null || specialization.isBlank()
+                ? doctorRepository.streamAllByOrderByIdAsc()
+                : doctorRepository.streamBySpecializationIgnoreCaseOrderByIdAsc(specialization)) {
+            doctors.forEach(d -> {
+                sink.accept(d);
+                entityManager.detach(d);
+            });
         }
-        return doctorRepository.findBySpecializationIgnoreCase(specialization);
     }
 
     @Transactional(readOnly = true)
     public Doctor getByIdOrThrow(Long id) {
-        return doctorRepository.findById(id)
+        return doctorCache.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Doctor not found: " + id));
     }
 
     /**
      * Compute available start-times (ISO-8601 strings) for a doctor on a given date.
      * Uses configured working hours and the doctor's perSlotDurationMinutes.
-     * Excludes any slot that overlaps with an existing CONFIRMED appointment.
+     * Excludes any slot that overlaps with an existing CONFIRMED appointment or a live slot hold.
+     * Served from the SlotIndex bitmap; the database is only queried the first time a day is requested.
+     * In JOURNAL booking mode the day is built from JournaledBookingEngine's slots instead, since the appointments
+     * table trails them and a day cached from it would show a just-booked slot as free until it expired.
+     * Holds are laid over the cached day on each read and never stored in it.
+     * Timed as appointments.availability with source=index|database, and the number of free slots returned
+     * is recorded in appointments.availability.slots.
      */
     @Transactional(readOnly = true)
     public List<String> getAvailability(Long doctorId, LocalDate date) {
-        Doctor doctor = getByIdOrThrow(doctorId);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        boolean[] loaded = new boolean[1];
+        DaySlots day = slotIndex.get(doctorId, date, () -> {
+            loaded[0] = true;
+            return loadDaySlots(getByIdOrThrow(doctorId), date);
+        });
+        List<String> free = withHolds(doctorId, day).freeSlotStarts();
+        sample.stop(loaded[0] ? availabilityFromDatabase : availabilityFromIndex);
+        availableSlots.record(free.size());
+        return free;
+    }
+
+    /**
+     * The day's occupancy as getAvailability sees it: bookings plus live slot holds.
+     */
+    @Transactional(readOnly = true)
+    public DaySlots getDaySlots(Long doctorId, LocalDate date) {
+        return withHolds(doctorId, slotIndex.get(doctorId, date, () -> loadDaySlots(getByIdOrThrow(doctorId), date)));
+    }
+
+    private DaySlots getDaySlots(Doctor doctor, LocalDate date) {
+        return withHolds(doctor.getId(), slotIndex.get(doctor.getId(), date, () -> loadDaySlots(doctor, date)));
+    }
 
-        LocalTime startTime = properties.getWorkingHoursStart();
-        LocalTime endTime = properties.getWorkingHoursEnd();
+    private DaySlots withHolds(Long doctorId, DaySlots day) {
+        LocalDateTime dayEnd = day.slotStart(day.getSlotCount());
+        for (SlotHolds.Hold hold : slotHolds.overlapping(doctorId, day.getDayStart(), dayEnd)) {
+            day = day.withBusy(hold.startTime(), hold.endTime());
+        }
+        return day;
+    }
 
-        LocalDateTime dayStart = date.atTime(startTime);
-        LocalDateTime dayEnd = date.atTime(endTime);
+    private DaySlots loadDaySlots(Doctor doctor, LocalDate date) {
+        DaySlots.Builder day = newDay(date, doctor);
+        if (bookingEngine.markBooked(doctor.getId(), date, day)) {
+            return day.build();
+        }
+        LocalDateTime dayStart = date.atTime(properties.getWorkingHoursStart());
+        LocalDateTime dayEnd = date.atTime(properties.getWorkingHoursEnd());
 
-        // Load all appointments overlapping the working window
-        List<Appointment> busy = appointmentRepository
-            .findByDoctorAndStatusAndEndTimeGreaterAndStartTimeLess(
-                doctor,
+        // Start/end of all appointments overlapping the working window, sorted by start.
+        // Read from the primary: the day stays in the SlotIndex, so a booking a replica has not applied yet would stay hidden.
+        List<BusyInterval> busy = primaryReads.get(() -> appointmentRepository.findBusyIntervals(
+                doctor.getId(),
                 AppointmentStatus.CONFIRMED,
                 dayStart,
                 dayEnd
-            );
-
-        List<String> available = new ArrayList<>();
-        int slotMinutes = doctor.getPerSlotDurationMinutes();
-        LocalDateTime cursor = dayStart;
-
-        while (!cursor.plusMinutes(slotMinutes).isAfter(dayEnd)) {
-            // Use effectively-final locals inside the lambda to satisfy Java requirements
-            final LocalDateTime slotStart = cursor;
-            final LocalDateTime slotEnd = slotStart.plusMinutes(slotMinutes);
-
-            boolean conflicts = busy.stream().anyMatch(a ->
-                a.getStartTime().isBefore(slotEnd) && a.getEndTime().isAfter(slotStart)
-            );
-            if (!conflicts) {
-                available.add(slotStart.toString()); // ISO-8601 (e.g., 2025-12-31T10:00)
+        ));
+        busyIntervals.record(busy.size());
+
+        for (BusyInterval run : mergeOverlapping(busy)) {
+            day.busy(run.startTime(), run.endTime());
+        }
+        return day.build();
+    }
+
+    /**
+     * Coalesces intervals sorted by (doctor, start) into disjoint runs in one linear pass,
+     * so each slot bit is set once however many appointments overlap it.
+     */
+    static List<BusyInterval> mergeOverlapping(List<BusyInterval> sorted) {
+        List<BusyInterval> runs = new ArrayList<>(sorted.size());
+        BusyInterval run = null;
+        for (BusyInterval next : sorted) {
+            if (run != null && run.doctorId().equals(next.doctorId()) && !next.startTime().isAfter(run.endTime())) {
+                if (next.endTime().isAfter(run.endTime())) {
+                    run = new BusyInterval(run.doctorId(), run.startTime(), next.endTime());
+                }
+                continue;
             }
-            cursor = cursor.plusMinutes(slotMinutes);
+            if (run != null) {
+                runs.add(run);
+            }
+            run = next;
+        }
+        if (run != null) {
+            runs.add(run);
         }
+        return runs;
+    }
+
+    /**
+     * Compute available start-times for several doctors over an inclusive date range.
+     * Doctors are selected either by id or by specialization. The (start, end) intervals of all CONFIRMED
+     * appointments for every selected doctor are fetched in one query, merged, and applied to per-day bitmaps in a single pass;
+     * live slot holds are applied on top. In JOURNAL booking mode the days come from JournaledBookingEngine's slots
+     * instead, when it tracks the whole range.
+     *
+     * @return doctorId -> (date -> available ISO-8601 start-times), in doctor order
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Map<LocalDate, List<String>>> getAvailabilityRange(List<Long> doctorIds,
+                                                                      String specialization,
+                                                                      LocalDate from,
+                                                                      LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new InvalidRequestException("'to' must not be before 'from'.");
+        }
+        long dayCount = ChronoUnit.DAYS.between(from, to) + 1;
+        if (dayCount > properties.getMaxAvailabilityRangeDays()) {
+            throw new InvalidRequestException("Date range must not exceed " + properties.getMaxAvailabilityRangeDays() + " days.");
+        }
+
+        List<Doctor> doctors = resolveDoctors(doctorIds, specialization);
+        if (doctors.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, DaySlots.Builder[]> days = new HashMap<>();
+        for (Doctor doctor : doctors) {
+            DaySlots.Builder[] perDay = new DaySlots.Builder[(int) dayCount];
+            for (int i = 0; i < perDay.length; i++) {
+                perDay[i] = newDay(from.plusDays(i), doctor);
+            }
+            days.put(doctor.getId(), perDay);
+        }
+
+        if (!markBooked(doctors, from, days)) {
+            addBusyFromDatabase(from, to, days);
+        }
+        LocalDateTime rangeStart = from.atTime(properties.getWorkingHoursStart());
+        LocalDateTime rangeEnd = to.atTime(properties.getWorkingHoursEnd());
+        for (Doctor doctor : doctors) {
+            DaySlots.Builder[] perDay = days.get(doctor.getId());
+            for (SlotHolds.Hold hold : slotHolds.overlapping(doctor.getId(), rangeStart, rangeEnd)) {
+                int first = (int) Math.max(0, ChronoUnit.DAYS.between(from, hold.startTime().toLocalDate()));
+                int last = (int) Math.min(perDay.length - 1, ChronoUnit.DAYS.between(from, hold.endTime().toLocalDate()));
+                for (int i = first; i <= last; i++) {
+                    perDay[i].busy(hold.startTime(), hold.endTime());
+                }
+            }
+        }
+
+        Map<Long, Map<LocalDate, List<String>>> result = new LinkedHashMap<>();
+        for (Doctor doctor : doctors) {
+            DaySlots.Builder[] perDay = days.get(doctor.getId());
+            Map<LocalDate, List<String>> byDate = new LinkedHashMap<>();
+            for (int i = 0; i < perDay.length; i++) {
+                byDate.put(from.plusDays(i), perDay[i].build().freeSlotStarts());
+            }
+            result.put(doctor.getId(), byDate);
+        }
+        return result;
+    }
+
+    /**
+     * Fills every day from JournaledBookingEngine; false (days untouched) unless it tracks the whole range.
+     */
+    private boolean markBooked(List<Doctor> doctors, LocalDate from, Map<Long, DaySlots.Builder[]> days) {
+        if (!bookingEngine.tracks(from)) {
+            return false;
+        }
+        for (Doctor doctor : doctors) {
+            DaySlots.Builder[] perDay = days.get(doctor.getId());
+            for (int i = 0; i < perDay.length; i++) {
+                bookingEngine.markBooked(doctor.getId(), from.plusDays(i), perDay[i]);
+            }
+        }
+        return true;
+    }
+
+    private void addBusyFromDatabase(LocalDate from, LocalDate to, Map<Long, DaySlots.Builder[]> days) {
+        List<BusyInterval> busy = appointmentRepository.findOverlappingForDoctors(
+                days.keySet(),
+                AppointmentStatus.CONFIRMED,
+                from.atTime(properties.getWorkingHoursStart()),
+                to.atTime(properties.getWorkingHoursEnd())
+        );
+        for (BusyInterval run : mergeOverlapping(busy)) {
+            DaySlots.Builder[] perDay = days.get(run.doctorId());
+            int first = (int) Math.max(0, ChronoUnit.DAYS.between(from, run.startTime().toLocalDate()));
+            int last = (int) Math.min(perDay.length - 1, ChronoUnit.DAYS.between(from, run.endTime().toLocalDate()));
+            for (int i = first; i <= last; i++) {
+                perDay[i].busy(run.startTime(), run.endTime());
+            }
+        }
+    }
+
+    /**
+     * Earliest free slots starting at or after {@code after} across all doctors of a specialization.
+     * Each doctor contributes a lazy cursor over its free slots; a priority queue ordered by slot start merges them and
+     * stops after {@code limit} results. A cursor whose next day is not loaded yet is queued at that day's start, and
+     * loads exactly one day when it reaches the head of the queue, so no day is read unless it could still hold one of
+     * the {@code limit} earliest slots: a fully booked doctor costs one day per queue turn, not the whole horizon.
+     * The search gives up after appointments.nextAvailableHorizonDays days.
+     */
+    @Transactional(readOnly = true)
+    public List<AvailableSlot> findNextAvailable(String specialization, LocalDateTime after, int limit) {
+        if (specialization == null || specialization.isBlank()) {
+            throw new InvalidRequestException("specialization is required.");
+        }
+        if (limit < 1 || limit > MAX_NEXT_AVAILABLE) {
+            throw new InvalidRequestException("limit must be between 1 and " + MAX_NEXT_AVAILABLE + ".");
+        }
+        LocalDate lastDate = after.toLocalDate().plusDays(properties.getNextAvailableHorizonDays() - 1L);
+
+        PriorityQueue<SlotCursor> queue = new PriorityQueue<>(
+                Comparator.comparing((SlotCursor c) -> c.start).thenComparing(c -> c.doctor.getId()));
+        for (Doctor doctor : doctorCache.findBySpecialization(specialization)) {
+            queue.add(new SlotCursor(doctor, after));
+        }
+
+        List<AvailableSlot> result = new ArrayList<>(limit);
+        while (result.size() < limit && !queue.isEmpty()) {
+            SlotCursor cursor = queue.poll();
+            int fromSlot;
+            if (cursor.day == null) {
+                cursor.day = getDaySlots(cursor.doctor, cursor.date);
+                fromSlot = cursor.day.firstSlotAtOrAfter(cursor.start);
+            } else {
+                result.add(new AvailableSlot(cursor.doctor, cursor.start));
+                fromSlot = cursor.slot + 1;
+            }
+            if (cursor.seek(fromSlot) || cursor.nextDay(lastDate)) {
+                queue.add(cursor);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A doctor's position in the merge: on a free slot of a loaded day, or (day == null) before a day not loaded yet,
+     * with start as the earliest time that day could offer.
+     */
+    private static final class SlotCursor {
+        private final Doctor doctor;
+        private LocalDate date;
+        private DaySlots day;
+        private int slot;
+        private LocalDateTime start;
+
+        private SlotCursor(Doctor doctor, LocalDateTime after) {
+            this.doctor = doctor;
+            this.date = after.toLocalDate();
+            this.start = after;
+        }
+
+        /**
+         * Moves to the first free slot at or after fromSlot on the loaded day; false if there is none.
+         */
+        private boolean seek(int fromSlot) {
+            int free = day.nextFree(fromSlot);
+            if (free < 0) {
+                return false;
+            }
+            slot = free;
+            start = day.slotStart(free);
+            return true;
+        }
+
+        /**
+         * Moves before the following day, without loading it; false past lastDate.
+         */
+        private boolean nextDay(LocalDate lastDate) {
+            date = date.plusDays(1);
+            day = null;
+            start = date.atStartOfDay();
+            return !date.isAfter(lastDate);
+        }
+    }
+
+    private List<Doctor> resolveDoctors(List<Long> doctorIds, String specialization) {
+        if (doctorIds != null && !doctorIds.isEmpty()) {
+            Set<Long> requested = new LinkedHashSet<>(doctorIds);
+            Map<Long, Doctor> found = doctorCache.findAllById(requested);
+            List<Doctor> ordered = new ArrayList<>(requested.size());
+            for (Long id : requested) {
+                Doctor d = found.get(id);
+                if (d == null) {
+                    throw new ResourceNotFoundException("Doctor not found: " + id);
+                }
+                ordered.add(d);
+            }
+            return ordered;
+        }
+        if (specialization != null && !specialization.isBlank()) {
+            return doctorCache.findBySpecialization(specialization);
+        }
+        throw new InvalidRequestException("Provide doctorIds or specialization.");
+    }
 
-        return available;
+    private DaySlots.Builder newDay(LocalDate date, Doctor doctor) {
+        SlotTemplate template = SlotTemplate.of(properties.getWorkingHoursStart(), properties.getWorkingHoursEnd(),
+                doctor.getPerSlotDurationMinutes());
+        return DaySlots.builder(date, template);
     }
 }
@@ -0,0 +1,35 @@
+package com.example.appointments.service;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-flight guard for bookings of the same (doctor, start time) within this instance.
+ * The first caller enters; every other caller for that slot is turned away until the first one leaves,
+ * so a stampede on one slot costs one transaction instead of one per request.
+ * Entries exist only while a booking is running, so the set is bounded by request concurrency.
+ * The unique (doctor_id, start_time) key remains the source of truth across instances.
+ */
+final class SlotBookingGate {
+
+    private record Slot(Long doctorId, LocalDateTime startTime) {
+    }
+
+    private final Set<Slot> inFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @return true if the caller now owns the slot and must call {@link #exit}; false if a booking is already running
+     */
+    boolean tryEnter(Long doctorId, LocalDateTime startTime) {
+        return inFlight.add(new Slot(doctorId, startTime));
+    }
+
+    void exit(Long doctorId, LocalDateTime startTime) {
+        inFlight.remove(new Slot(doctorId, startTime));
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.appointments.service;
+
+import com.example.appointments.cache.DoctorCache;
+import com.example.appointments.cache.SlotHolds;
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.dto.ConfirmSlotHoldRequest;
+import com.example.appointments.dto.CreateAppointmentRequest;
+import com.example.appointments.dto.CreateSlotHoldRequest;
+import com.example.appointments.entity.Appointment;
+import com.example.appointments.entity.AppointmentStatus;
+import com.example.appointments.entity.Doctor;
+import com.example.appointments.exception.InvalidRequestException;
+import com.example.appointments.exception.ResourceNotFoundException;
+import com.example.appointments.exception.SlotAlreadyBookedException;
+import com.example.appointments.repository.AppointmentRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Hold a slot while the patient fills in their details, then confirm (book) or release it.
+ * A client that holds first gets its 409 before the form rather than after it, and nobody else can take the slot
+ * in between. Holds are shared by all instances (see SlotHolds); the database constraints remain what guarantees
+ * no double booking.
+ */
+@Service
+public class SlotHoldService {
+
+    private final DoctorCache doctorCache;
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentService appointmentService;
+    private final SlotHolds slotHolds;
+    private final AppointmentsProperties.SlotHolds properties;
+
+    public SlotHoldService(DoctorCache doctorCache,
+                           AppointmentRepository appointmentRepository,
+                           AppointmentService appointmentService,
+                           SlotHolds slotHolds,
+                           AppointmentsProperties properties) {
+        this.doctorCache = doctorCache;
+        this.appointmentRepository = appointmentRepository;
+        this.appointmentService = appointmentService;
+        this.slotHolds = slotHolds;
+        this.properties = properties.getSlotHolds();
+    }
+
+    /**
+     * Holds the slot starting at req.startTime for req.minutes (appointments.slotHolds.defaultTtl when absent).
+     * Fails with 409 if the slot is booked or already held.
+     */
+    public SlotHolds.Hold hold(CreateSlotHoldRequest req) {
+        Duration ttl = req.getMinutes() != null ? Duration.ofMinutes(req.getMinutes()) : properties.getDefaultTtl();
+        if (ttl.compareTo(properties.getMaxTtl()) > 0) {
+            throw new InvalidRequestException("minutes must not exceed " + properties.getMaxTtl().toMinutes() + ".");
+        }
+        Doctor doctor = doctorCache.findById(req.getDoctorId())
+                .orElseThrow(() -> new ResourceNotFoundException("Doctor not found: " + req.getDoctorId()));
+        LocalDateTime start = req.getStartTime();
+        LocalDateTime end = start.plusMinutes(doctor.getPerSlotDurationMinutes());
+
+        // A cheap early answer only; booking re-checks under the database constraints
+        if (appointmentRepository.existsByDoctorAndStatusAndStartTimeLessThanAndEndTimeGreater(
+                doctor, AppointmentStatus.CONFIRMED, end, start)) {
+            throw new SlotAlreadyBookedException("Requested slot is already booked.");
+        }
+        return slotHolds.place(doctor.getId(), start, end, ttl)
+                .orElseThrow(() -> new SlotAlreadyBookedException("Requested slot is held by another patient.",
+                        SlotAlreadyBookedException.Reason.HELD));
+    }
+
+    /**
+     * Books the held slot for the patient and releases the hold.
+     */
+    public Appointment confirm(String holdId, ConfirmSlotHoldRequest req) {
+        SlotHolds.Hold hold = slotHolds.get(holdId)
+                .orElseThrow(() -> new ResourceNotFoundException("Slot hold not found or expired: " + holdId));
+        CreateAppointmentRequest booking = new CreateAppointmentRequest(hold.doctorId(), req.getPatientName(), hold.startTime());
+        booking.setPatientId(req.getPatientId());
+        booking.setHoldId(holdId);
+        return appointmentService.book(booking);
+    }
+
+    public void release(String holdId) {
+        if (!slotHolds.release(holdId)) {
+            throw new ResourceNotFoundException("Slot hold not found or expired: " + holdId);
+        }
+    }
+}
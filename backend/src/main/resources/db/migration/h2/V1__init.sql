@@ -0,0 +1,25 @@
+-- Baseline schema matching the JPA entities (Doctor, Appointment)
+
+CREATE TABLE doctors (
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name              VARCHAR(255) NOT NULL,
+    specialization    VARCHAR(255) NOT NULL,
+    contact_email     VARCHAR(255) NOT NULL,
+    per_slot_duration INTEGER      NOT NULL,
+    CONSTRAINT uk_doctors_contact_email UNIQUE (contact_email),
+    CONSTRAINT ck_doctors_per_slot_duration CHECK (per_slot_duration >= 5)
+);
+
+-- Pooled id generator for Appointment (allocationSize = 50)
+CREATE SEQUENCE appointments_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE appointments (
+    id           BIGINT       PRIMARY KEY,
+    doctor_id    BIGINT       NOT NULL,
+    patient_name VARCHAR(255) NOT NULL,
+    start_time   TIMESTAMP(6) NOT NULL,
+    end_time     TIMESTAMP(6) NOT NULL,
+    status       ENUM ('CANCELLED', 'CONFIRMED') NOT NULL,
+    version      INTEGER      NOT NULL DEFAULT 0,
+    CONSTRAINT fk_appointments_doctor FOREIGN KEY (doctor_id) REFERENCES doctors (id)
+);
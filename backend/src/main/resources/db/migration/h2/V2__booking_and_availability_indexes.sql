@@ -0,0 +1,10 @@
+-- One row per (doctor, slot start): duplicate-insert guard for booking and conflict target of the booking upsert
+ALTER TABLE appointments ADD CONSTRAINT uk_appointments_doctor_start UNIQUE (doctor_id, start_time);
+
+-- Covers the overlap queries (doctor_id = ? AND status = ? AND start_time < ? AND end_time > ?) without touching the table
+CREATE INDEX idx_appointments_doctor_status_time ON appointments (doctor_id, status, start_time, end_time);
+
+-- Does not serve findBySpecializationIgnoreCase: H2 has no expression indexes and cannot seek a plain index for
+-- upper(specialization) = upper(?), so that filter scans doctors (fine for the in-memory dev database).
+-- Kept so the H2 schema keeps the same index set as PostgreSQL and MySQL.
+CREATE INDEX idx_doctors_specialization ON doctors (specialization);
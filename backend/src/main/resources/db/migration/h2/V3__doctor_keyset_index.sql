@@ -0,0 +1,4 @@
+-- Mirrors the keyset index of the other databases and replaces the single-column index. H2 still cannot seek it for
+-- upper(specialization) = upper(?); keyset pages by specialization walk the primary key from afterId instead.
+CREATE INDEX idx_doctors_specialization_id ON doctors (specialization, id);
+DROP INDEX idx_doctors_specialization;
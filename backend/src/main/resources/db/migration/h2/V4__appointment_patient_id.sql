@@ -0,0 +1,5 @@
+-- Stable patient identifier for history lookups; nullable because existing rows only carry patient_name
+ALTER TABLE appointments ADD COLUMN patient_id VARCHAR(64);
+
+-- Patient history (patient_id = ? ORDER BY start_time DESC, id DESC) reads this index backwards
+CREATE INDEX idx_appointments_patient_start ON appointments (patient_id, start_time, id);
@@ -0,0 +1,18 @@
+-- Append-only history of appointment state changes, written behind the booking path (AppointmentAuditLog).
+-- No foreign keys: audit inserts never lock or wait on the live appointments/doctors rows, and reports read only this table.
+CREATE TABLE appointment_events (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    appointment_id BIGINT       NOT NULL,
+    doctor_id      BIGINT       NOT NULL,
+    event_type     VARCHAR(16)  NOT NULL,
+    patient_name   VARCHAR(255),
+    patient_id     VARCHAR(64),
+    start_time     TIMESTAMP(6) NOT NULL,
+    end_time       TIMESTAMP(6) NOT NULL,
+    -- UTC
+    occurred_at    TIMESTAMP(6) NOT NULL
+);
+
+-- One appointment's history in order, and time-window reports
+CREATE INDEX idx_appointment_events_appointment ON appointment_events (appointment_id, id);
+CREATE INDEX idx_appointment_events_occurred ON appointment_events (occurred_at);
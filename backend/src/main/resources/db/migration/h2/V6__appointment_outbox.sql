@@ -0,0 +1,11 @@
+-- Transactional outbox: one row per appointment change, inserted in the booking/cancel transaction itself
+-- and deleted by OutboxRelay once delivered downstream. Rows are claimed oldest first with FOR UPDATE SKIP LOCKED.
+CREATE TABLE appointment_outbox (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    appointment_id BIGINT        NOT NULL,
+    event_type     VARCHAR(16)   NOT NULL,
+    -- JSON
+    payload        VARCHAR(4000) NOT NULL,
+    -- UTC
+    created_at     TIMESTAMP(6)  NOT NULL
+);
@@ -0,0 +1,30 @@
+-- Baseline schema matching the JPA entities (Doctor, Appointment)
+
+CREATE TABLE doctors (
+    id                BIGINT       NOT NULL AUTO_INCREMENT,
+    name              VARCHAR(255) NOT NULL,
+    specialization    VARCHAR(255) NOT NULL,
+    contact_email     VARCHAR(255) NOT NULL,
+    per_slot_duration INTEGER      NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_doctors_contact_email UNIQUE (contact_email),
+    CONSTRAINT ck_doctors_per_slot_duration CHECK (per_slot_duration >= 5)
+) ENGINE = InnoDB;
+
+-- MySQL has no sequences; Hibernate emulates the pooled appointments_seq generator with this table
+CREATE TABLE appointments_seq (
+    next_val BIGINT
+) ENGINE = InnoDB;
+INSERT INTO appointments_seq VALUES (1);
+
+CREATE TABLE appointments (
+    id           BIGINT       NOT NULL,
+    doctor_id    BIGINT       NOT NULL,
+    patient_name VARCHAR(255) NOT NULL,
+    start_time   DATETIME(6)  NOT NULL,
+    end_time     DATETIME(6)  NOT NULL,
+    status       ENUM ('CANCELLED', 'CONFIRMED') NOT NULL,
+    version      INTEGER      NOT NULL DEFAULT 0,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_appointments_doctor FOREIGN KEY (doctor_id) REFERENCES doctors (id)
+) ENGINE = InnoDB;
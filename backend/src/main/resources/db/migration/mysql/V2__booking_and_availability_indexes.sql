@@ -0,0 +1,9 @@
+-- One row per (doctor, slot start): duplicate-insert guard for booking and the key that
+-- INSERT ... ON DUPLICATE KEY UPDATE hits in single-statement booking
+ALTER TABLE appointments ADD CONSTRAINT uk_appointments_doctor_start UNIQUE (doctor_id, start_time);
+
+-- Covers the overlap queries (doctor_id = ? AND status = ? AND start_time < ? AND end_time > ?) without touching the table
+CREATE INDEX idx_appointments_doctor_status_time ON appointments (doctor_id, status, start_time, end_time);
+
+-- findBySpecializationIgnoreCase compiles to upper(specialization) = upper(?); functional index (MySQL 8.0.13+)
+CREATE INDEX idx_doctors_specialization_upper ON doctors ((upper(specialization)));
@@ -0,0 +1,10 @@
+-- No V3 here: keyset paging by specialization (upper(specialization) = upper(?) AND id > ? ORDER BY id) needs no new
+-- index on MySQL, since InnoDB secondary indexes end with the primary key, so idx_doctors_specialization_upper is
+-- already (upper(specialization), id).
+
+-- Stable patient identifier for history lookups; nullable because existing rows only carry patient_name
+ALTER TABLE appointments ADD COLUMN patient_id VARCHAR(64) NULL;
+
+-- Patient history (patient_id = ? ORDER BY start_time DESC, id DESC) reads this index backwards;
+-- InnoDB appends the primary key, so (patient_id, start_time) already ends with id
+CREATE INDEX idx_appointments_patient_start ON appointments (patient_id, start_time);
@@ -0,0 +1,19 @@
+-- Append-only history of appointment state changes, written behind the booking path (AppointmentAuditLog).
+-- No foreign keys: audit inserts never lock or wait on the live appointments/doctors rows, and reports read only this table.
+CREATE TABLE appointment_events (
+    id             BIGINT       NOT NULL AUTO_INCREMENT,
+    appointment_id BIGINT       NOT NULL,
+    doctor_id      BIGINT       NOT NULL,
+    event_type     VARCHAR(16)  NOT NULL,
+    patient_name   VARCHAR(255) NULL,
+    patient_id     VARCHAR(64)  NULL,
+    start_time     DATETIME(6)  NOT NULL,
+    end_time       DATETIME(6)  NOT NULL,
+    -- UTC
+    occurred_at    DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- One appointment's history in order, and time-window reports
+CREATE INDEX idx_appointment_events_appointment ON appointment_events (appointment_id, id);
+CREATE INDEX idx_appointment_events_occurred ON appointment_events (occurred_at);
@@ -0,0 +1,12 @@
+-- Transactional outbox: one row per appointment change, inserted in the booking/cancel transaction itself
+-- and deleted by OutboxRelay once delivered downstream. Rows are claimed oldest first with FOR UPDATE SKIP LOCKED (MySQL 8.0+).
+CREATE TABLE appointment_outbox (
+    id             BIGINT        NOT NULL AUTO_INCREMENT,
+    appointment_id BIGINT        NOT NULL,
+    event_type     VARCHAR(16)   NOT NULL,
+    -- JSON
+    payload        VARCHAR(4000) NOT NULL,
+    -- UTC
+    created_at     DATETIME(6)   NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,21 @@
+-- One row per (doctor, slot start): duplicate-insert guard for booking and conflict target of
+-- INSERT ... ON CONFLICT (doctor_id, start_time) in single-statement booking
+ALTER TABLE appointments ADD CONSTRAINT uk_appointments_doctor_start UNIQUE (doctor_id, start_time);
+
+-- Covering index for the overlap queries (doctor_id = ? AND status = ? AND start_time < ? AND end_time > ?)
+CREATE INDEX idx_appointments_doctor_status_time ON appointments (doctor_id, status, start_time, end_time);
+
+-- Availability and booking only ever look at CONFIRMED rows; this partial index skips the CANCELLED history
+-- and answers those queries with index-only scans
+CREATE INDEX idx_appointments_confirmed_doctor_time ON appointments (doctor_id, start_time, end_time)
+    WHERE status = 'CONFIRMED';
+
+-- findBySpecializationIgnoreCase compiles to upper(specialization) = upper(?), so index that expression
+CREATE INDEX idx_doctors_specialization_upper ON doctors (upper(specialization));
+
+-- No two CONFIRMED appointments of a doctor may overlap, even when they are not slot-aligned
+-- (the unique key only covers identical start times). btree_gist is a trusted extension (PG 13+).
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+ALTER TABLE appointments ADD CONSTRAINT ex_appointments_confirmed_no_overlap
+    EXCLUDE USING gist (doctor_id WITH =, tsrange(start_time, end_time) WITH &&)
+    WHERE (status = 'CONFIRMED');
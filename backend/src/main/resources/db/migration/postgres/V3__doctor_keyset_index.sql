@@ -0,0 +1,4 @@
+-- Keyset paging by specialization (upper(specialization) = upper(?) AND id > ? ORDER BY id) seeks this index directly;
+-- it still serves plain specialization lookups, so it replaces the single-column expression index
+CREATE INDEX idx_doctors_specialization_upper_id ON doctors (upper(specialization), id);
+DROP INDEX idx_doctors_specialization_upper;
@@ -0,0 +1,14 @@
+-- Slot holds shared by every instance (SlotHolds). A hold is live while expires_at is in the future; reads skip
+-- expired rows, and a doctor's expired rows are deleted when their next hold is placed.
+CREATE TABLE slot_holds (
+    id         VARCHAR(36)  PRIMARY KEY,
+    doctor_id  BIGINT       NOT NULL,
+    start_time TIMESTAMP(6) NOT NULL,
+    end_time   TIMESTAMP(6) NOT NULL,
+    -- UTC
+    expires_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT fk_slot_holds_doctor FOREIGN KEY (doctor_id) REFERENCES doctors (id)
+);
+
+-- A doctor's holds overlapping a time window
+CREATE INDEX idx_slot_holds_doctor_start ON slot_holds (doctor_id, start_time);
@@ -0,0 +1,90 @@
+package com.example.appointments.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DaySlotsTest {
+
+    private final LocalDateTime dayStart = LocalDateTime.of(2025, 12, 31, 0, 0);
+
+    @Test
+    void builder_countsWholeSlotsOnly() {
+        DaySlots day = DaySlots.builder(dayStart, dayStart.plusMinutes(100), 30).build();
+        assertEquals(3, day.getSlotCount());
+        assertEquals(3, day.freeCount());
+    }
+
+    @Test
+    void busy_marksEveryOverlappingSlot_andIgnoresOutsideWindow() {
+        DaySlots day = DaySlots.builder(dayStart, dayStart.plusHours(3), 30)
+                .busy(dayStart.plusMinutes(45), dayStart.plusMinutes(75)) // slots 1 and 2
+                .busy(dayStart.minusHours(1), dayStart.minusMinutes(30)) // before the window
+                .build();
+
+        assertTrue(day.isFree(0));
+        assertFalse(day.isFree(1));
+        assertFalse(day.isFree(2));
+        assertTrue(day.isFree(3));
+        assertEquals(4, day.freeCount());
+        assertEquals(3, day.nextFree(1));
+    }
+
+    @Test
+    void nextFree_crossesWordBoundaries() {
+        // 5-minute slots over 24h = 288 slots = 5 words
+        DaySlots day = DaySlots.builder(dayStart, dayStart.plusDays(1), 5)
+                .busy(dayStart, dayStart.plusMinutes(5 * 200))
+                .build();
+
+        assertEquals(288, day.getSlotCount());
+        assertEquals(200, day.nextFree(0));
+        assertEquals(287, day.nextFree(287));
+        assertEquals(-1, day.nextFree(288));
+        assertEquals(dayStart.plusMinutes(5 * 200), day.slotStart(day.nextFree(0)));
+    }
+
+    @Test
+    void withBusy_returnsNewSnapshot_leavingOriginalUntouched() {
+        DaySlots day = DaySlots.builder(dayStart, dayStart.plusHours(1), 30).build();
+        DaySlots booked = day.withBusy(dayStart, dayStart.plusMinutes(30));
+
+        assertTrue(day.isFree(0));
+        assertFalse(booked.isFree(0));
+        assertSame(booked, booked.withBusy(dayStart, dayStart.plusMinutes(30)));
+        assertEquals(-1, booked.withBusy(dayStart.plusMinutes(30), dayStart.plusHours(1)).nextFree(0));
+    }
+
+    @Test
+    void freeSlotStarts_matchLocalDateTimeToString_includingPastMidnight() {
+        LocalDateTime lateStart = LocalDateTime.of(2025, 12, 31, 22, 0, 30);
+        DaySlots day = DaySlots.builder(lateStart, lateStart.plusHours(4), 45)
+                .busy(lateStart.plusMinutes(45), lateStart.plusMinutes(90))
+                .build();
+
+        List<String> expected = new ArrayList<>();
+        for (int slot : new int[]{0, 2, 3, 4}) {
+            expected.add(lateStart.plusMinutes(45L * slot).toString());
+        }
+        assertEquals(expected, day.freeSlotStarts());
+    }
+
+    @Test
+    void template_isSharedPerWorkingHoursAndSlotLength() {
+        SlotTemplate template = SlotTemplate.of(LocalTime.of(9, 0), LocalTime.of(17, 0), 30);
+
+        assertSame(template, SlotTemplate.of(LocalTime.of(9, 0), LocalTime.of(17, 0), 30));
+        assertNotSame(template, SlotTemplate.of(LocalTime.of(9, 0), LocalTime.of(17, 0), 20));
+        assertEquals(16, template.getSlotCount());
+        assertEquals("T16:30", template.time(15));
+        assertEquals(List.of("2026-01-02T16:30"),
+                DaySlots.builder(LocalDate.of(2026, 1, 2), template).busy(LocalDateTime.of(2026, 1, 2, 9, 0),
+                        LocalDateTime.of(2026, 1, 2, 16, 30)).build().freeSlotStarts());
+    }
+}
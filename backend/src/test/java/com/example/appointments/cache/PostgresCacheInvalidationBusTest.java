@@ -0,0 +1,112 @@
+package com.example.appointments.cache;
+
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.config.PrimaryReads;
+import com.example.appointments.entity.Doctor;
+import com.example.appointments.event.AppointmentChangedEvent;
+import com.example.appointments.repository.DoctorRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PostgresCacheInvalidationBusTest {
+
+    private final LocalDate date = LocalDate.of(2030, 1, 1);
+    private final LocalDateTime start = date.atTime(10, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private DoctorRepository doctorRepository;
+    private SlotIndex slotIndex;
+    private SlotHolds slotHolds;
+    private DoctorCache doctorCache;
+    private Cache hibernateCache;
+    private PostgresCacheInvalidationBus bus;
+
+    @BeforeEach
+    void setUp() {
+        AppointmentsProperties properties = new AppointmentsProperties();
+        jdbcTemplate = mock(JdbcTemplate.class);
+        doctorRepository = mock(DoctorRepository.class);
+        slotIndex = new SlotIndex(properties);
+        slotHolds = mock(SlotHolds.class);
+        doctorCache = new DoctorCache(doctorRepository, PrimaryReads.inline(), properties);
+        hibernateCache = mock(Cache.class);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.getCache()).thenReturn(hibernateCache);
+        when(hibernateCache.unwrap(Cache.class)).thenReturn(hibernateCache);
+        bus = new PostgresCacheInvalidationBus(mock(DataSource.class), jdbcTemplate, slotIndex, slotHolds, doctorCache,
+                entityManagerFactory, properties);
+    }
+
+    @Test
+    void message_roundTrips() {
+        InvalidationMessage booked = new InvalidationMessage("n1", InvalidationMessage.Type.BOOKED, 7L, start, start.plusMinutes(30));
+        InvalidationMessage doctor = InvalidationMessage.doctor("n1", 7L);
+
+        assertEquals(booked, InvalidationMessage.parse(booked.encode()));
+        assertEquals(doctor, InvalidationMessage.parse(doctor.encode()));
+        assertThrows(IllegalArgumentException.class, () -> InvalidationMessage.parse("n1|BOOKED|7"));
+        assertThrows(IllegalArgumentException.class, () -> InvalidationMessage.parse("garbage"));
+    }
+
+    @Test
+    void remoteBooking_patchesLoadedDay_remoteCancellation_evictsIt() {
+        slotIndex.get(7L, date, () -> DaySlots.builder(date.atTime(9, 0), date.atTime(17, 0), 30).build());
+
+        bus.apply("other-node|BOOKED|7|" + start + "|" + start.plusMinutes(30));
+        assertFalse(slotIndex.getIfPresent(7L, date).isFree(2));
+
+        bus.apply("other-node|CANCELLED|7|" + start + "|" + start.plusMinutes(30));
+        assertNull(slotIndex.getIfPresent(7L, date));
+    }
+
+    @Test
+    void remoteHoldChange_dropsTheDoctorsHolds() {
+        bus.apply("other-node|HOLD|7|" + start + "|" + start.plusMinutes(30));
+
+        verify(slotHolds).onSlotHoldChanged(argThat(e -> e.getDoctorId() == 7L
+                && e.getStartTime().equals(start) && e.getEndTime().equals(start.plusMinutes(30))));
+    }
+
+    @Test
+    void remoteDoctorChange_evictsDoctor_includingHibernateCaches() {
+        Doctor doctor = new Doctor("Dr. Remote", "General", "remote@example.com", 30);
+        doctor.setId(7L);
+        when(doctorRepository.findById(7L)).thenReturn(Optional.of(doctor));
+        doctorCache.findById(7L);
+
+        bus.apply("other-node|DOCTOR|7");
+        doctorCache.findById(7L);
+
+        verify(doctorRepository, times(2)).findById(7L);
+        verify(hibernateCache).evictEntityData(Doctor.class, 7L);
+        verify(hibernateCache).evictQueryRegions();
+    }
+
+    @Test
+    void ownNotifications_areIgnored() {
+        slotIndex.get(7L, date, () -> DaySlots.builder(date.atTime(9, 0), date.atTime(17, 0), 30).build());
+        AppointmentChangedEvent cancelled = new AppointmentChangedEvent(AppointmentChangedEvent.Type.CANCELLED,
+                1L, 7L, start, start.plusMinutes(30));
+
+        bus.onAppointmentChanged(cancelled);
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).query(eq("SELECT pg_notify(?, ?)"), any(ResultSetExtractor.class), eq("appointments_cache"), payload.capture());
+
+        bus.apply((String) payload.getValue());
+        assertNotNull(slotIndex.getIfPresent(7L, date));
+    }
+}
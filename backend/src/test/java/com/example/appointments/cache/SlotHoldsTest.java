@@ -0,0 +1,157 @@
+package com.example.appointments.cache;
+
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.config.PrimaryReads;
+import com.example.appointments.entity.Doctor;
+import com.example.appointments.event.SlotHoldChangedEvent;
+import com.example.appointments.repository.DoctorRepository;
+import com.example.appointments.repository.SlotHoldRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two SlotHolds instances sharing the Flyway-migrated H2 schema, standing in for two application instances.
+ * Runs without a test transaction, as SlotHolds commits its own.
+ */
+@DataJpaTest
+@Import(SlotHoldRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SlotHoldsTest {
+
+    @Autowired
+    private SlotHoldRepository repository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final AppointmentsProperties properties = new AppointmentsProperties();
+    private final List<SlotHoldChangedEvent> events = new CopyOnWriteArrayList<>();
+    private final LocalDate date = LocalDate.of(2030, 1, 1);
+    private final LocalDateTime start = date.atTime(10, 0);
+
+    private SlotIndex index;
+    private SlotHolds holds;
+    private SlotHolds otherInstance;
+    private Long doctorId;
+    private Long otherDoctorId;
+
+    @BeforeEach
+    void setUp() {
+        index = new SlotIndex(properties);
+        holds = slotHolds(index);
+        otherInstance = slotHolds(new SlotIndex(properties));
+        doctorId = doctorRepository.save(new Doctor("Dr. Hold", "General", "hold@example.com", 30)).getId();
+        otherDoctorId = doctorRepository.save(new Doctor("Dr. Other", "General", "other-hold@example.com", 30)).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (holds.isRunning()) {
+            holds.stop();
+        }
+        jdbcTemplate.update("DELETE FROM slot_holds");
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    void place_refusesOverlappingLiveHold_onAnyInstance_butNotAdjacentOnes() {
+        SlotHolds.Hold first = holds.place(doctorId, start, start.plusMinutes(30), Duration.ofMinutes(5)).orElseThrow();
+
+        assertTrue(otherInstance.place(doctorId, start.plusMinutes(15), start.plusMinutes(45), Duration.ofMinutes(5)).isEmpty());
+        assertTrue(otherInstance.place(doctorId, start.plusMinutes(30), start.plusMinutes(60), Duration.ofMinutes(5)).isPresent());
+        assertTrue(holds.place(otherDoctorId, start, start.plusMinutes(30), Duration.ofMinutes(5)).isPresent());
+
+        assertTrue(otherInstance.isHeldByOther(doctorId, start, start.plusMinutes(30), null));
+        assertFalse(otherInstance.isHeldByOther(doctorId, start, start.plusMinutes(30), first.id()));
+        assertEquals(2, holds.overlapping(doctorId, date.atStartOfDay(), date.plusDays(1).atStartOfDay()).size());
+    }
+
+    @Test
+    void release_onAnotherInstance_freesTheSlot_andNotifiesListeners() {
+        List<LocalDate> changed = new CopyOnWriteArrayList<>();
+        index.addChangeListener((doctor, d) -> changed.add(d));
+        SlotHolds.Hold hold = holds.place(doctorId, start, start.plusMinutes(30), Duration.ofMinutes(5)).orElseThrow();
+        applyEvents(holds);
+
+        assertEquals(hold, otherInstance.get(hold.id()).orElseThrow());
+        assertTrue(otherInstance.release(hold.id()));
+        assertFalse(holds.release(hold.id()));
+        applyEvents(holds);
+
+        assertTrue(holds.get(hold.id()).isEmpty());
+        assertFalse(holds.isHeldByOther(doctorId, start, start.plusMinutes(30), null));
+        assertTrue(holds.overlapping(doctorId, start, start.plusMinutes(30)).isEmpty());
+        assertEquals(List.of(date, date), changed);
+    }
+
+    @Test
+    void overlapping_reusesTheDoctorsHolds_untilAChangeIsAnnounced() {
+        assertTrue(otherInstance.overlapping(doctorId, start, start.plusMinutes(30)).isEmpty());
+        holds.place(doctorId, start, start.plusMinutes(30), Duration.ofMinutes(5)).orElseThrow();
+
+        // Bookings still see it at once; availability on the other instance once the bus delivers the change
+        assertTrue(otherInstance.isHeldByOther(doctorId, start, start.plusMinutes(30), null));
+        assertTrue(otherInstance.overlapping(doctorId, start, start.plusMinutes(30)).isEmpty());
+        applyEvents(otherInstance);
+        assertEquals(1, otherInstance.overlapping(doctorId, start, start.plusMinutes(30)).size());
+    }
+
+    @Test
+    void expiredHold_isIgnoredAtOnce_deletedByTheNextPlacement_andReported() throws InterruptedException {
+        List<LocalDate> changed = new CopyOnWriteArrayList<>();
+        index.addChangeListener((doctor, d) -> changed.add(d));
+        SlotHolds.Hold hold = holds.place(doctorId, start, start.plusMinutes(30), Duration.ofMillis(20)).orElseThrow();
+        Thread.sleep(40);
+
+        assertTrue(holds.get(hold.id()).isEmpty());
+        assertTrue(holds.overlapping(doctorId, start, start.plusMinutes(30)).isEmpty());
+        holds.place(doctorId, start, start.plusMinutes(30), Duration.ofMillis(20)).orElseThrow();
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM slot_holds", Integer.class));
+
+        // Both holds were queued for expiry when placed; the reaper reports each deadline
+        holds.start();
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (changed.size() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of(date, date), changed);
+    }
+
+    private SlotHolds slotHolds(SlotIndex slotIndex) {
+        return new SlotHolds(repository, slotIndex, PrimaryReads.inline(), new TransactionTemplate(transactionManager),
+                event -> events.add((SlotHoldChangedEvent) event), properties);
+    }
+
+    /**
+     * Delivers the published changes as the after-commit listener (own instance) or the bus (other instances) would.
+     */
+    private void applyEvents(SlotHolds target) {
+        for (SlotHoldChangedEvent event : events) {
+            target.onSlotHoldChanged(event);
+        }
+        events.clear();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.appointments.cache;
+
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.event.AppointmentChangedEvent;
+import com.example.appointments.event.DoctorChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlotIndexTest {
+
+    private final SlotIndex index = new SlotIndex(new AppointmentsProperties());
+    private final LocalDate date = LocalDate.of(2030, 1, 1);
+    private final LocalDateTime start = date.atTime(10, 0);
+
+    @Test
+    void booking_marksTheLoadedDay_andCancellationEvictsIt() {
+        DaySlots day = DaySlots.builder(date.atTime(9, 0), date.atTime(17, 0), 30).build();
+        index.get(1L, date, () -> day);
+
+        index.onAppointmentChanged(new AppointmentChangedEvent(AppointmentChangedEvent.Type.BOOKED, 5L, 1L, start, start.plusMinutes(30)));
+        assertFalse(index.getIfPresent(1L, date).isFree(2));
+
+        index.onAppointmentChanged(new AppointmentChangedEvent(AppointmentChangedEvent.Type.CANCELLED, 5L, 1L, start, start.plusMinutes(30)));
+        assertNull(index.getIfPresent(1L, date));
+    }
+
+    @Test
+    void doctorChange_evictsOnlyThatDoctorsDays() {
+        DaySlots day = DaySlots.builder(date.atTime(9, 0), date.atTime(17, 0), 30).build();
+        index.get(1L, date, () -> day);
+        index.get(2L, date, () -> day);
+
+        index.onDoctorChanged(new DoctorChangedEvent(1L));
+
+        assertNull(index.getIfPresent(1L, date));
+        assertSame(day, index.getIfPresent(2L, date));
+    }
+
+    @Test
+    void get_storesTheLoadedDay() {
+        DaySlots day = DaySlots.builder(date.atTime(9, 0), date.atTime(17, 0), 30).build();
+        int[] loads = new int[1];
+
+        assertSame(day, index.get(1L, date, () -> { loads[0]++; return day; }));
+        assertSame(day, index.get(1L, date, () -> { loads[0]++; return day; }));
+        assertEquals(1, loads[0]);
+    }
+
+    @Test
+    void get_doesNotStoreADayThatChangedWhileLoading() {
+        DaySlots stale = DaySlots.builder(date.atTime(9, 0), date.atTime(17, 0), 30).build();
+
+        DaySlots returned = index.get(1L, date, () -> {
+            // A booking commits after the load read the appointments
+            index.onAppointmentChanged(new AppointmentChangedEvent(AppointmentChangedEvent.Type.BOOKED, 5L, 1L, start, start.plusMinutes(30)));
+            return stale;
+        });
+
+        assertSame(stale, returned);
+        assertNull(index.getIfPresent(1L, date));
+    }
+
+    @Test
+    void changeListeners_hearEveryKindOfChange() {
+        List<String> heard = new ArrayList<>();
+        index.addChangeListener((doctorId, day) -> heard.add(doctorId + "@" + day));
+
+        index.onAppointmentChanged(new AppointmentChangedEvent(AppointmentChangedEvent.Type.BOOKED, 5L, 1L, start, start.plusMinutes(30)));
+        index.evictDoctor(2L);
+        index.invalidateAll();
+
+        assertEquals(List.of("1@" + date, "2@null", "null@null"), heard);
+    }
+}
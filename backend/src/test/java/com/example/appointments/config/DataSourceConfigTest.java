@@ -0,0 +1,66 @@
+package com.example.appointments.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pool construction only: HikariDataSource does not connect until the first getConnection.
+ */
+class DataSourceConfigTest {
+
+    private final DataSourceConfig config = new DataSourceConfig();
+
+    @Test
+    void primaryPool_takesSpringDatasourceHikariSettings() {
+        MockEnvironment env = credentials()
+                .withProperty("DATABASE_URL", "postgres://db.example.com:5432/appointments")
+                .withProperty("spring.datasource.hikari.maximum-pool-size", "32")
+                .withProperty("spring.datasource.hikari.minimum-idle", "8")
+                .withProperty("spring.datasource.hikari.connection-timeout", "2500")
+                .withProperty("spring.datasource.hikari.leak-detection-threshold", "10000")
+                .withProperty("spring.datasource.hikari.data-source-properties.reWriteBatchedInserts", "true");
+
+        try (HikariDataSource ds = (HikariDataSource) config.dataSource(env, new SimpleMeterRegistry())) {
+            assertEquals("jdbc:postgresql://db.example.com:5432/appointments", ds.getJdbcUrl());
+            assertEquals("primary", ds.getPoolName());
+            assertEquals(32, ds.getMaximumPoolSize());
+            assertEquals(8, ds.getMinimumIdle());
+            assertEquals(2500, ds.getConnectionTimeout());
+            assertEquals(10000, ds.getLeakDetectionThreshold());
+            assertEquals("true", ds.getDataSourceProperties().getProperty("reWriteBatchedInserts"));
+            assertInstanceOf(MicrometerMetricsTrackerFactory.class, ds.getMetricsTrackerFactory());
+        }
+    }
+
+    @Test
+    void withReplicas_returnsRoutingDataSource_overThePrimaryPool() throws SQLException {
+        MockEnvironment env = credentials()
+                .withProperty("spring.datasource.url", "jdbc:postgresql://primary:5432/appointments")
+                .withProperty("DATABASE_REPLICA_URLS", "postgres://replica-a:5432/appointments, ,jdbc:postgresql://replica-b:5432/appointments")
+                .withProperty("spring.datasource.hikari.maximum-pool-size", "12");
+
+        DataSource ds = config.dataSource(env, new SimpleMeterRegistry());
+        try {
+            assertInstanceOf(ReadReplicaRoutingDataSource.class, ds);
+            HikariDataSource primary = ds.unwrap(HikariDataSource.class);
+            assertEquals("primary", primary.getPoolName());
+            assertEquals(12, primary.getMaximumPoolSize());
+        } finally {
+            ((ReadReplicaRoutingDataSource) ds).close();
+        }
+    }
+
+    private static MockEnvironment credentials() {
+        return new MockEnvironment()
+                .withProperty("DB_USER", "app")
+                .withProperty("DB_PASSWORD", "secret");
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.appointments.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * A replica that lags the primary: reads that fill caches must not see it.
+ */
+@ExtendWith(MockitoExtension.class)
+class PrimaryReadsTest {
+
+    @Mock
+    private DataSource primary;
+    @Mock
+    private DataSource replica;
+    @Mock
+    private Connection primaryConnection;
+    @Mock
+    private Connection replicaConnection;
+
+    private ReadReplicaRoutingDataSource routing;
+    private DataSourceTransactionManager transactionManager;
+    private PrimaryReads primaryReads;
+
+    @BeforeEach
+    void setUp() {
+        routing = new ReadReplicaRoutingDataSource(primary, Map.of("replica-1", replica), Duration.ofHours(1),
+                new SimpleMeterRegistry());
+        transactionManager = new DataSourceTransactionManager(routing);
+        primaryReads = new ReadRoutingConfig().primaryReads(routing, transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        routing.close();
+    }
+
+    @Test
+    void readInsideReadOnlyTransaction_goesToThePrimary() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        Connection[] used = readOnly.execute(status -> new Connection[] {
+                primaryReads.get(this::physicalConnection),
+                physicalConnection()
+        });
+
+        assertSame(primaryConnection, used[0]);
+        assertSame(replicaConnection, used[1]);
+    }
+
+    @Test
+    void readInsideReadWriteTransaction_runsInPlace() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        Connection used = new TransactionTemplate(transactionManager).execute(status -> {
+            Connection outer = physicalConnection();
+            assertSame(outer, primaryReads.get(this::physicalConnection));
+            return outer;
+        });
+
+        assertSame(primaryConnection, used);
+        verifyNoInteractions(replica);
+    }
+
+    @Test
+    void withoutReplicas_readsRunInPlace() {
+        PrimaryReads inline = new ReadRoutingConfig().primaryReads(primary, transactionManager);
+
+        assertEquals("row", inline.get(() -> "row"));
+        verifyNoInteractions(primary, replica);
+    }
+
+    /**
+     * The connection the current transaction's statements run on.
+     */
+    private Connection physicalConnection() {
+        return ((ConnectionProxy) DataSourceUtils.getConnection(routing)).getTargetConnection();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.appointments.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReadReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+    @Mock
+    private DataSource replica1;
+    @Mock
+    private DataSource replica2;
+    @Mock
+    private Connection primaryConnection;
+    @Mock
+    private Connection replica1Connection;
+    @Mock
+    private Connection replica2Connection;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReadReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replica1);
+        replicas.put("replica-2", replica2);
+        // Health checks are driven by the tests
+        routing = new ReadReplicaRoutingDataSource(primary, replicas, Duration.ofHours(1), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        routing.close();
+    }
+
+    @Test
+    void readOnlyConnections_roundRobinOverReplicas() throws SQLException {
+        when(replica1.getConnection()).thenReturn(replica1Connection);
+        when(replica2.getConnection()).thenReturn(replica2Connection);
+
+        assertSame(replica1Connection, routing.readOnlyConnection());
+        assertSame(replica2Connection, routing.readOnlyConnection());
+        assertSame(replica1Connection, routing.readOnlyConnection());
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void failingReplica_isSkippedUntilItPassesAHealthCheck() throws SQLException {
+        when(replica1.getConnection()).thenThrow(new SQLException("connection refused")).thenReturn(replica1Connection);
+        when(replica2.getConnection()).thenReturn(replica2Connection);
+        when(replica1Connection.isValid(anyInt())).thenReturn(true);
+        when(replica2Connection.isValid(anyInt())).thenReturn(true);
+
+        assertSame(replica2Connection, routing.readOnlyConnection());
+        assertSame(replica2Connection, routing.readOnlyConnection());
+        assertEquals(1, meterRegistry.get("appointments.datasource.replicas.healthy").gauge().value());
+
+        routing.checkReplicas();
+
+        assertEquals(2, meterRegistry.get("appointments.datasource.replicas.healthy").gauge().value());
+        routing.readOnlyConnection();
+        routing.readOnlyConnection();
+        verify(replica1, times(3)).getConnection();
+    }
+
+    @Test
+    void noHealthyReplica_fallsBackToPrimary() throws SQLException {
+        when(replica1.getConnection()).thenThrow(new SQLException("down"));
+        when(replica2.getConnection()).thenThrow(new SQLException("down"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, routing.readOnlyConnection());
+        assertSame(primaryConnection, routing.readOnlyConnection());
+
+        verify(replica1).getConnection();
+        verify(replica2).getConnection();
+        assertEquals(2, meterRegistry.get("appointments.datasource.replica.fallbacks").counter().count());
+        assertEquals(0, meterRegistry.get("appointments.datasource.replicas.healthy").gauge().value());
+    }
+
+    @Test
+    void exhaustedReplicaPool_fallsThrough_withoutTakingTheReplicaOut() throws SQLException {
+        when(replica1.getConnection()).thenThrow(new SQLTransientConnectionException("pool busy"));
+        when(replica2.getConnection()).thenReturn(replica2Connection);
+
+        assertSame(replica2Connection, routing.readOnlyConnection());
+
+        assertEquals(2, meterRegistry.get("appointments.datasource.replicas.healthy").gauge().value());
+    }
+}
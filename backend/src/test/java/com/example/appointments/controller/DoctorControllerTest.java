@@ -0,0 +1,77 @@
+package com.example.appointments.controller;
+
+import com.example.appointments.entity.Doctor;
+import com.example.appointments.service.AvailabilityBroadcaster;
+import com.example.appointments.service.DoctorService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(DoctorController.class)
+class DoctorControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private DoctorService doctorService;
+
+    @MockBean
+    private AvailabilityBroadcaster availabilityBroadcaster;
+
+    @Test
+    void listDoctors_ifNoneMatch_gets304UntilTheListChanges() throws Exception {
+        Doctor doctor = new Doctor("Dr. Tag", "Cardiology", "tag@example.com", 30);
+        doctor.setId(1L);
+        when(doctorService.listDoctors(null)).thenReturn(List.of(doctor));
+
+        String etag = mockMvc.perform(get("/api/doctors"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        mockMvc.perform(get("/api/doctors").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        Doctor renamed = new Doctor("Dr. Renamed", "Cardiology", "tag@example.com", 30);
+        renamed.setId(1L);
+        when(doctorService.listDoctors(null)).thenReturn(List.of(renamed));
+        mockMvc.perform(get("/api/doctors").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Dr. Renamed"));
+    }
+
+    @Test
+    void availability_tagDependsOnlyOnTheSlots() throws Exception {
+        LocalDate date = LocalDate.of(2030, 1, 1);
+        when(doctorService.getAvailability(1L, date)).thenReturn(List.of("2030-01-01T09:00", "2030-01-01T09:30"));
+
+        String etag = mockMvc.perform(get("/api/doctors/1/availability").param("date", date.toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Same slots give the same tag, wherever and whenever they were computed
+        mockMvc.perform(get("/api/doctors/1/availability").param("date", date.toString())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        when(doctorService.getAvailability(1L, date)).thenReturn(List.of("2030-01-01T09:30"));
+        mockMvc.perform(get("/api/doctors/1/availability").param("date", date.toString())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.appointments.integration;
+
+import com.example.appointments.cache.SlotIndex;
+import com.example.appointments.dto.CreateAppointmentRequest;
+import com.example.appointments.entity.Doctor;
+import com.example.appointments.repository.AppointmentRepository;
+import com.example.appointments.repository.DoctorRepository;
+import com.example.appointments.service.AppointmentService;
+import com.example.appointments.service.DoctorService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cross-instance cache invalidation over LISTEN/NOTIFY against a real PostgreSQL.
+ * A plain JDBC connection plays the other instance: it listens for what this one sends, and notifies on its behalf.
+ */
+@Testcontainers
+@SpringBootTest
+@ActiveProfiles("postgres")
+class CacheInvalidationIntegrationTest {
+
+    private static final String CHANNEL = "appointments_cache";
+
+    @Container
+    @SuppressWarnings("resource")
+    public static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("appointmentsdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void registerProps(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private DoctorService doctorService;
+
+    @Autowired
+    private SlotIndex slotIndex;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @AfterEach
+    void cleanup() {
+        appointmentRepository.deleteAll();
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    @Timeout(20)
+    void committedBooking_isNotifiedToOtherInstances() throws Exception {
+        Doctor doctor = doctorRepository.save(new Doctor("Dr. Notify", "General", "notify@example.com", 30));
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withHour(10).withMinute(0).withSecond(0).withNano(0);
+
+        try (Connection other = otherInstance(); Statement st = other.createStatement()) {
+            st.execute("LISTEN " + CHANNEL);
+            appointmentService.book(new CreateAppointmentRequest(doctor.getId(), "Alice", start));
+
+            PGNotification[] received = other.unwrap(PGConnection.class).getNotifications(10_000);
+            assertNotNull(received);
+            assertTrue(received[0].getParameter().contains("|BOOKED|" + doctor.getId() + "|" + start));
+        }
+    }
+
+    @Test
+    @Timeout(20)
+    void otherInstancesCancellation_evictsLocalDay() throws Exception {
+        Doctor doctor = doctorRepository.save(new Doctor("Dr. Listen", "General", "listen@example.com", 30));
+        LocalDate date = LocalDate.now().plusDays(1);
+        doctorService.getAvailability(doctor.getId(), date);
+        assertNotNull(slotIndex.getIfPresent(doctor.getId(), date));
+
+        LocalDateTime start = date.atTime(10, 0);
+        try (Connection other = otherInstance();
+             PreparedStatement ps = other.prepareStatement("SELECT pg_notify(?, ?)")) {
+            ps.setString(1, CHANNEL);
+            ps.setString(2, "other-node|CANCELLED|" + doctor.getId() + "|" + start + "|" + start.plusMinutes(30));
+            ps.execute();
+        }
+
+        while (slotIndex.getIfPresent(doctor.getId(), date) != null) {
+            Thread.sleep(50);
+        }
+    }
+
+    private static Connection otherInstance() throws Exception {
+        return DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+    }
+}
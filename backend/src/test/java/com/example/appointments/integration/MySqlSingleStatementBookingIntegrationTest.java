@@ -0,0 +1,141 @@
+package com.example.appointments.integration;
+
+import com.example.appointments.entity.Appointment;
+import com.example.appointments.entity.AppointmentStatus;
+import com.example.appointments.entity.Doctor;
+import com.example.appointments.repository.AppointmentRepository;
+import com.example.appointments.repository.DoctorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the single-statement booking SQL against MySQL (INSERT ... SELECT ... ON DUPLICATE KEY UPDATE path),
+ * with the schema built by the MySQL Flyway migrations and validated by Hibernate.
+ * The affected-row counts it relies on need useAffectedRows=true, as in application-mysql.yml.
+ */
+@Testcontainers
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JdbcTemplateAutoConfiguration.class)
+@ActiveProfiles("mysql")
+class MySqlSingleStatementBookingIntegrationTest {
+
+    @Container
+    @SuppressWarnings("resource")
+    public static MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0")
+            .withDatabaseName("appointmentsdb")
+            .withUsername("test")
+            .withPassword("test")
+            .withUrlParam("useAffectedRows", "true")
+            .withUrlParam("serverTimezone", "UTC");
+
+    @DynamicPropertySource
+    static void registerProps(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", mysql::getJdbcUrl);
+        registry.add("spring.datasource.username", mysql::getUsername);
+        registry.add("spring.datasource.password", mysql::getPassword);
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Doctor doctor;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        doctor = doctorRepository.save(new Doctor("Dr. Upsert", "General", "upsert@example.com", 30));
+        start = LocalDateTime.of(2030, 1, 1, 10, 0);
+    }
+
+    @Test
+    void bookIfSlotFree_insertsNewRow() {
+        Appointment booked = appointmentRepository.bookIfSlotFree(doctor, "Alice", "p-alice", start, start.plusMinutes(30))
+                .orElseThrow();
+
+        assertNotNull(booked.getId());
+        assertEquals(0, booked.getVersion());
+        Appointment stored = appointmentRepository.findById(booked.getId()).orElseThrow();
+        assertEquals("Alice", stored.getPatientName());
+        assertEquals("p-alice", stored.getPatientId());
+        assertEquals(AppointmentStatus.CONFIRMED, stored.getStatus());
+        assertEquals(0, stored.getVersion());
+    }
+
+    @Test
+    void bookIfSlotFree_rejectsSameAndOverlappingSlot_leavingTheBookingUnchanged() {
+        Appointment booked = appointmentRepository.bookIfSlotFree(doctor, "Alice", "p-alice", start, start.plusMinutes(30))
+                .orElseThrow();
+
+        assertTrue(appointmentRepository.bookIfSlotFree(doctor, "Bob", "p-bob", start, start.plusMinutes(30)).isEmpty());
+        assertTrue(appointmentRepository.bookIfSlotFree(doctor, "Bob", "p-bob", start.plusMinutes(15), start.plusMinutes(45)).isEmpty());
+
+        Appointment stored = appointmentRepository.findById(booked.getId()).orElseThrow();
+        assertEquals("Alice", stored.getPatientName());
+        assertEquals(0, stored.getVersion());
+        assertEquals(1, appointmentRepository.count());
+    }
+
+    @Test
+    void bookIfSlotFree_reusesCancelledRow() {
+        Appointment old = new Appointment(doctor, "Old", start, start.plusMinutes(30));
+        old.setStatus(AppointmentStatus.CANCELLED);
+        old = appointmentRepository.saveAndFlush(old);
+
+        Appointment booked = appointmentRepository.bookIfSlotFree(doctor, "Carol", "p-carol", start, start.plusMinutes(30))
+                .orElseThrow();
+
+        assertEquals(old.getId(), booked.getId());
+        assertEquals(old.getVersion() + 1, booked.getVersion());
+        assertEquals(1, appointmentRepository.count());
+        // The native statement bypassed the persistence context, which still holds the cancelled row
+        entityManager.clear();
+        Appointment stored = appointmentRepository.findById(booked.getId()).orElseThrow();
+        assertEquals("Carol", stored.getPatientName());
+        assertEquals("p-carol", stored.getPatientId());
+        assertEquals(AppointmentStatus.CONFIRMED, stored.getStatus());
+        assertEquals(old.getVersion() + 1, stored.getVersion());
+    }
+
+    @Test
+    void bookIfSlotFree_cancelledRowOverlappedByAnotherBooking_staysCancelled() {
+        Appointment old = new Appointment(doctor, "Old", start, start.plusMinutes(30));
+        old.setStatus(AppointmentStatus.CANCELLED);
+        old = appointmentRepository.saveAndFlush(old);
+        appointmentRepository.bookIfSlotFree(doctor, "Alice", "p-alice", start.plusMinutes(15), start.plusMinutes(45))
+                .orElseThrow();
+
+        Optional<Appointment> booked = appointmentRepository.bookIfSlotFree(doctor, "Carol", "p-carol", start, start.plusMinutes(30));
+
+        assertTrue(booked.isEmpty());
+        entityManager.clear();
+        Appointment stored = appointmentRepository.findById(old.getId()).orElseThrow();
+        assertEquals(AppointmentStatus.CANCELLED, stored.getStatus());
+        assertEquals("Old", stored.getPatientName());
+        assertEquals(old.getVersion(), stored.getVersion());
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.appointments.journal;
+
+import com.example.appointments.event.AppointmentChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingJournalTest {
+
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void recover_returnsRecordsOfEarlierRunsInOrder() {
+        List<JournalRecord> records = List.of(record(1, "Ann", "p-1"), record(2, "Bob", null), record(1, "Ann", "p-1").cancelled(Instant.now()));
+        BookingJournal journal = open(SEGMENT_SIZE);
+        records.forEach(journal::append);
+        journal.close();
+
+        assertEquals(records, new BookingJournal(directory, SEGMENT_SIZE, meterRegistry).recover());
+    }
+
+    @Test
+    void recover_stopsAtTornRecord() throws Exception {
+        BookingJournal journal = open(SEGMENT_SIZE);
+        journal.append(record(1, "Ann", null));
+        BookingJournal.Appended second = journal.append(record(2, "Bob", null));
+        journal.close();
+        try (RandomAccessFile file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+            // Last byte of the second record's patient name
+            file.seek(second.position() - 5);
+            file.write('X');
+        }
+
+        List<JournalRecord> recovered = new BookingJournal(directory, SEGMENT_SIZE, meterRegistry).recover();
+
+        assertEquals(1, recovered.size());
+        assertEquals(1, recovered.get(0).appointmentId());
+    }
+
+    @Test
+    void segments_areDeletedOnceFullAndProjected() throws Exception {
+        BookingJournal journal = open(256);
+        List<BookingJournal.Appended> appended = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            appended.add(journal.append(record(i, "Patient " + i, null)));
+        }
+        long lastSegment = appended.get(appended.size() - 1).segment();
+        assertTrue(lastSegment > 0);
+        assertEquals(lastSegment + 1, segments().size());
+
+        appended.forEach(a -> journal.release(a.segment()));
+        assertEquals(1, segments().size());
+
+        journal.close();
+        assertEquals(0, segments().size(), "a clean close with everything projected leaves nothing to recover");
+    }
+
+    @Test
+    @Timeout(5)
+    void awaitDurable_returnsOnceTheGroupForceCoversTheRecord() {
+        BookingJournal journal = open(SEGMENT_SIZE);
+        BookingJournal.Appended appended = journal.append(record(1, "Ann", null));
+
+        journal.awaitDurable(appended.position());
+
+        assertTrue(meterRegistry.get("appointments.journal.flush").timer().count() >= 1);
+        journal.close();
+    }
+
+    @Test
+    void append_afterClose_isRefused() {
+        BookingJournal journal = open(SEGMENT_SIZE);
+        journal.close();
+
+        assertThrows(IllegalStateException.class, () -> journal.append(record(1, "Ann", null)));
+    }
+
+    private BookingJournal open(int segmentSize) {
+        BookingJournal journal = new BookingJournal(directory, segmentSize, meterRegistry);
+        journal.recover();
+        journal.open(Duration.ofMillis(1));
+        return journal;
+    }
+
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static JournalRecord record(long id, String patientName, String patientId) {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 7, 9, 0).plusMinutes(30 * id);
+        return new JournalRecord(AppointmentChangedEvent.Type.BOOKED, id, 7L, start, start.plusMinutes(30),
+                patientName, patientId, Instant.parse("2030-01-01T08:00:00.123456789Z"));
+    }
+}
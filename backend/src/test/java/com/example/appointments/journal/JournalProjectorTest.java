@@ -0,0 +1,128 @@
+package com.example.appointments.journal;
+
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.event.AppointmentChangedEvent;
+import com.example.appointments.exception.ServiceBusyException;
+import com.example.appointments.outbox.AppointmentOutbox;
+import com.example.appointments.repository.AppointmentProjectionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JournalProjectorTest {
+
+    @Mock
+    private AppointmentProjectionRepository repository;
+
+    @Mock
+    private AppointmentOutbox outbox;
+
+    @Mock
+    private BookingJournal journal;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AppointmentsProperties properties = new AppointmentsProperties();
+    private JournalProjector projector;
+
+    @BeforeEach
+    void setUp() {
+        properties.getJournal().setRetryDelay(Duration.ofMillis(10));
+        properties.getJournal().setProjectionQueueCapacity(2);
+        projector = new JournalProjector(repository, outbox, TransactionOperations.withoutTransaction(), properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        projector.stop();
+    }
+
+    @Test
+    void unreachableDatabase_isRetried() {
+        doThrow(new CannotCreateTransactionException("no connection")).doNothing().when(repository).upsertAll(anyCollection());
+        projector.start(journal);
+
+        enqueue(record(1), 3);
+
+        verify(journal, timeout(5000)).release(3);
+        verify(repository, times(2)).upsertAll(anyCollection());
+        assertEquals(0, meterRegistry.get("appointments.journal.projection.failed").counter().count());
+    }
+
+    @Test
+    void refusedRecord_isSetAside_andTheRestOfItsBatchProjected() {
+        JournalRecord refused = record(2);
+        doAnswer(invocation -> {
+            if (invocation.<Collection<JournalRecord>>getArgument(0).contains(refused)) {
+                throw new DataIntegrityViolationException("ex_appointments_confirmed_no_overlap");
+            }
+            return null;
+        }).when(repository).upsertAll(anyCollection());
+        enqueue(record(1), 0);
+        enqueue(refused, 1);
+
+        projector.start(journal);
+
+        verify(journal, timeout(5000)).release(0);
+        projector.stop();
+        verify(journal, never()).release(1);
+        assertEquals(1, meterRegistry.get("appointments.journal.projection.failed").counter().count());
+        assertEquals(1, meterRegistry.get("appointments.journal.projected").counter().count());
+    }
+
+    @Test
+    void reserve_failsFastOnceTheQueueIsFull() {
+        projector.reserve();
+        projector.reserve();
+
+        assertThrows(ServiceBusyException.class, projector::reserve);
+        projector.unreserve();
+        projector.reserve();
+        assertEquals(1, meterRegistry.get("appointments.journal.projection.rejected").counter().count());
+    }
+
+    @Test
+    void project_setsAsideRecordsTheDatabaseRefuses() {
+        JournalRecord refused = record(2);
+        doAnswer(invocation -> {
+            if (invocation.<Collection<JournalRecord>>getArgument(0).contains(refused)) {
+                throw new DataIntegrityViolationException("uk_doctor_start");
+            }
+            return null;
+        }).when(repository).upsertAll(anyCollection());
+
+        projector.project(List.of(record(1), refused, record(3)));
+
+        verify(repository).upsertAll(argThat(records -> List.copyOf(records).equals(List.of(record(1)))));
+        verify(repository).upsertAll(argThat(records -> List.copyOf(records).equals(List.of(record(3)))));
+        assertEquals(1, meterRegistry.get("appointments.journal.projection.failed").counter().count());
+    }
+
+    private void enqueue(JournalRecord record, long segment) {
+        projector.reserve();
+        projector.enqueue(record, segment);
+    }
+
+    private static JournalRecord record(long id) {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 7, 9, 0).plusMinutes(30 * id);
+        return new JournalRecord(AppointmentChangedEvent.Type.BOOKED, id, 7L, start, start.plusMinutes(30),
+                "Patient " + id, null, Instant.parse("2030-01-01T08:00:00Z"));
+    }
+}
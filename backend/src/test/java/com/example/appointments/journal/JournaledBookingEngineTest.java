@@ -0,0 +1,233 @@
+package com.example.appointments.journal;
+
+import com.example.appointments.cache.DaySlots;
+import com.example.appointments.cache.DoctorCache;
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.config.PrimaryReads;
+import com.example.appointments.entity.Appointment;
+import com.example.appointments.entity.AppointmentStatus;
+import com.example.appointments.entity.Doctor;
+import com.example.appointments.event.AppointmentChangedEvent;
+import com.example.appointments.exception.InvalidRequestException;
+import com.example.appointments.exception.ServiceBusyException;
+import com.example.appointments.exception.SlotAlreadyBookedException;
+import com.example.appointments.repository.AppointmentIdGenerator;
+import com.example.appointments.repository.AppointmentProjectionRepository;
+import com.example.appointments.repository.DoctorRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JournaledBookingEngineTest {
+
+    private static final LocalDateTime SLOT = LocalDate.now().plusDays(1).atTime(10, 0);
+
+    @Mock
+    private AppointmentProjectionRepository repository;
+
+    @Mock
+    private AppointmentIdGenerator ids;
+
+    @Mock
+    private DoctorRepository doctorRepository;
+
+    @Mock
+    private JournalProjector projector;
+
+    @TempDir
+    Path directory;
+
+    private final AtomicLong sequence = new AtomicLong(100);
+    private final List<JournaledBookingEngine> engines = new ArrayList<>();
+    private AppointmentsProperties properties;
+    private Doctor doctor;
+    private JournaledBookingEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AppointmentsProperties();
+        properties.setBookingMode(AppointmentsProperties.BookingMode.JOURNAL);
+        properties.getJournal().setDirectory(directory);
+        properties.getJournal().setFlushInterval(Duration.ofMillis(1));
+        doctor = new Doctor("Dr. Journal", "General", "journal@example.com", 30);
+        doctor.setId(7L);
+        lenient().when(doctorRepository.findById(7L)).thenReturn(Optional.of(doctor));
+        lenient().when(ids.next()).thenAnswer(invocation -> sequence.incrementAndGet());
+        when(repository.findEndingAfter(any())).thenReturn(List.of());
+        engine = start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        engines.forEach(JournaledBookingEngine::stop);
+    }
+
+    @Test
+    @Timeout(20)
+    void concurrentBookingsOfOneSlot_exactlyOneWins() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<Appointment>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            String patient = "Patient " + i;
+            results.add(executor.submit(() -> {
+                startGate.await();
+                return engine.book(doctor, patient, null, SLOT);
+            }));
+        }
+        startGate.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        int booked = 0;
+        int conflicts = 0;
+        for (Future<Appointment> result : results) {
+            try {
+                result.get();
+                booked++;
+            } catch (Exception e) {
+                assertInstanceOf(SlotAlreadyBookedException.class, e.getCause());
+                conflicts++;
+            }
+        }
+        assertEquals(1, booked);
+        assertEquals(threads - 1, conflicts);
+        verify(projector, times(1)).enqueue(any(), anyLong());
+    }
+
+    @Test
+    void cancel_freesTheSlot_andRebookingReusesItsRow() {
+        Appointment first = engine.book(doctor, "Ann", "p-1", SLOT);
+        assertEquals(SLOT.plusMinutes(30), first.getEndTime());
+        assertThrows(SlotAlreadyBookedException.class, () -> engine.book(doctor, "Bob", null, SLOT));
+
+        Appointment cancelled = engine.cancel(first.getId());
+        Appointment second = engine.book(doctor, "Bob", null, SLOT);
+
+        assertEquals(AppointmentStatus.CANCELLED, cancelled.getStatus());
+        assertEquals(first.getId(), second.getId());
+        assertEquals("Bob", engine.find(first.getId()).orElseThrow().getPatientName());
+        ArgumentCaptor<JournalRecord> enqueued = ArgumentCaptor.forClass(JournalRecord.class);
+        verify(projector, times(3)).enqueue(enqueued.capture(), anyLong());
+        assertEquals(List.of(AppointmentChangedEvent.Type.BOOKED, AppointmentChangedEvent.Type.CANCELLED, AppointmentChangedEvent.Type.BOOKED),
+                enqueued.getAllValues().stream().map(JournalRecord::type).toList());
+        verify(ids, times(1)).next();
+    }
+
+    @Test
+    void book_offTheSlotGrid_isRejected() {
+        assertThrows(InvalidRequestException.class, () -> engine.book(doctor, "Ann", null, SLOT.plusMinutes(10)));
+        verify(projector, never()).enqueue(any(), anyLong());
+    }
+
+    @Test
+    void book_whenProjectionQueueIsFull_failsFastAndLeavesTheSlotFree() {
+        doThrow(new ServiceBusyException("busy")).doNothing().when(projector).reserve();
+
+        assertThrows(ServiceBusyException.class, () -> engine.book(doctor, "Ann", null, SLOT));
+
+        assertNotNull(engine.book(doctor, "Bob", null, SLOT));
+        verify(projector, times(1)).enqueue(any(), anyLong());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void start_rebuildsStateFromJournalOfPreviousRun() {
+        Appointment kept = engine.book(doctor, "Ann", null, SLOT);
+        Appointment dropped = engine.book(doctor, "Bob", null, SLOT.plusMinutes(30));
+        engine.cancel(dropped.getId());
+        // Nothing was released by the (mocked) projector, so every record stays in the journal
+        engine.stop();
+
+        JournaledBookingEngine restarted = start();
+
+        assertThrows(SlotAlreadyBookedException.class, () -> restarted.book(doctor, "Carl", null, SLOT));
+        assertEquals(dropped.getId(), restarted.book(doctor, "Dora", null, SLOT.plusMinutes(30)).getId());
+        assertEquals("Ann", restarted.find(kept.getId()).orElseThrow().getPatientName());
+        ArgumentCaptor<List<JournalRecord>> projected = ArgumentCaptor.forClass(List.class);
+        verify(projector).project(projected.capture());
+        assertEquals(3, projected.getValue().size());
+    }
+
+    @Test
+    void start_keepsSlotsOfAppointmentsOffTheGridBusy() {
+        engine.stop();
+        LocalDateTime offGrid = SLOT.plusMinutes(45);
+        when(repository.findEndingAfter(any())).thenReturn(List.of(new JournalRecord(AppointmentChangedEvent.Type.BOOKED,
+                1L, 7L, offGrid, offGrid.plusMinutes(30), "Legacy", null, null)));
+
+        JournaledBookingEngine restarted = start();
+
+        // 10:45-11:15 overlaps the 10:30 and 11:00 slots
+        assertThrows(SlotAlreadyBookedException.class, () -> restarted.book(doctor, "Ann", null, SLOT.plusMinutes(30)));
+        assertThrows(SlotAlreadyBookedException.class, () -> restarted.book(doctor, "Ann", null, SLOT.plusMinutes(60)));
+        assertNotNull(restarted.book(doctor, "Ann", null, SLOT.plusMinutes(90)));
+        assertEquals(AppointmentStatus.CANCELLED, restarted.cancel(1L).getStatus());
+    }
+
+    @Test
+    void markBooked_reportsBookedSlots_ofTrackedDatesOnly() {
+        engine.book(doctor, "Ann", null, SLOT);
+        LocalDate date = SLOT.toLocalDate();
+        DaySlots.Builder day = DaySlots.builder(date.atTime(9, 0), date.atTime(12, 0), 30);
+
+        assertTrue(engine.markBooked(7L, date, day));
+        assertFalse(engine.markBooked(7L, LocalDate.now().minusDays(1), DaySlots.builder(date.atTime(9, 0), date.atTime(12, 0), 30)));
+
+        DaySlots slots = day.build();
+        assertEquals(5, slots.freeCount());
+        assertFalse(slots.isFree(2));
+    }
+
+    @Test
+    void dayBook_gridIsAnchoredAtWorkingDayStart() {
+        JournaledBookingEngine.DayBook day = new JournaledBookingEngine.DayBook(LocalTime.of(9, 10), 20);
+
+        assertEquals(0, day.slotOf(LocalTime.of(0, 10)));
+        assertEquals(27, day.slotOf(LocalTime.of(9, 10)));
+        assertEquals(-1, day.slotOf(LocalTime.of(9, 0)));
+        assertEquals(-1, day.slotOf(LocalTime.of(0, 0)));
+        assertTrue(day.tryClaim(27));
+        assertFalse(day.tryClaim(27));
+        assertTrue(day.isBooked(27));
+        day.release(27);
+        assertFalse(day.isBooked(27));
+    }
+
+    private JournaledBookingEngine start() {
+        JournaledBookingEngine started = new JournaledBookingEngine(repository, ids, new DoctorCache(doctorRepository, PrimaryReads.inline(), properties),
+                projector, properties, new SimpleMeterRegistry());
+        started.start();
+        engines.add(started);
+        return started;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.appointments.outbox;
+
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.event.AppointmentChangedEvent;
+import com.example.appointments.repository.OutboxRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentOutboxTest {
+
+    @Mock
+    private OutboxRepository repository;
+
+    @Mock
+    private OutboxRelay relay;
+
+    private AppointmentOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        AppointmentsProperties properties = new AppointmentsProperties();
+        properties.getOutbox().setEnabled(true);
+        outbox = new AppointmentOutbox(repository, relay, objectMapper, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void changesInOneTransaction_areInsertedTogether_beforeCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        outbox.onAppointmentChanged(event(1L, AppointmentChangedEvent.Type.BOOKED));
+        outbox.onAppointmentChanged(event(2L, AppointmentChangedEvent.Type.BOOKED));
+        verifyNoInteractions(repository, relay);
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertEquals(1, synchronizations.size());
+        synchronizations.get(0).beforeCommit(false);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<OutboxMessage>> rows = ArgumentCaptor.forClass(List.class);
+        verify(repository).insertAll(rows.capture());
+        assertEquals(List.of(1L, 2L), rows.getValue().stream().map(OutboxMessage::appointmentId).toList());
+        OutboxMessage first = rows.getValue().get(0);
+        assertEquals("BOOKED", first.eventType());
+        assertEquals(Instant.parse("2030-01-01T08:00:00Z"), first.createdAt());
+        assertEquals("{\"type\":\"BOOKED\",\"appointmentId\":1,\"doctorId\":7,\"patientName\":\"Jane Doe\",\"patientId\":\"p-1\","
+                + "\"startTime\":\"2030-01-01T10:00:00\",\"endTime\":\"2030-01-01T10:30:00\",\"occurredAt\":\"2030-01-01T08:00:00Z\"}",
+                first.payload());
+        verifyNoInteractions(relay);
+
+        synchronizations.get(0).afterCommit();
+        verify(relay).wakeUp();
+    }
+
+    @Test
+    void withoutTransaction_insertsAtOnce() {
+        outbox.onAppointmentChanged(event(1L, AppointmentChangedEvent.Type.CANCELLED));
+
+        verify(repository).insertAll(anyList());
+        verify(relay).wakeUp();
+    }
+
+    private static AppointmentChangedEvent event(Long appointmentId, AppointmentChangedEvent.Type type) {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        return new AppointmentChangedEvent(type, appointmentId, 7L, start, start.plusMinutes(30),
+                "Jane Doe", "p-1", Instant.parse("2030-01-01T08:00:00Z"));
+    }
+}
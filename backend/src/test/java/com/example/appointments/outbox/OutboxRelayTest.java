@@ -0,0 +1,104 @@
+package com.example.appointments.outbox;
+
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.repository.OutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({MockitoExtension.class, OutputCaptureExtension.class})
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxRepository repository;
+
+    @Mock
+    private OutboxSink sink;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void relayBatch_deliversClaimedRows_thenDeletesThem() {
+        List<OutboxMessage> batch = List.of(message(1L), message(2L));
+        when(repository.claim(100)).thenReturn(batch);
+
+        assertEquals(2, relay(sink).relayBatch());
+
+        var order = inOrder(sink, repository);
+        order.verify(sink).deliver(batch);
+        order.verify(repository).deleteAll(batch);
+        assertEquals(2, meterRegistry.get("appointments.outbox.delivered").counter().count());
+        assertEquals(2, meterRegistry.get("appointments.outbox.lag").timer().count());
+    }
+
+    @Test
+    void relayBatch_keepsRows_whenDeliveryFails() {
+        when(repository.claim(100)).thenReturn(List.of(message(1L)));
+        doThrow(new IllegalStateException("sink down")).when(sink).deliver(anyList());
+
+        assertThrows(IllegalStateException.class, () -> relay(sink).relayBatch());
+
+        verify(repository, never()).deleteAll(anyList());
+        assertEquals(0, meterRegistry.get("appointments.outbox.delivered").counter().count());
+    }
+
+    @Test
+    void relayBatch_emptyOutbox_deliversNothing() {
+        when(repository.claim(100)).thenReturn(List.of());
+
+        assertEquals(0, relay(sink).relayBatch());
+
+        verifyNoInteractions(sink);
+    }
+
+    @Test
+    void fileSink_appendsOneJsonLinePerMessage(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("outbox.jsonl");
+        FileOutboxSink fileSink = new FileOutboxSink(file);
+
+        fileSink.deliver(List.of(message(1L)));
+        fileSink.deliver(List.of(message(2L)));
+
+        assertEquals(List.of(
+                "{\"id\":10,\"type\":\"BOOKED\",\"appointmentId\":1,\"createdAt\":\"2020-01-01T08:00:00Z\",\"payload\":{\"appointmentId\":1}}",
+                "{\"id\":20,\"type\":\"BOOKED\",\"appointmentId\":2,\"createdAt\":\"2020-01-01T08:00:00Z\",\"payload\":{\"appointmentId\":2}}"
+        ), Files.readAllLines(file));
+    }
+
+    @Test
+    void loggingSink_logsMessageIdsButNotThePayload(CapturedOutput output) {
+        OutboxMessage message = new OutboxMessage(10L, 1L, "BOOKED", "{\"patientName\":\"Jane Doe\"}",
+                Instant.parse("2020-01-01T08:00:00Z"));
+
+        new LoggingOutboxSink().deliver(List.of(message));
+
+        assertTrue(output.getOut().contains("Outbox message 10 (BOOKED appointment 1)"));
+        assertFalse(output.getOut().contains("Jane Doe"));
+    }
+
+    private OutboxRelay relay(OutboxSink sink) {
+        AppointmentsProperties properties = new AppointmentsProperties();
+        properties.getOutbox().setEnabled(true);
+        return new OutboxRelay(repository, sink, TransactionOperations.withoutTransaction(), properties, meterRegistry);
+    }
+
+    private static OutboxMessage message(Long appointmentId) {
+        return new OutboxMessage(appointmentId * 10, appointmentId, "BOOKED", "{\"appointmentId\":" + appointmentId + "}",
+                Instant.parse("2020-01-01T08:00:00Z"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.appointments.repository;
+
+import com.example.appointments.event.AppointmentChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Batched inserts into the Flyway-migrated appointment_events table.
+ */
+@DataJpaTest
+@Import(AppointmentEventRepository.class)
+class AppointmentEventRepositoryTest {
+
+    @Autowired
+    private AppointmentEventRepository repository;
+
+    @Test
+    void insertAll_thenFindByAppointmentId_oldestFirst() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        Instant booked = Instant.parse("2030-01-01T08:00:00.123456Z");
+        Instant cancelled = booked.plusSeconds(60);
+        repository.insertAll(List.of(
+                new AppointmentChangedEvent(AppointmentChangedEvent.Type.BOOKED, 1L, 7L, start, start.plusMinutes(30),
+                        "Jane Doe", "p-1", booked),
+                new AppointmentChangedEvent(AppointmentChangedEvent.Type.BOOKED, 2L, 7L, start.plusHours(1),
+                        start.plusHours(1).plusMinutes(30), "John Roe", null, booked),
+                new AppointmentChangedEvent(AppointmentChangedEvent.Type.CANCELLED, 1L, 7L, start, start.plusMinutes(30),
+                        "Jane Doe", "p-1", cancelled)));
+
+        List<AppointmentEventView> events = repository.findByAppointmentId(1L);
+
+        assertEquals(List.of(AppointmentChangedEvent.Type.BOOKED, AppointmentChangedEvent.Type.CANCELLED),
+                events.stream().map(AppointmentEventView::type).toList());
+        AppointmentEventView first = events.get(0);
+        assertEquals(7L, first.doctorId());
+        assertEquals("Jane Doe", first.patientName());
+        assertEquals("p-1", first.patientId());
+        assertEquals(start, first.startTime());
+        assertEquals(booked, first.occurredAt());
+        assertEquals(cancelled, events.get(1).occurredAt());
+        assertTrue(repository.findByAppointmentId(3L).isEmpty());
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.appointments.repository;
+
+import com.example.appointments.entity.Appointment;
+import com.example.appointments.entity.AppointmentStatus;
+import com.example.appointments.entity.Doctor;
+import com.example.appointments.event.AppointmentChangedEvent;
+import com.example.appointments.journal.JournalRecord;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Projection of journaled appointments against the Flyway-migrated H2 schema.
+ */
+@DataJpaTest
+@Import({AppointmentProjectionRepository.class, AppointmentIdGenerator.class})
+class AppointmentProjectionRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 7, 10, 0);
+
+    @Autowired
+    private AppointmentProjectionRepository repository;
+
+    @Autowired
+    private AppointmentIdGenerator ids;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Doctor doctor;
+
+    @BeforeEach
+    void setUp() {
+        doctor = doctorRepository.saveAndFlush(new Doctor("Dr. Journal", "General", "journal@example.com", 30));
+    }
+
+    @Test
+    void upsertAll_insertsNewRowsAndUpdatesExistingOnes() {
+        JournalRecord booked = booked(ids.next(), START, "Ann");
+        repository.upsertAll(List.of(booked));
+        repository.upsertAll(List.of(booked.cancelled(Instant.now())));
+        entityManager.clear();
+
+        Appointment row = appointmentRepository.findById(booked.appointmentId()).orElseThrow();
+        assertEquals(AppointmentStatus.CANCELLED, row.getStatus());
+        assertEquals("Ann", row.getPatientName());
+        assertEquals("p-Ann", row.getPatientId());
+        assertEquals(START.plusMinutes(30), row.getEndTime());
+        assertEquals(1, row.getVersion());
+
+        JournalRecord loaded = repository.findById(booked.appointmentId()).orElseThrow();
+        assertEquals(AppointmentChangedEvent.Type.CANCELLED, loaded.type());
+        assertEquals(doctor.getId(), loaded.doctorId());
+        assertEquals(List.of(booked.appointmentId()),
+                repository.findEndingAfter(START).stream().map(JournalRecord::appointmentId).toList());
+        assertTrue(repository.findEndingAfter(START.plusMinutes(30)).isEmpty());
+    }
+
+    @Test
+    void generatedIds_neverCollideWithJpaInserts() {
+        JournalRecord journaled = booked(ids.next(), START, "Ann");
+        repository.upsertAll(List.of(journaled));
+
+        Appointment persisted = appointmentRepository.saveAndFlush(
+                new Appointment(doctor, "Bob", START.plusHours(1), START.plusHours(1).plusMinutes(30)));
+        long next = ids.next();
+
+        assertNotEquals(journaled.appointmentId(), persisted.getId());
+        assertNotEquals(persisted.getId(), next);
+        assertNotEquals(journaled.appointmentId(), next);
+    }
+
+    private JournalRecord booked(long id, LocalDateTime start, String patient) {
+        return new JournalRecord(AppointmentChangedEvent.Type.BOOKED, id, doctor.getId(), start, start.plusMinutes(30),
+                patient, "p-" + patient, Instant.now());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.appointments.repository;
+
+import com.example.appointments.entity.Appointment;
+import com.example.appointments.entity.AppointmentStatus;
+import com.example.appointments.entity.Doctor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the single-statement booking SQL against the default H2 database (MERGE ... FINAL TABLE path),
+ * with the schema built by the H2 Flyway migrations and validated by Hibernate.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JdbcTemplateAutoConfiguration.class)
+class AppointmentRepositoryImplTest {
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    private Doctor doctor;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        doctor = doctorRepository.save(new Doctor("Dr. Upsert", "General", "upsert@example.com", 30));
+        start = LocalDateTime.of(2030, 1, 1, 10, 0);
+    }
+
+    @Test
+    void bookIfSlotFree_insertsNewRow_thenRejectsSameAndOverlappingSlot() {
+        Optional<Appointment> booked = appointmentRepository.bookIfSlotFree(doctor, "Alice", "p-alice", start, start.plusMinutes(30));
+
+        assertTrue(booked.isPresent());
+        assertNotNull(booked.get().getId());
+        assertEquals(0, booked.get().getVersion());
+        assertTrue(appointmentRepository.bookIfSlotFree(doctor, "Bob", "p-bob", start, start.plusMinutes(30)).isEmpty());
+        assertTrue(appointmentRepository.bookIfSlotFree(doctor, "Bob", "p-bob", start.plusMinutes(15), start.plusMinutes(45)).isEmpty());
+
+        Appointment stored = appointmentRepository.findById(booked.get().getId()).orElseThrow();
+        assertEquals("Alice", stored.getPatientName());
+        assertEquals("p-alice", stored.getPatientId());
+        assertEquals(AppointmentStatus.CONFIRMED, stored.getStatus());
+    }
+
+    @Test
+    void bookIfSlotFree_reusesCancelledRow() {
+        Appointment old = new Appointment(doctor, "Old", start, start.plusMinutes(30));
+        old.setStatus(AppointmentStatus.CANCELLED);
+        old = appointmentRepository.saveAndFlush(old);
+
+        Appointment booked = appointmentRepository.bookIfSlotFree(doctor, "Carol", "p-carol", start, start.plusMinutes(30)).orElseThrow();
+
+        assertEquals(old.getId(), booked.getId());
+        assertEquals(old.getVersion() + 1, booked.getVersion());
+        assertEquals(1, appointmentRepository.count());
+    }
+}
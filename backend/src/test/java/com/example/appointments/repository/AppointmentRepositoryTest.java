@@ -0,0 +1,91 @@
+package com.example.appointments.repository;
+
+import com.example.appointments.entity.Appointment;
+import com.example.appointments.entity.AppointmentStatus;
+import com.example.appointments.entity.Doctor;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Read queries against the Flyway-migrated H2 schema.
+ */
+@DataJpaTest
+class AppointmentRepositoryTest {
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Doctor cardio;
+    private Doctor derma;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        cardio = doctorRepository.save(new Doctor("Dr. Heart", "Cardiology", "heart@example.com", 30));
+        derma = doctorRepository.save(new Doctor("Dr. Skin", "Dermatology", "skin@example.com", 30));
+        start = LocalDateTime.of(2030, 1, 1, 10, 0);
+
+        save(cardio, "p-1", start, AppointmentStatus.CONFIRMED);
+        save(derma, "p-1", start.plusDays(1), AppointmentStatus.CANCELLED);
+        save(cardio, "p-1", start.plusDays(2), AppointmentStatus.CONFIRMED);
+        save(cardio, "p-2", start.plusMinutes(30), AppointmentStatus.CONFIRMED);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void findPatientHistory_pagesNewestFirst_withDoctorColumns() {
+        Page<PatientAppointmentView> first = appointmentRepository.findPatientHistory("p-1", PageRequest.of(0, 2));
+
+        assertEquals(3, first.getTotalElements());
+        assertEquals(List.of(start.plusDays(2), start.plusDays(1)),
+                first.getContent().stream().map(PatientAppointmentView::startTime).toList());
+        assertEquals("Dr. Skin", first.getContent().get(1).doctorName());
+        assertEquals(AppointmentStatus.CANCELLED, first.getContent().get(1).status());
+
+        Page<PatientAppointmentView> second = appointmentRepository.findPatientHistory("p-1", PageRequest.of(1, 2));
+        assertEquals(List.of(start), second.getContent().stream().map(PatientAppointmentView::startTime).toList());
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    void findPatientHistoryWithDoctor_initializesDoctorInSameQuery() {
+        Page<Appointment> page = appointmentRepository.findPatientHistoryWithDoctor("p-1", PageRequest.of(0, 10));
+
+        assertEquals(3, page.getNumberOfElements());
+        assertTrue(page.getContent().stream().allMatch(a -> Hibernate.isInitialized(a.getDoctor())));
+        assertEquals("Dr. Heart", page.getContent().get(0).getDoctor().getName());
+    }
+
+    @Test
+    void findDoctorSchedule_returnsAnyStatusInWindow_byStartTime() {
+        List<Appointment> day = appointmentRepository.findDoctorSchedule(cardio.getId(), start, start.plusDays(1));
+
+        assertEquals(List.of("p-1", "p-2"), day.stream().map(Appointment::getPatientId).toList());
+        assertTrue(appointmentRepository.findDoctorSchedule(derma.getId(), start, start.plusDays(1)).isEmpty());
+    }
+
+    private void save(Doctor doctor, String patientId, LocalDateTime startTime, AppointmentStatus status) {
+        Appointment a = new Appointment(doctor, "Patient " + patientId, startTime, startTime.plusMinutes(30));
+        a.setPatientId(patientId);
+        a.setStatus(status);
+        appointmentRepository.save(a);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.appointments.repository;
+
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.config.HibernateCacheConfig;
+import com.example.appointments.entity.Doctor;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Second-level and query cache for Doctor. Runs without a test transaction so every repository call commits
+ * and the caches see what a request would.
+ */
+@DataJpaTest
+@Import(HibernateCacheConfig.class)
+@EnableConfigurationProperties(AppointmentsProperties.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DoctorRepositoryCacheTest {
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        assertTrue(statistics.isStatisticsEnabled());
+    }
+
+    @AfterEach
+    void tearDown() {
+        doctorRepository.deleteAll();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void findById_isServedFromSecondLevelCache() {
+        Long id = doctorRepository.save(new Doctor("Dr. Cached", "Neurology", "cached@example.com", 30)).getId();
+        doctorRepository.findById(id);
+        statistics.clear();
+
+        assertEquals("Dr. Cached", doctorRepository.findById(id).orElseThrow().getName());
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics(HibernateCacheConfig.DOCTOR_REGION).getHitCount());
+    }
+
+    @Test
+    void findBySpecialization_isServedFromQueryCache_untilDoctorsChange() {
+        doctorRepository.save(new Doctor("Dr. One", "Oncology", "one@example.com", 30));
+        doctorRepository.findBySpecializationIgnoreCase("oncology");
+        statistics.clear();
+
+        assertEquals(1, doctorRepository.findBySpecializationIgnoreCase("oncology").size());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        doctorRepository.save(new Doctor("Dr. Two", "Oncology", "two@example.com", 30));
+        assertEquals(2, doctorRepository.findBySpecializationIgnoreCase("oncology").size());
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.appointments.repository;
+
+import com.example.appointments.outbox.OutboxMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Claiming outbox rows against the Flyway-migrated H2 schema. Runs without a test transaction so each claim
+ * holds its row locks in a transaction of its own.
+ */
+@DataJpaTest
+@Import(OutboxRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxRepositoryTest {
+
+    @Autowired
+    private OutboxRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(s -> repository.deleteAll(repository.claim(100)));
+    }
+
+    @Test
+    void claim_skipsRowsLockedByAnotherRelay() throws Exception {
+        repository.insertAll(List.of(message(1L), message(2L), message(3L)));
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<List<OutboxMessage>> first = CompletableFuture.supplyAsync(() -> tx.execute(s -> {
+            List<OutboxMessage> batch = repository.claim(2);
+            claimed.countDown();
+            await(release);
+            repository.deleteAll(batch);
+            return batch;
+        }));
+        assertTrue(claimed.await(5, TimeUnit.SECONDS));
+
+        List<OutboxMessage> second = tx.execute(s -> repository.claim(10));
+        release.countDown();
+
+        assertEquals(List.of(1L, 2L), first.get(5, TimeUnit.SECONDS).stream().map(OutboxMessage::appointmentId).toList());
+        assertEquals(List.of(3L), second.stream().map(OutboxMessage::appointmentId).toList());
+        List<OutboxMessage> remaining = tx.execute(s -> repository.claim(10));
+        assertEquals(1, remaining.size());
+        OutboxMessage row = remaining.get(0);
+        assertEquals("BOOKED", row.eventType());
+        assertEquals("{\"appointmentId\":3}", row.payload());
+        assertEquals(Instant.parse("2030-01-01T08:00:00.123456Z"), row.createdAt());
+    }
+
+    private static OutboxMessage message(Long appointmentId) {
+        return new OutboxMessage(null, appointmentId, "BOOKED", "{\"appointmentId\":" + appointmentId + "}",
+                Instant.parse("2030-01-01T08:00:00.123456Z"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
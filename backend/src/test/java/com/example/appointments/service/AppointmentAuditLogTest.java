@@ -0,0 +1,117 @@
+package com.example.appointments.service;
+
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.event.AppointmentChangedEvent;
+import com.example.appointments.repository.AppointmentEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentAuditLogTest {
+
+    @Mock
+    private AppointmentEventRepository repository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AppointmentsProperties properties = new AppointmentsProperties();
+    private AppointmentAuditLog auditLog;
+
+    @BeforeEach
+    void setUp() {
+        properties.getAudit().setRetryDelay(Duration.ofMillis(10));
+        auditLog = new AppointmentAuditLog(repository, TransactionOperations.withoutTransaction(), properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (auditLog.isRunning()) {
+            auditLog.stop();
+        }
+    }
+
+    @Test
+    void queuedEvents_areWrittenAsOneBatch_andFlushedOnStop() {
+        List<AppointmentChangedEvent> events = List.of(event(1L, AppointmentChangedEvent.Type.BOOKED),
+                event(2L, AppointmentChangedEvent.Type.BOOKED), event(1L, AppointmentChangedEvent.Type.CANCELLED));
+        events.forEach(auditLog::onAppointmentChanged);
+        assertEquals(3, meterRegistry.get("appointments.audit.queue.size").gauge().value());
+
+        auditLog.start();
+        auditLog.stop();
+
+        verify(repository).insertAll(events);
+        assertEquals(3, meterRegistry.get("appointments.audit.events.written").counter().count());
+        assertEquals(1, meterRegistry.get("appointments.audit.batch.size").summary().count());
+        assertEquals(0, meterRegistry.get("appointments.audit.queue.size").gauge().value());
+    }
+
+    @Test
+    void failedBatch_isRetried() {
+        doThrow(new DataAccessResourceFailureException("down")).doNothing().when(repository).insertAll(anyList());
+        auditLog.start();
+
+        auditLog.onAppointmentChanged(event(1L, AppointmentChangedEvent.Type.BOOKED));
+
+        verify(repository, timeout(5000).times(2)).insertAll(anyList());
+    }
+
+    @Test
+    void failedTransaction_isRetried() {
+        doThrow(new CannotCreateTransactionException("no connection")).doNothing().when(repository).insertAll(anyList());
+        auditLog.start();
+
+        auditLog.onAppointmentChanged(event(1L, AppointmentChangedEvent.Type.BOOKED));
+
+        verify(repository, timeout(5000).times(2)).insertAll(anyList());
+    }
+
+    @Test
+    void fullQueue_dropsEventAfterEnqueueTimeout() {
+        properties.getAudit().setQueueCapacity(1);
+        properties.getAudit().setEnqueueTimeout(Duration.ofMillis(10));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        auditLog = new AppointmentAuditLog(repository, TransactionOperations.withoutTransaction(), properties, registry);
+
+        auditLog.onAppointmentChanged(event(1L, AppointmentChangedEvent.Type.BOOKED));
+        auditLog.onAppointmentChanged(event(2L, AppointmentChangedEvent.Type.BOOKED));
+
+        assertEquals(1, registry.get("appointments.audit.queue.full").counter().count());
+        assertEquals(1, registry.get("appointments.audit.events.dropped").counter().count());
+        assertEquals(1, registry.get("appointments.audit.queue.size").gauge().value());
+    }
+
+    @Test
+    void disabled_ignoresEvents() {
+        properties.getAudit().setEnabled(false);
+        auditLog = new AppointmentAuditLog(repository, TransactionOperations.withoutTransaction(), properties, new SimpleMeterRegistry());
+        auditLog.start();
+
+        auditLog.onAppointmentChanged(event(1L, AppointmentChangedEvent.Type.BOOKED));
+        auditLog.stop();
+
+        verifyNoInteractions(repository);
+    }
+
+    private static AppointmentChangedEvent event(Long appointmentId, AppointmentChangedEvent.Type type) {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        return new AppointmentChangedEvent(type, appointmentId, 7L, start, start.plusMinutes(30),
+                "Jane Doe", "p-1", Instant.parse("2030-01-01T08:00:00Z"));
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.appointments.service;
+
+import com.example.appointments.cache.DoctorCache;
+import com.example.appointments.cache.SlotHolds;
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.config.PrimaryReads;
+import com.example.appointments.dto.CreateAppointmentRequest;
+import com.example.appointments.entity.Appointment;
+import com.example.appointments.entity.AppointmentStatus;
+import com.example.appointments.entity.Doctor;
+import com.example.appointments.exception.ResourceNotFoundException;
+import com.example.appointments.exception.ServiceBusyException;
+import com.example.appointments.exception.SlotAlreadyBookedException;
+import com.example.appointments.repository.AppointmentRepository;
+import com.example.appointments.repository.DoctorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentBatchServiceTest {
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    @Mock
+    private DoctorRepository doctorRepository;
+
+    @Mock
+    private AppointmentService appointmentService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private AppointmentBatchService batchService;
+
+    private Doctor doctor;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        AppointmentsProperties properties = new AppointmentsProperties();
+        DoctorCache doctorCache = new DoctorCache(doctorRepository, PrimaryReads.inline(), properties);
+        batchService = new AppointmentBatchService(appointmentRepository, doctorCache, mock(SlotHolds.class), appointmentService,
+                eventPublisher, TransactionOperations.withoutTransaction(), properties);
+        doctor = new Doctor("Dr. Batch", "General", "batch@example.com", 30);
+        doctor.setId(1L);
+        start = LocalDateTime.now().plusDays(1).withHour(9).withMinute(0).withSecond(0).withNano(0);
+    }
+
+    @Test
+    void bookAll_checksConflictsInMemory_andSavesGroupOnce() {
+        Appointment existing = new Appointment(doctor, "Booked", start, start.plusMinutes(30));
+        Appointment cancelled = new Appointment(doctor, "Old", start.plusHours(1), start.plusHours(1).plusMinutes(30));
+        cancelled.setId(7L);
+        cancelled.setStatus(AppointmentStatus.CANCELLED);
+
+        when(doctorRepository.findAllById(any())).thenReturn(List.of(doctor));
+        when(appointmentRepository.findByDoctorAndEndTimeGreaterThanAndStartTimeLessThan(
+                eq(doctor), eq(start), eq(start.plusHours(1).plusMinutes(30))
+        )).thenReturn(List.of(existing, cancelled));
+        when(appointmentRepository.saveAllAndFlush(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        List<BatchBookingResult> results = batchService.bookAll(List.of(
+                new CreateAppointmentRequest(1L, "A", start),                       // taken in DB
+                new CreateAppointmentRequest(1L, "B", start.plusMinutes(30)),       // free
+                new CreateAppointmentRequest(1L, "C", start.plusMinutes(45)),       // overlaps B in this batch
+                new CreateAppointmentRequest(1L, "D", start.plusHours(1)),          // reuses cancelled row
+                new CreateAppointmentRequest(2L, "E", start)                        // unknown doctor
+        ));
+
+        assertInstanceOf(SlotAlreadyBookedException.class, results.get(0).getFailure());
+        assertEquals("B", results.get(1).getAppointment().getPatientName());
+        assertInstanceOf(SlotAlreadyBookedException.class, results.get(2).getFailure());
+        assertEquals(7L, results.get(3).getAppointment().getId());
+        assertEquals(AppointmentStatus.CONFIRMED, results.get(3).getAppointment().getStatus());
+        assertInstanceOf(ResourceNotFoundException.class, results.get(4).getFailure());
+
+        verify(doctorRepository, times(1)).findAllById(any());
+        verify(appointmentRepository, times(1)).saveAllAndFlush(argThat(list -> ((List<?>) list).size() == 2));
+        verify(eventPublisher, times(2)).publishEvent(any(Object.class));
+        verifyNoInteractions(appointmentService);
+    }
+
+    @Test
+    void bookAll_lostRace_replaysGroupItemByItem() {
+        when(doctorRepository.findAllById(any())).thenReturn(List.of(doctor));
+        when(appointmentRepository.findByDoctorAndEndTimeGreaterThanAndStartTimeLessThan(any(), any(), any())).thenReturn(List.of());
+        when(appointmentRepository.saveAllAndFlush(anyList())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        CreateAppointmentRequest first = new CreateAppointmentRequest(1L, "A", start);
+        CreateAppointmentRequest second = new CreateAppointmentRequest(1L, "B", start.plusMinutes(30));
+        Appointment booked = new Appointment(doctor, "B", second.getStartTime(), second.getStartTime().plusMinutes(30));
+        when(appointmentService.book(first)).thenThrow(new SlotAlreadyBookedException("Slot has been booked by another user."));
+        when(appointmentService.book(second)).thenReturn(booked);
+
+        List<BatchBookingResult> results = batchService.bookAll(List.of(first, second));
+
+        assertFalse(results.get(0).isBooked());
+        assertSame(booked, results.get(1).getAppointment());
+    }
+
+    @Test
+    void bookAll_failingGroup_failsOnlyItsItems() {
+        Doctor other = new Doctor("Dr. Down", "General", "down@example.com", 30);
+        other.setId(2L);
+        when(doctorRepository.findAllById(any())).thenReturn(List.of(doctor, other));
+        when(appointmentRepository.findByDoctorAndEndTimeGreaterThanAndStartTimeLessThan(eq(doctor), any(), any())).thenReturn(List.of());
+        when(appointmentRepository.findByDoctorAndEndTimeGreaterThanAndStartTimeLessThan(eq(other), any(), any()))
+                .thenThrow(new CannotCreateTransactionException("pool exhausted"));
+        when(appointmentRepository.saveAllAndFlush(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        List<BatchBookingResult> results = batchService.bookAll(List.of(
+                new CreateAppointmentRequest(1L, "A", start),
+                new CreateAppointmentRequest(2L, "B", start)
+        ));
+
+        assertEquals("A", results.get(0).getAppointment().getPatientName());
+        assertInstanceOf(CannotCreateTransactionException.class, results.get(1).getFailure());
+    }
+
+    @Test
+    void bookAll_replayFailure_becomesItemFailure() {
+        when(doctorRepository.findAllById(any())).thenReturn(List.of(doctor));
+        when(appointmentRepository.findByDoctorAndEndTimeGreaterThanAndStartTimeLessThan(any(), any(), any())).thenReturn(List.of());
+        when(appointmentRepository.saveAllAndFlush(anyList())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        CreateAppointmentRequest first = new CreateAppointmentRequest(1L, "A", start);
+        CreateAppointmentRequest second = new CreateAppointmentRequest(1L, "B", start.plusMinutes(30));
+        when(appointmentService.book(first)).thenThrow(new SlotAlreadyBookedException("Slot is being booked by another request.",
+                SlotAlreadyBookedException.Reason.IN_FLIGHT));
+        when(appointmentService.book(second)).thenThrow(new ServiceBusyException("Service is busy, please retry."));
+
+        List<BatchBookingResult> results = batchService.bookAll(List.of(first, second));
+
+        assertInstanceOf(SlotAlreadyBookedException.class, results.get(0).getFailure());
+        assertInstanceOf(ServiceBusyException.class, results.get(1).getFailure());
+    }
+}
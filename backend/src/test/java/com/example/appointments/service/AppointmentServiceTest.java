@@ -1,11 +1,18 @@
 package com.example.appointments.service;
 
+import com.example.appointments.cache.DoctorCache;
+import com.example.appointments.cache.SlotHolds;
+import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.config.PrimaryReads;
 import com.example.appointments.dto.CreateAppointmentRequest;
 import com.example.appointments.entity.Appointment;
 import com.example.appointments.entity.AppointmentStatus;
 import com.example.appointments.entity.Doctor;
+import com.example.appointments.event.AppointmentChangedEvent;
+import com.example.appointments.exception.InvalidRequestException;
 import com.example.appointments.exception.ResourceNotFoundException;
 import com.example.appointments.exception.SlotAlreadyBookedException;
+import com.example.appointments.journal.JournaledBookingEngine;
 import com.example.appointments.repository.AppointmentRepository;
 import com.example.appointments.repository.DoctorRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,10 +23,19 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.quality.Strictness;
 import org.mockito.junit.jupiter.MockitoSettings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -34,13 +50,29 @@ class AppointmentServiceTest {
     @Mock
     private DoctorRepository doctorRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private JournaledBookingEngine bookingEngine;
+
+    private AppointmentsProperties properties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SlotHolds slotHolds;
+
     private AppointmentService appointmentService;
 
     private Doctor doctor;
 
     @BeforeEach
     void setUp() {
-        appointmentService = new AppointmentService(appointmentRepository, doctorRepository);
+        properties = new AppointmentsProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        slotHolds = mock(SlotHolds.class);
+        appointmentService = new AppointmentService(appointmentRepository, new DoctorCache(doctorRepository, PrimaryReads.inline(), properties),
+                slotHolds, bookingEngine, eventPublisher, properties, TransactionOperations.withoutTransaction(), meterRegistry);
         doctor = new Doctor();
         doctor.setId(1L);
         doctor.setName("Dr. Smith");
@@ -61,7 +93,7 @@ class AppointmentServiceTest {
         when(appointmentRepository.findByDoctorAndStartTime(eq(doctor), eq(start))).thenReturn(Optional.empty());
 
         ArgumentCaptor<Appointment> captor = ArgumentCaptor.forClass(Appointment.class);
-        when(appointmentRepository.save(captor.capture())).thenAnswer(invocation -> {
+        when(appointmentRepository.saveAndFlush(captor.capture())).thenAnswer(invocation -> {
             Appointment saved = captor.getValue();
             saved.setId(100L);
             return saved;
@@ -88,6 +120,8 @@ class AppointmentServiceTest {
 
         assertThrows(SlotAlreadyBookedException.class, () -> appointmentService.book(req));
         verify(appointmentRepository, never()).save(any());
+        verify(appointmentRepository, never()).saveAndFlush(any());
+        assertEquals(1, bookings("conflict_overlap"));
     }
 
     @Test
@@ -100,10 +134,121 @@ class AppointmentServiceTest {
                 eq(doctor), eq(AppointmentStatus.CONFIRMED), eq(start.plusMinutes(30)), eq(start)
         )).thenReturn(false);
         when(appointmentRepository.findByDoctorAndStartTime(eq(doctor), eq(start))).thenReturn(Optional.empty());
-        when(appointmentRepository.save(any(Appointment.class))).thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(appointmentRepository.saveAndFlush(any(Appointment.class))).thenThrow(new DataIntegrityViolationException("duplicate key"));
 
         SlotAlreadyBookedException ex = assertThrows(SlotAlreadyBookedException.class, () -> appointmentService.book(req));
         assertTrue(ex.getMessage().toLowerCase().contains("slot"));
+        assertEquals(1, bookings("conflict_integrity_violation"));
+    }
+
+    @Test
+    void book_optimisticLockAtCommit_isTimedAsOptimisticLockConflict() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withHour(12).withMinute(0).withSecond(0).withNano(0);
+        CreateAppointmentRequest req = new CreateAppointmentRequest(1L, "Jane Doe", start);
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor));
+        when(appointmentRepository.findByDoctorAndStartTime(eq(doctor), eq(start))).thenReturn(Optional.empty());
+        when(appointmentRepository.saveAndFlush(any(Appointment.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // Stands in for the transaction manager failing the version check on commit
+        appointmentService = new AppointmentService(appointmentRepository, new DoctorCache(doctorRepository, PrimaryReads.inline(), properties),
+                slotHolds, bookingEngine, eventPublisher, properties, new TransactionOperations() {
+                    @Override
+                    public <T> T execute(TransactionCallback<T> action) {
+                        action.doInTransaction(null);
+                        throw new ObjectOptimisticLockingFailureException(Appointment.class, 5L);
+                    }
+                }, meterRegistry);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> appointmentService.book(req));
+        assertEquals(1, bookings("conflict_optimistic_lock"));
+        assertEquals(0, bookings("success"));
+    }
+
+    @Test
+    void book_sameSlotWhileInFlight_failsFastWithoutTouchingDatabase() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withHour(13).withMinute(0).withSecond(0).withNano(0);
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor));
+        when(appointmentRepository.findByDoctorAndStartTime(eq(doctor), eq(start))).thenReturn(Optional.empty());
+        when(appointmentRepository.saveAndFlush(any(Appointment.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // A rival request for the same slot arrives while the first booking is inside its transaction
+        AtomicReference<SlotAlreadyBookedException> rejected = new AtomicReference<>();
+        appointmentService = new AppointmentService(appointmentRepository, new DoctorCache(doctorRepository, PrimaryReads.inline(), properties),
+                slotHolds, bookingEngine, eventPublisher, properties, new TransactionOperations() {
+                    @Override
+                    public <T> T execute(TransactionCallback<T> action) {
+                        rejected.set(assertThrows(SlotAlreadyBookedException.class,
+                                () -> appointmentService.book(new CreateAppointmentRequest(1L, "Rival", start))));
+                        return action.doInTransaction(null);
+                    }
+                }, meterRegistry);
+
+        Appointment saved = appointmentService.book(new CreateAppointmentRequest(1L, "First", start));
+
+        assertEquals("First", saved.getPatientName());
+        assertEquals(SlotAlreadyBookedException.Reason.IN_FLIGHT, rejected.get().getReason());
+        verify(doctorRepository, times(1)).findById(1L);
+        verify(appointmentRepository, times(1)).saveAndFlush(any());
+        assertEquals(1, bookings("conflict_in_flight"));
+        assertEquals(1, bookings("success"));
+        assertEquals(0, meterRegistry.get("appointments.book.in.flight").gauge().value());
+    }
+
+    @Test
+    void book_heldSlot_onlyTheHolderCanBook_andTheHoldIsReleased() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withHour(14).withMinute(0).withSecond(0).withNano(0);
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor));
+        when(appointmentRepository.findByDoctorAndStartTime(eq(doctor), eq(start))).thenReturn(Optional.empty());
+        when(appointmentRepository.saveAndFlush(any(Appointment.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(slotHolds.findOverlapping(eq(1L), any(), any())).thenReturn(List.of(
+                new SlotHolds.Hold("hold-1", 1L, start, start.plusMinutes(30), Instant.now().plusSeconds(300))));
+
+        SlotAlreadyBookedException rejected = assertThrows(SlotAlreadyBookedException.class,
+                () -> appointmentService.book(new CreateAppointmentRequest(1L, "Other", start.plusMinutes(15))));
+        assertEquals(SlotAlreadyBookedException.Reason.HELD, rejected.getReason());
+        verify(appointmentRepository, never()).existsByDoctorAndStatusAndStartTimeLessThanAndEndTimeGreater(any(), any(), any(), any());
+
+        CreateAppointmentRequest req = new CreateAppointmentRequest(1L, "Holder", start);
+        req.setHoldId("hold-1");
+        assertEquals("Holder", appointmentService.book(req).getPatientName());
+        verify(slotHolds).release("hold-1");
+        assertEquals(1, bookings("conflict_held"));
+    }
+
+    @Test
+    void book_heldSlotWhileTheHolderBooks_othersSeeHeld_andTheHolderTakesNoGate() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withHour(15).withMinute(0).withSecond(0).withNano(0);
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor));
+        when(appointmentRepository.findByDoctorAndStartTime(eq(doctor), eq(start))).thenReturn(Optional.empty());
+        when(appointmentRepository.saveAndFlush(any(Appointment.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(slotHolds.findOverlapping(eq(1L), any(), any())).thenReturn(List.of(
+                new SlotHolds.Hold("hold-1", 1L, start, start.plusMinutes(30), Instant.now().plusSeconds(300))));
+
+        // A rival without the hold arrives while the holder's booking is inside its transaction
+        AtomicReference<SlotAlreadyBookedException> rejected = new AtomicReference<>();
+        double[] inFlight = new double[1];
+        appointmentService = new AppointmentService(appointmentRepository, new DoctorCache(doctorRepository, PrimaryReads.inline(), properties),
+                slotHolds, bookingEngine, eventPublisher, properties, new TransactionOperations() {
+                    @Override
+                    public <T> T execute(TransactionCallback<T> action) {
+                        inFlight[0] = meterRegistry.get("appointments.book.in.flight").gauge().value();
+                        rejected.set(assertThrows(SlotAlreadyBookedException.class,
+                                () -> appointmentService.book(new CreateAppointmentRequest(1L, "Rival", start))));
+                        return action.doInTransaction(null);
+                    }
+                }, meterRegistry);
+        CreateAppointmentRequest req = new CreateAppointmentRequest(1L, "Holder", start);
+        req.setHoldId("hold-1");
+
+        assertEquals("Holder", appointmentService.book(req).getPatientName());
+        assertEquals(SlotAlreadyBookedException.Reason.HELD, rejected.get().getReason());
+        assertEquals(0, inFlight[0]);
+        assertEquals(0, bookings("conflict_in_flight"));
+    }
+
+    private long bookings(String outcome) {
+        var timer = meterRegistry.find("appointments.book").tag("outcome", outcome).timer();
+        return timer == null ? 0 : timer.count();
     }
 
     @Test
@@ -120,7 +265,7 @@ class AppointmentServiceTest {
                 eq(doctor), eq(AppointmentStatus.CONFIRMED), eq(start.plusMinutes(30)), eq(start)
         )).thenReturn(false);
         when(appointmentRepository.findByDoctorAndStartTime(eq(doctor), eq(start))).thenReturn(Optional.of(existing));
-        when(appointmentRepository.save(any(Appointment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(appointmentRepository.saveAndFlush(any(Appointment.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         Appointment result = appointmentService.book(req);
         assertEquals(AppointmentStatus.CONFIRMED, result.getStatus());
@@ -128,6 +273,26 @@ class AppointmentServiceTest {
         assertEquals(200L, result.getId());
     }
 
+    @Test
+    void book_reuseCancelledSlot_constraintViolation_throwsSlotAlreadyBooked() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withHour(12).withMinute(0).withSecond(0).withNano(0);
+        CreateAppointmentRequest req = new CreateAppointmentRequest(1L, "Alice", start);
+
+        Appointment existing = new Appointment(doctor, "Old Patient", start, start.plusMinutes(30));
+        existing.setStatus(AppointmentStatus.CANCELLED);
+        existing.setId(200L);
+
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor));
+        when(appointmentRepository.existsByDoctorAndStatusAndStartTimeLessThanAndEndTimeGreater(
+                eq(doctor), eq(AppointmentStatus.CONFIRMED), eq(start.plusMinutes(30)), eq(start)
+        )).thenReturn(false);
+        when(appointmentRepository.findByDoctorAndStartTime(eq(doctor), eq(start))).thenReturn(Optional.of(existing));
+        when(appointmentRepository.saveAndFlush(existing)).thenThrow(new DataIntegrityViolationException("exclusion constraint"));
+
+        assertThrows(SlotAlreadyBookedException.class, () -> appointmentService.book(req));
+        verify(appointmentRepository, never()).save(any());
+    }
+
     @Test
     void cancel_updatesStatusToCancelled() {
         Appointment appt = new Appointment(doctor, "Bob", LocalDateTime.now().plusDays(1).withHour(14).withMinute(0).withSecond(0).withNano(0),
@@ -150,4 +315,85 @@ class AppointmentServiceTest {
         when(doctorRepository.findById(99L)).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class, () -> appointmentService.book(req));
     }
+
+    @Test
+    void book_singleStatementMode_usesConditionalUpsertOnly() {
+        properties.setBookingMode(AppointmentsProperties.BookingMode.SINGLE_STATEMENT);
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withHour(15).withMinute(0).withSecond(0).withNano(0);
+        CreateAppointmentRequest req = new CreateAppointmentRequest(1L, "Carol", start);
+        Appointment booked = new Appointment(doctor, "Carol", start, start.plusMinutes(30));
+        booked.setId(400L);
+
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor));
+        when(appointmentRepository.bookIfSlotFree(doctor, "Carol", null, start, start.plusMinutes(30))).thenReturn(Optional.of(booked));
+
+        assertSame(booked, appointmentService.book(req));
+        verify(appointmentRepository, never()).existsByDoctorAndStatusAndStartTimeLessThanAndEndTimeGreater(any(), any(), any(), any());
+        verify(appointmentRepository, never()).findByDoctorAndStartTime(any(), any());
+        verify(appointmentRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void book_singleStatementMode_slotTaken_throwsSlotAlreadyBooked() {
+        properties.setBookingMode(AppointmentsProperties.BookingMode.SINGLE_STATEMENT);
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withHour(15).withMinute(30).withSecond(0).withNano(0);
+
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor));
+        when(appointmentRepository.bookIfSlotFree(any(), any(), any(), any(), any())).thenReturn(Optional.empty());
+
+        assertThrows(SlotAlreadyBookedException.class,
+                () -> appointmentService.book(new CreateAppointmentRequest(1L, "Dan", start)));
+    }
+
+    @Test
+    void journalMode_booksAndCancelsThroughEngineWithoutRepository() {
+        properties.setBookingMode(AppointmentsProperties.BookingMode.JOURNAL);
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withHour(16).withMinute(0).withSecond(0).withNano(0);
+        Appointment booked = new Appointment(doctor, "Erin", start, start.plusMinutes(30));
+        booked.setId(500L);
+        Appointment cancelled = new Appointment(doctor, "Erin", start, start.plusMinutes(30));
+        cancelled.setId(500L);
+        cancelled.setStatus(AppointmentStatus.CANCELLED);
+
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor));
+        when(bookingEngine.book(doctor, "Erin", null, start)).thenReturn(booked);
+        when(bookingEngine.cancel(500L)).thenReturn(cancelled);
+
+        assertSame(booked, appointmentService.book(new CreateAppointmentRequest(1L, "Erin", start)));
+        assertSame(cancelled, appointmentService.cancel(500L));
+
+        verify(eventPublisher, times(2)).publishEvent(any(AppointmentChangedEvent.class));
+        verifyNoInteractions(appointmentRepository);
+        assertEquals(1, meterRegistry.get(AppointmentService.BOOK_TIMER).tags("mode", "journal", "outcome", "success").timer().count());
+    }
+
+    @Test
+    void listForDoctor_rejectsEmptyAndOversizedWindows() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        assertThrows(InvalidRequestException.class, () -> appointmentService.listForDoctor(1L, from, from));
+        assertThrows(InvalidRequestException.class,
+                () -> appointmentService.listForDoctor(1L, from, from.plusDays(properties.getMaxAvailabilityRangeDays()).plusMinutes(1)));
+        verifyNoInteractions(appointmentRepository);
+    }
+
+    @Test
+    void listForDoctor_unknownDoctor_throwsNotFound() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        when(doctorRepository.findById(9L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> appointmentService.listForDoctor(9L, from, from.plusDays(1)));
+        verify(appointmentRepository, never()).findDoctorSchedule(any(), any(), any());
+    }
+
+    @Test
+    void getPatientHistory_validatesPaging_andQueriesUnsortedPage() {
+        assertThrows(InvalidRequestException.class, () -> appointmentService.getPatientHistory("p-1", -1, 20));
+        assertThrows(InvalidRequestException.class, () -> appointmentService.getPatientHistory("p-1", 0, 0));
+        assertThrows(InvalidRequestException.class,
+                () -> appointmentService.getPatientHistoryWithDoctors("p-1", 0, AppointmentService.MAX_PAGE_SIZE + 1));
+
+        appointmentService.getPatientHistory("p-1", 2, 20);
+        verify(appointmentRepository).findPatientHistory("p-1", PageRequest.of(2, 20));
+    }
 }
@@ -0,0 +1,144 @@
+package com.example.appointments.service;
+
+import com.example.appointments.cache.SlotIndex;
+import com.example.appointments.config.AppointmentsProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AvailabilityBroadcasterTest {
+
+    private final LocalDate date = LocalDate.of(2030, 1, 1);
+    private final DoctorService doctorService = mock(DoctorService.class);
+    private final SlotIndex slotIndex = new SlotIndex(new AppointmentsProperties());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch unstall = new CountDownLatch(1);
+    private AvailabilityBroadcaster broadcaster;
+
+    @AfterEach
+    void tearDown() {
+        unstall.countDown();
+        if (broadcaster != null) {
+            broadcaster.shutdown();
+        }
+    }
+
+    @Test
+    void stalledSubscriber_doesNotHoldUpTheOthers() throws Exception {
+        broadcaster = broadcaster(256);
+        when(doctorService.getAvailability(1L, date)).thenReturn(List.of("09:00", "09:30"), List.of("09:00"));
+        RecordingEmitter stalled = new RecordingEmitter(unstall);
+        RecordingEmitter live = new RecordingEmitter(null);
+        broadcaster.subscribe(1L, date, stalled);
+        broadcaster.subscribe(1L, date, live);
+        assertTrue(live.next().startsWith("event:slots"));
+
+        slotIndex.evict(1L, date);
+
+        assertEquals("event:slot-taken\ndata:09:30\n\n", live.next());
+    }
+
+    @Test
+    void subscriberFallingTooFarBehind_isDisconnected() throws Exception {
+        broadcaster = broadcaster(2);
+        when(doctorService.getAvailability(1L, date))
+                .thenReturn(List.of("09:00", "09:30", "10:00"), List.of("09:00", "10:00"), List.of("10:00"), List.of());
+        RecordingEmitter stalled = new RecordingEmitter(unstall);
+        RecordingEmitter live = new RecordingEmitter(null);
+        broadcaster.subscribe(1L, date, stalled);
+        broadcaster.subscribe(1L, date, live);
+        live.next();
+
+        for (String taken : List.of("09:30", "09:00", "10:00")) {
+            slotIndex.evict(1L, date);
+            assertEquals("event:slot-taken\ndata:" + taken + "\n\n", live.next());
+        }
+
+        assertEquals(1, broadcaster.subscriberCount());
+        assertEquals(1, meterRegistry.get("appointments.availability.stream.dropped").counter().count());
+        unstall.countDown();
+        assertTrue(stalled.completed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void changes_reportsTakenThenFreedSlots() {
+        List<String> before = List.of("09:00", "09:30", "10:00");
+        List<String> after = List.of("09:00", "10:00", "10:30");
+
+        List<String> events = AvailabilityBroadcaster.changes(before, after).stream()
+                .map(AvailabilityBroadcasterTest::render)
+                .toList();
+
+        assertEquals(List.of(
+                "event:slot-taken\ndata:09:30\n\n",
+                "event:slot-freed\ndata:10:30\n\n"
+        ), events);
+    }
+
+    @Test
+    void changes_nothingForIdenticalDays() {
+        assertTrue(AvailabilityBroadcaster.changes(List.of("09:00"), List.of("09:00")).isEmpty());
+    }
+
+    private AvailabilityBroadcaster broadcaster(int maxPendingEvents) {
+        AppointmentsProperties properties = new AppointmentsProperties();
+        properties.getAvailabilityStream().setFanOutThreads(2);
+        properties.getAvailabilityStream().setMaxPendingEvents(maxPendingEvents);
+        return new AvailabilityBroadcaster(doctorService, slotIndex, properties, meterRegistry);
+    }
+
+    private static String render(SseEmitter.SseEventBuilder event) {
+        return event.build().stream().map(d -> d.getData().toString()).collect(Collectors.joining());
+    }
+
+    /**
+     * Records what is sent; with a latch, the first send blocks until it opens, like a client that stopped reading.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final CountDownLatch stall;
+        private final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        private RecordingEmitter(CountDownLatch stall) {
+            this.stall = stall;
+        }
+
+        @Override
+        public void send(SseEventBuilder event) throws IOException {
+            if (stall != null) {
+                try {
+                    stall.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            sent.add(render(event));
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        String next() throws InterruptedException {
+            String event = sent.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "no event within 5s");
+            return event;
+        }
+    }
+}
@@ -1,21 +1,33 @@
 package com.example.appointments.service;
 
+import com.example.appointments.cache.DaySlots;
+import com.example.appointments.cache.DoctorCache;
+import com.example.appointments.cache.SlotHolds;
+import com.example.appointments.cache.SlotIndex;
 import com.example.appointments.config.AppointmentsProperties;
-import com.example.appointments.entity.Appointment;
+import com.example.appointments.config.PrimaryReads;
 import com.example.appointments.entity.AppointmentStatus;
 import com.example.appointments.entity.Doctor;
+import com.example.appointments.event.AppointmentChangedEvent;
+import com.example.appointments.exception.InvalidRequestException;
+import com.example.appointments.journal.JournaledBookingEngine;
 import com.example.appointments.repository.AppointmentRepository;
+import com.example.appointments.repository.BusyInterval;
 import com.example.appointments.repository.DoctorRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,7 +42,13 @@ class DoctorServiceAvailabilityTest {
     @Mock
     private AppointmentRepository appointmentRepository;
 
+    @Mock
+    private JournaledBookingEngine bookingEngine;
+
     private DoctorService doctorService;
+    private SlotIndex slotIndex;
+    private SlotHolds slotHolds;
+    private SimpleMeterRegistry meterRegistry;
 
     private Doctor doctor;
     private AppointmentsProperties props;
@@ -41,7 +59,11 @@ class DoctorServiceAvailabilityTest {
         props.setWorkingHoursStart(LocalTime.of(9, 0));
         props.setWorkingHoursEnd(LocalTime.of(12, 0));
 
-        doctorService = new DoctorService(doctorRepository, appointmentRepository, props);
+        slotIndex = new SlotIndex(props);
+        slotHolds = mock(SlotHolds.class);
+        meterRegistry = new SimpleMeterRegistry();
+        doctorService = new DoctorService(doctorRepository, new DoctorCache(doctorRepository, PrimaryReads.inline(), props), appointmentRepository,
+                props, slotIndex, slotHolds, PrimaryReads.inline(), bookingEngine, event -> { }, meterRegistry);
 
         doctor = new Doctor();
         doctor.setId(1L);
@@ -58,15 +80,12 @@ class DoctorServiceAvailabilityTest {
         LocalDateTime dayEnd = date.atTime(12, 0);
 
         // Busy appointments at 10:00-10:30 and 11:00-11:30
-        Appointment a1 = new Appointment(doctor, "John", dayStart.plusHours(1), dayStart.plusHours(1).plusMinutes(30));
-        a1.setStatus(AppointmentStatus.CONFIRMED);
-
-        Appointment a2 = new Appointment(doctor, "Jane", dayStart.plusHours(2), dayStart.plusHours(2).plusMinutes(30));
-        a2.setStatus(AppointmentStatus.CONFIRMED);
+        BusyInterval a1 = new BusyInterval(1L, dayStart.plusHours(1), dayStart.plusHours(1).plusMinutes(30));
+        BusyInterval a2 = new BusyInterval(1L, dayStart.plusHours(2), dayStart.plusHours(2).plusMinutes(30));
 
         when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor));
-        when(appointmentRepository.findByDoctorAndStatusAndEndTimeGreaterAndStartTimeLess(
-                eq(doctor), eq(AppointmentStatus.CONFIRMED), eq(dayStart), eq(dayEnd)
+        when(appointmentRepository.findBusyIntervals(
+                eq(1L), eq(AppointmentStatus.CONFIRMED), eq(dayStart), eq(dayEnd)
         )).thenReturn(List.of(a1, a2));
 
         List<String> slots = doctorService.getAvailability(1L, date);
@@ -82,6 +101,22 @@ class DoctorServiceAvailabilityTest {
         assertEquals(4, slots.size());
     }
 
+    @Test
+    void availability_inJournalMode_isBuiltFromTheEngineNotTheLaggingTable() {
+        LocalDate date = LocalDate.of(2025, 12, 31);
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor));
+        when(bookingEngine.markBooked(eq(1L), eq(date), any())).thenAnswer(invocation -> {
+            invocation.<DaySlots.Builder>getArgument(2).busy(date.atTime(10, 0), date.atTime(10, 30));
+            return true;
+        });
+
+        List<String> slots = doctorService.getAvailability(1L, date);
+
+        assertEquals(5, slots.size());
+        assertFalse(slots.contains(date.atTime(10, 0).toString()));
+        verifyNoInteractions(appointmentRepository);
+    }
+
     @Test
     void availability_noBusySlots_returnsAll() {
         LocalDate date = LocalDate.of(2025, 6, 1);
@@ -89,8 +124,8 @@ class DoctorServiceAvailabilityTest {
         LocalDateTime dayEnd = date.atTime(12, 0);
 
         when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor));
-        when(appointmentRepository.findByDoctorAndStatusAndEndTimeGreaterAndStartTimeLess(
-                eq(doctor), eq(AppointmentStatus.CONFIRMED), eq(dayStart), eq(dayEnd)
+        when(appointmentRepository.findBusyIntervals(
+                eq(1L), eq(AppointmentStatus.CONFIRMED), eq(dayStart), eq(dayEnd)
         )).thenReturn(List.of());
 
         List<String> slots = doctorService.getAvailability(1L, date);
@@ -106,4 +141,166 @@ class DoctorServiceAvailabilityTest {
                 dayStart.plusHours(2).plusMinutes(30).toString()
         ), slots);
     }
+
+    @Test
+    void availability_treatsLiveHoldsAsBusy_withoutReloadingTheDay() {
+        LocalDate date = LocalDate.of(2025, 6, 2);
+        LocalDateTime dayStart = date.atTime(9, 0);
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor));
+        when(appointmentRepository.findBusyIntervals(any(), any(), any(), any())).thenReturn(List.of());
+        List<SlotHolds.Hold> live = new ArrayList<>();
+        when(slotHolds.overlapping(eq(1L), any(), any())).thenAnswer(inv -> List.copyOf(live));
+        assertEquals(6, doctorService.getAvailability(1L, date).size());
+
+        live.add(new SlotHolds.Hold("hold-1", 1L, dayStart.plusHours(1), dayStart.plusHours(1).plusMinutes(30),
+                Instant.now().plusSeconds(300)));
+
+        assertFalse(doctorService.getAvailability(1L, date).contains(dayStart.plusHours(1).toString()));
+        assertEquals(5, doctorService.getAvailabilityRange(List.of(1L), null, date, date).get(1L).get(date).size());
+
+        live.clear();
+        assertEquals(6, doctorService.getAvailability(1L, date).size());
+        verify(appointmentRepository, times(1)).findBusyIntervals(any(), any(), any(), any());
+    }
+
+    @Test
+    void availability_repeatedCall_servedFromIndex_andFollowsBookings() {
+        LocalDate date = LocalDate.of(2025, 7, 1);
+        LocalDateTime dayStart = date.atTime(9, 0);
+        LocalDateTime dayEnd = date.atTime(12, 0);
+
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor));
+        when(appointmentRepository.findBusyIntervals(
+                eq(1L), eq(AppointmentStatus.CONFIRMED), eq(dayStart), eq(dayEnd)
+        )).thenReturn(List.of());
+
+        assertEquals(6, doctorService.getAvailability(1L, date).size());
+
+        // Booking 10:15-10:45 straddles the 10:00 and 10:30 slots
+        slotIndex.onAppointmentChanged(new AppointmentChangedEvent(AppointmentChangedEvent.Type.BOOKED, 10L, 1L,
+                dayStart.plusMinutes(75), dayStart.plusMinutes(105)));
+
+        List<String> slots = doctorService.getAvailability(1L, date);
+        assertEquals(List.of(
+                dayStart.toString(),
+                dayStart.plusMinutes(30).toString(),
+                dayStart.plusHours(2).toString(),
+                dayStart.plusHours(2).plusMinutes(30).toString()
+        ), slots);
+        verify(appointmentRepository, times(1)).findBusyIntervals(any(), any(), any(), any());
+        assertEquals(1, meterRegistry.get("appointments.availability").tag("source", "database").timer().count());
+        assertEquals(1, meterRegistry.get("appointments.availability").tag("source", "index").timer().count());
+
+        // Cancellation evicts the day so it is rebuilt from the database
+        slotIndex.onAppointmentChanged(new AppointmentChangedEvent(AppointmentChangedEvent.Type.CANCELLED, 10L, 1L,
+                dayStart.plusMinutes(75), dayStart.plusMinutes(105)));
+        assertEquals(6, doctorService.getAvailability(1L, date).size());
+        verify(appointmentRepository, times(2)).findBusyIntervals(any(), any(), any(), any());
+    }
+
+    @Test
+    void availabilityRange_singleQuery_groupsByDoctorAndDay() {
+        Doctor other = new Doctor("Dr. Other", "General", "other@example.com", 60);
+        other.setId(2L);
+        LocalDate from = LocalDate.of(2025, 8, 4);
+        LocalDate to = from.plusDays(1);
+
+        BusyInterval a1 = new BusyInterval(1L, from.atTime(9, 0), from.atTime(9, 30));
+        BusyInterval a2 = new BusyInterval(2L, to.atTime(10, 30), to.atTime(11, 30));
+
+        when(doctorRepository.findAllById(any())).thenReturn(List.of(other, doctor));
+        when(appointmentRepository.findOverlappingForDoctors(
+                any(), eq(AppointmentStatus.CONFIRMED), eq(from.atTime(9, 0)), eq(to.atTime(12, 0))
+        )).thenReturn(List.of(a1, a2));
+
+        Map<Long, Map<LocalDate, List<String>>> result = doctorService.getAvailabilityRange(List.of(1L, 2L), null, from, to);
+
+        assertEquals(List.of(1L, 2L), List.copyOf(result.keySet()));
+        assertEquals(5, result.get(1L).get(from).size());
+        assertEquals(6, result.get(1L).get(to).size());
+        assertEquals(3, result.get(2L).get(from).size());
+        // 10:30-11:30 blocks both the 10:00 and 11:00 hour slots
+        assertEquals(List.of(to.atTime(9, 0).toString()), result.get(2L).get(to));
+        verify(appointmentRepository, times(1)).findOverlappingForDoctors(any(), any(), any(), any());
+    }
+
+    @Test
+    void availabilityRange_rejectsInvertedOrOversizedRange() {
+        LocalDate from = LocalDate.of(2025, 8, 4);
+        assertThrows(InvalidRequestException.class,
+                () -> doctorService.getAvailabilityRange(List.of(1L), null, from, from.minusDays(1)));
+        assertThrows(InvalidRequestException.class,
+                () -> doctorService.getAvailabilityRange(List.of(1L), null, from, from.plusDays(31)));
+        assertThrows(InvalidRequestException.class,
+                () -> doctorService.getAvailabilityRange(null, " ", from, from));
+    }
+
+    @Test
+    void nextAvailable_mergesDoctorsSoonestFirst_andStopsAtLimit() {
+        Doctor other = new Doctor("Dr. Other", "General", "other@example.com", 60);
+        other.setId(2L);
+        LocalDate date = LocalDate.of(2025, 9, 1);
+
+        // Dr. Availability is fully booked until 11:00; Dr. Other is free all morning
+        BusyInterval morning = new BusyInterval(1L, date.atTime(9, 0), date.atTime(11, 0));
+        when(doctorRepository.findBySpecializationIgnoreCase("general")).thenReturn(List.of(doctor, other));
+        when(appointmentRepository.findBusyIntervals(
+                any(), eq(AppointmentStatus.CONFIRMED), eq(date.atTime(9, 0)), eq(date.atTime(12, 0))
+        )).thenAnswer(inv -> inv.getArgument(0).equals(1L) ? List.of(morning) : List.of());
+
+        List<AvailableSlot> result = doctorService.findNextAvailable("general", date.atTime(9, 10), 3);
+
+        assertEquals(3, result.size());
+        assertEquals(2L, result.get(0).getDoctor().getId());
+        assertEquals(date.atTime(10, 0), result.get(0).getStartTime());
+        assertEquals(1L, result.get(1).getDoctor().getId());
+        assertEquals(date.atTime(11, 0), result.get(1).getStartTime());
+        assertEquals(2L, result.get(2).getDoctor().getId());
+        assertEquals(date.atTime(11, 0), result.get(2).getStartTime());
+        // Only the first day of each doctor was needed
+        verify(appointmentRepository, times(2)).findBusyIntervals(any(), any(), any(), any());
+    }
+
+    @Test
+    void nextAvailable_loadsAFullyBookedDoctorsDaysOnlyWhileTheyCouldStillWin() {
+        Doctor other = new Doctor("Dr. Other", "General", "other@example.com", 30);
+        other.setId(2L);
+        props.setNextAvailableHorizonDays(60);
+        LocalDate date = LocalDate.of(2025, 9, 1);
+
+        // Dr. Availability is booked solid every day; Dr. Other is free on the third day only
+        when(doctorRepository.findBySpecializationIgnoreCase("general")).thenReturn(List.of(doctor, other));
+        when(appointmentRepository.findBusyIntervals(any(), eq(AppointmentStatus.CONFIRMED), any(), any()))
+                .thenAnswer(inv -> {
+                    LocalDateTime dayStart = inv.getArgument(2);
+                    boolean free = inv.getArgument(0).equals(2L) && dayStart.toLocalDate().equals(date.plusDays(2));
+                    return free ? List.of() : List.of(new BusyInterval(inv.getArgument(0), dayStart, inv.getArgument(3)));
+                });
+
+        List<AvailableSlot> result = doctorService.findNextAvailable("general", date.atTime(9, 0), 2);
+
+        assertEquals(List.of(date.plusDays(2).atTime(9, 0), date.plusDays(2).atTime(9, 30)),
+                result.stream().map(AvailableSlot::getStartTime).toList());
+        // Three days each, not Dr. Availability's whole 60-day horizon
+        verify(appointmentRepository, times(3)).findBusyIntervals(eq(1L), any(), any(), any());
+        verify(appointmentRepository, times(3)).findBusyIntervals(eq(2L), any(), any(), any());
+    }
+
+    @Test
+    void mergeOverlapping_coalescesSortedIntervalsPerDoctor() {
+        LocalDateTime t = LocalDate.of(2025, 10, 1).atTime(9, 0);
+        List<BusyInterval> runs = DoctorService.mergeOverlapping(List.of(
+                new BusyInterval(1L, t, t.plusMinutes(30)),
+                new BusyInterval(1L, t.plusMinutes(10), t.plusMinutes(20)),  // contained
+                new BusyInterval(1L, t.plusMinutes(30), t.plusMinutes(60)),  // touching
+                new BusyInterval(1L, t.plusMinutes(90), t.plusMinutes(120)),
+                new BusyInterval(2L, t.plusMinutes(100), t.plusMinutes(130)) // other doctor never merges
+        ));
+
+        assertEquals(List.of(
+                new BusyInterval(1L, t, t.plusMinutes(60)),
+                new BusyInterval(1L, t.plusMinutes(90), t.plusMinutes(120)),
+                new BusyInterval(2L, t.plusMinutes(100), t.plusMinutes(130))
+        ), runs);
+    }
 }
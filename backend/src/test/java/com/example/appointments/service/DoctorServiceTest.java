@@ -1,9 +1,16 @@
 package com.example.appointments.service;
 
+import com.example.appointments.cache.DoctorCache;
+import com.example.appointments.cache.SlotHolds;
+import com.example.appointments.cache.SlotIndex;
 import com.example.appointments.config.AppointmentsProperties;
+import com.example.appointments.config.PrimaryReads;
 import com.example.appointments.dto.CreateDoctorRequest;
 import com.example.appointments.entity.Doctor;
+import com.example.appointments.event.DoctorChangedEvent;
+import com.example.appointments.exception.InvalidRequestException;
 import com.example.appointments.exception.ResourceNotFoundException;
+import com.example.appointments.journal.JournaledBookingEngine;
 import com.example.appointments.repository.AppointmentRepository;
 import com.example.appointments.repository.DoctorRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,10 +19,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -29,15 +43,23 @@ class DoctorServiceTest {
     @Mock
     private AppointmentRepository appointmentRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     private DoctorService doctorService;
 
+    private DoctorCache doctorCache;
+
     @BeforeEach
     void setUp() {
         AppointmentsProperties props = new AppointmentsProperties();
         // Defaults are fine; set explicitly to ensure deterministic tests
         props.setWorkingHoursStart(LocalTime.of(9, 0));
         props.setWorkingHoursEnd(LocalTime.of(17, 0));
-        doctorService = new DoctorService(doctorRepository, appointmentRepository, props);
+        doctorCache = new DoctorCache(doctorRepository, PrimaryReads.inline(), props);
+        SlotIndex slotIndex = new SlotIndex(props);
+        doctorService = new DoctorService(doctorRepository, doctorCache, appointmentRepository,
+                props, slotIndex, mock(SlotHolds.class), PrimaryReads.inline(), mock(JournaledBookingEngine.class), eventPublisher, new SimpleMeterRegistry());
     }
 
     @Test
@@ -57,6 +79,7 @@ class DoctorServiceTest {
         assertEquals("Timeology", result.getSpecialization());
         assertEquals("drwho@example.com", result.getContactEmail());
         assertEquals(20, result.getPerSlotDurationMinutes());
+        verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof DoctorChangedEvent c && c.getDoctorId() == 1L));
     }
 
     @Test
@@ -73,6 +96,14 @@ class DoctorServiceTest {
         assertEquals(1, result.size());
     }
 
+    @Test
+    void listDoctors_isCachedPerSpecialization_ignoringCase() {
+        when(doctorRepository.findBySpecializationIgnoreCase("Cardiology")).thenReturn(List.of(new Doctor()));
+        doctorService.listDoctors("Cardiology");
+        doctorService.listDoctors("CARDIOLOGY");
+        verify(doctorRepository, times(1)).findBySpecializationIgnoreCase(anyString());
+    }
+
     @Test
     void getByIdOrThrow_notFound_throws() {
         when(doctorRepository.findById(99L)).thenReturn(Optional.empty());
@@ -86,5 +117,52 @@ class DoctorServiceTest {
         when(doctorRepository.findById(2L)).thenReturn(Optional.of(d));
         Doctor result = doctorService.getByIdOrThrow(2L);
         assertEquals(2L, result.getId());
+        // A copy: the loaded instance may still belong to the loading transaction's persistence context
+        assertNotSame(d, result);
+        assertSame(result, doctorService.getByIdOrThrow(2L));
+        verify(doctorRepository, times(1)).findById(2L);
+    }
+
+    @Test
+    void getByIdOrThrow_doctorChangedWhileLoading_isNotCached() {
+        Doctor d = new Doctor();
+        d.setId(2L);
+        when(doctorRepository.findById(2L)).thenAnswer(inv -> {
+            // The doctor's update commits after this read
+            doctorCache.onDoctorChanged(new DoctorChangedEvent(2L));
+            return Optional.of(d);
+        }).thenReturn(Optional.of(d));
+
+        doctorService.getByIdOrThrow(2L);
+        doctorService.getByIdOrThrow(2L);
+        doctorService.getByIdOrThrow(2L);
+
+        verify(doctorRepository, times(2)).findById(2L);
+    }
+
+    @Test
+    void listDoctorsPage_seeksPastCursor_andValidatesLimit() {
+        when(doctorRepository.findByIdGreaterThanOrderByIdAsc(40L, Limit.of(10))).thenReturn(List.of(new Doctor()));
+        assertEquals(1, doctorService.listDoctorsPage(null, 40L, 10).size());
+        assertThrows(InvalidRequestException.class, () -> doctorService.listDoctorsPage(null, 0L, 0));
+        assertThrows(InvalidRequestException.class, () -> doctorService.listDoctorsPage(null, 0L, 501));
+    }
+
+    @Test
+    void streamDoctors_handsOverInOrder_andDetachesEach() {
+        EntityManager entityManager = mock(EntityManager.class);
+        ReflectionTestUtils.setField(doctorService, "entityManager", entityManager);
+        Doctor first = new Doctor();
+        first.setId(1L);
+        Doctor second = new Doctor();
+        second.setId(2L);
+        when(doctorRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(first, second));
+
+        List<Long> seen = new ArrayList<>();
+        doctorService.streamDoctors(" ", d -> seen.add(d.getId()));
+
+        assertEquals(List.of(1L, 2L), seen);
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
     }
 }